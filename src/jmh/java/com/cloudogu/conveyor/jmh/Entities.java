@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.jmh;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+final class Entities {
+
+  private Entities() {
+  }
+
+  static NarrowEntity narrow(int i) {
+    NarrowEntity entity = new NarrowEntity();
+    entity.setFirstName("Tricia " + i);
+    entity.setLastName("McMillan");
+    entity.setAge(i % 100);
+    entity.setHuman(true);
+    return entity;
+  }
+
+  static WideEntity wide(int i) {
+    WideEntity entity = new WideEntity();
+    entity.setName("trillian" + i);
+    entity.setDisplayName("Tricia McMillan");
+    entity.setMail("tricia" + i + "@hitchhiker.com");
+    entity.setStreet("Islington");
+    entity.setCity("London");
+    entity.setZip("N1");
+    entity.setCountry("UK");
+    entity.setPhone("+44 20 " + i);
+    entity.setLoginCount(i);
+    entity.setQuota(42L * i);
+    entity.setScore(i / 3d);
+    entity.setActive(true);
+    entity.setAdmin(i % 2 == 0);
+    entity.setLevel(i % 10);
+    entity.setRevision((long) i);
+    return entity;
+  }
+
+  static DeepEntity deep(int i) {
+    DeepEntity entity = new DeepEntity();
+    entity.setId("id-" + i);
+    entity.setCreationDate(Instant.ofEpochSecond(i));
+    entity.setCreatedBy("arthur");
+    entity.setModifiedBy("ford");
+    entity.setName("heart of gold " + i);
+    entity.setDescription("infinite improbability drive");
+    return entity;
+  }
+
+  static List<WideEntity> wides(int size) {
+    List<WideEntity> entities = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      entities.add(wide(i));
+    }
+    return entities;
+  }
+}
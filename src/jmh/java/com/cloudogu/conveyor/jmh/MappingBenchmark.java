@@ -0,0 +1,131 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.jmh;
+
+import de.otto.edison.hal.Links;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the generated mapping methods for dtos of different width and inheritance depth.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+  private NarrowEntity narrow;
+  private WideEntity wide;
+  private DeepEntity deep;
+  private List<WideEntity> wides;
+
+  private NarrowEntityDto narrowDto;
+  private WideEntityDto wideDto;
+  private DeepEntityDto deepDto;
+
+  private Links links;
+
+  @Setup
+  public void setUp() {
+    narrow = Entities.narrow(1);
+    wide = Entities.wide(1);
+    deep = Entities.deep(1);
+    wides = Entities.wides(1000);
+
+    narrowDto = NarrowEntityDto.from(narrow);
+    wideDto = WideEntityDto.from(wide);
+    deepDto = DeepEntityDto.from(deep);
+
+    links = Links.linkingTo().self("/entities/1").build();
+  }
+
+  @Benchmark
+  public NarrowEntityDto fromNarrow() {
+    return NarrowEntityDto.from(narrow, links);
+  }
+
+  @Benchmark
+  public WideEntityDto fromWide() {
+    return WideEntityDto.from(wide, links);
+  }
+
+  @Benchmark
+  public DeepEntityDto fromDeep() {
+    return DeepEntityDto.from(deep, links);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public List<WideEntityDto> fromAllWide() {
+    return WideEntityDto.fromAll(wides, entity -> links);
+  }
+
+  @Benchmark
+  public NarrowEntity updateNarrow() {
+    narrowDto.update(narrow);
+    return narrow;
+  }
+
+  @Benchmark
+  public WideEntity updateWide() {
+    wideDto.update(wide);
+    return wide;
+  }
+
+  @Benchmark
+  public DeepEntity updateDeep() {
+    deepDto.update(deep);
+    return deep;
+  }
+
+  @Benchmark
+  public NarrowEntity toEntityNarrow() {
+    return narrowDto.toEntity();
+  }
+
+  @Benchmark
+  public WideEntity toEntityWide() {
+    return wideDto.toEntity();
+  }
+
+  @Benchmark
+  public DeepEntity toEntityDeep() {
+    return deepDto.toEntity();
+  }
+}
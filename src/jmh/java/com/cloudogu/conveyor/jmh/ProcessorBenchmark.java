@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.jmh;
+
+import com.cloudogu.conveyor.internal.ConveyorProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.processing.Processor;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the annotation processing time for a growing number of synthetic {@code @GenerateDto} classes.
+ * The {@code parseOnly} benchmark runs the same compilation without conveyor,
+ * the difference between both is the time spent in the processor and on its generated sources.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ProcessorBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int classes;
+
+  private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+  private List<JavaFileObject> sources;
+  private Path output;
+
+  @Setup
+  public void setUp() throws IOException {
+    sources = new ArrayList<>(classes);
+    for (int i = 0; i < classes; i++) {
+      sources.add(new Source("Entity" + i));
+    }
+    output = Files.createTempDirectory("conveyor-jmh");
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(output)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public boolean process() throws IOException {
+    return compile(Collections.singletonList(new ConveyorProcessor()));
+  }
+
+  @Benchmark
+  public boolean parseOnly() throws IOException {
+    return compile(Collections.emptyList());
+  }
+
+  private boolean compile(List<Processor> processors) throws IOException {
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+      List<String> options = Arrays.asList(
+        "-proc:only",
+        "-s", output.toString(),
+        "-d", output.toString(),
+        "-classpath", System.getProperty("java.class.path")
+      );
+      JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, sources);
+      task.setProcessors(processors);
+      return task.call();
+    }
+  }
+
+  private static class Source extends SimpleJavaFileObject {
+
+    private final String content;
+
+    Source(String className) {
+      super(URI.create("string:///bench/" + className + ".java"), Kind.SOURCE);
+      this.content = "package bench;\n"
+        + "import com.cloudogu.conveyor.*;\n"
+        + "@GenerateDto\n"
+        + "public class " + className + " {\n"
+        + "  @Include private String name;\n"
+        + "  @Include(readOnly = true) private int count;\n"
+        + "  @Include @View(\"summary\") private String description;\n"
+        + "  private String internal;\n"
+        + "  public String getName() { return name; }\n"
+        + "  public void setName(String name) { this.name = name; }\n"
+        + "  public int getCount() { return count; }\n"
+        + "  public String getDescription() { return description; }\n"
+        + "  public void setDescription(String description) { this.description = description; }\n"
+        + "}\n";
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      return content;
+    }
+  }
+}
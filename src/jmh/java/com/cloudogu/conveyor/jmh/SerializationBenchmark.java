@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.jmh;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.otto.edison.hal.Links;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the json serialization of dtos by the reflective bean serializer of Jackson
+ * with the serializers which are generated by conveyor, and with the generated binary encoding.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+  private final ObjectMapper reflective = new ObjectMapper();
+  private final ObjectMapper generated = new ObjectMapper().registerModule(new BenchmarkModule());
+
+  private NarrowEntityDto narrowDto;
+  private WideEntityDto wideDto;
+  private DeepEntityDto deepDto;
+
+  @Setup
+  public void setUp() {
+    Links links = Links.linkingTo().self("/entities/1").build();
+
+    narrowDto = NarrowEntityDto.from(Entities.narrow(1), links);
+    wideDto = WideEntityDto.from(Entities.wide(1), links);
+    // instants require the jsr310 module, which is not part of the benchmark
+    DeepEntity deep = Entities.deep(1);
+    deep.setCreationDate(null);
+    deepDto = DeepEntityDto.from(deep, links);
+  }
+
+  @Benchmark
+  public byte[] reflectiveNarrow() throws JsonProcessingException {
+    return reflective.writeValueAsBytes(narrowDto);
+  }
+
+  @Benchmark
+  public byte[] generatedNarrow() throws JsonProcessingException {
+    return generated.writeValueAsBytes(narrowDto);
+  }
+
+  @Benchmark
+  public byte[] binaryNarrow() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+    narrowDto.writeTo(new DataOutputStream(bytes));
+    return bytes.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] reflectiveWide() throws JsonProcessingException {
+    return reflective.writeValueAsBytes(wideDto);
+  }
+
+  @Benchmark
+  public byte[] generatedWide() throws JsonProcessingException {
+    return generated.writeValueAsBytes(wideDto);
+  }
+
+  @Benchmark
+  public byte[] reflectiveDeep() throws JsonProcessingException {
+    return reflective.writeValueAsBytes(deepDto);
+  }
+
+  @Benchmark
+  public byte[] generatedDeep() throws JsonProcessingException {
+    return generated.writeValueAsBytes(deepDto);
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+/**
+ * Defines how collection and map fields are passed from the entity to the dto,
+ * see {@link GenerateDto#copyStrategy()} and {@link Copy}.
+ */
+public enum CopyStrategy {
+  /**
+   * The dto references the collection of the entity.
+   */
+  SHARE,
+
+  /**
+   * The dto gets a copy, which is created with the size of the collection of the entity.
+   */
+  PRESIZED_COPY,
+
+  /**
+   * The dto gets an unmodifiable view of the collection of the entity, the collection is not copied.
+   * A lazy collection of the entity is not loaded by the mapping, but on the first access to the view.
+   */
+  UNMODIFIABLE_VIEW,
+
+  /**
+   * The dto gets an unmodifiable copy of the collection of the entity.
+   */
+  IMMUTABLE_COPY
+}
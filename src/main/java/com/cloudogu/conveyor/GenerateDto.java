@@ -30,10 +30,129 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * Generates a dto for the annotated entity.
+ * The annotation is retained in the class file, because the processor reads it from nested entities,
+ * which are loaded from class files in incremental builds or if they are part of another module.
+ */
 @Documented
 @Target(ElementType.TYPE)
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 public @interface GenerateDto {
   String className() default "";
   Strategy strategy() default Strategy.INCLUDE;
+
+  /**
+   * Generates {@code fromLazy} methods, which accept suppliers for links and embedded objects.
+   * The suppliers are called when the links or embedded objects are requested for the first time.
+   */
+  boolean lazyLinks() default false;
+
+  /**
+   * Tracks the fields which are modified by the setters of the dto.
+   * The generated {@code update} and {@code toEntity} methods apply only the modified fields,
+   * the modified fields are exposed as bit mask by {@code changedFields}.
+   * Change tracking supports at most 64 exported fields.
+   */
+  boolean trackChanges() default false;
+
+  /**
+   * Generates a concrete class for each view next to the view interface.
+   * The view class contains only the fields of the view and has its own {@code from} methods,
+   * which copy only those fields from the entity.
+   */
+  boolean viewClasses() default false;
+
+  /**
+   * Generates an immutable dto with final fields, which are assigned by a single constructor.
+   * Instead of setters the dto has {@code with} methods, which return a modified copy.
+   * Immutable dtos can not be combined with {@link #lazyLinks()} or {@link #trackChanges()}.
+   */
+  boolean immutable() default false;
+
+  /**
+   * Generates a hal representation with links and embedded resources.
+   * If disabled, the dto is a plain class without a superclass and without links or embedded state,
+   * which is smaller and does not require edison-hal at runtime.
+   * Plain dtos can not be combined with {@link #lazyLinks()}.
+   */
+  boolean hal() default true;
+
+  /**
+   * Generates the methods {@code fillFrom} and {@code fromInto}, which overwrite an existing dto
+   * instead of creating a new one. This allows batch exports to reuse one dto for many entities.
+   * Reusable dtos can not be combined with {@link #immutable()}.
+   */
+  boolean reusable() default false;
+
+  /**
+   * Generates the methods {@code writeTo(DataOutput)} and {@code readFrom(DataInput)},
+   * which encode the dto in a compact binary format, e.g. for caches.
+   * Only primitives, their wrappers, strings and nested dtos with a binary encoding are supported.
+   */
+  boolean binary() default false;
+
+  /**
+   * Generates a writer for each format, which streams entities or dtos without further allocations per row,
+   * e.g. {@code PersonDtoCsvWriter}. Only fields of primitive, wrapper, string and other non generic types are supported.
+   */
+  ExportFormat[] exportFormats() default {};
+
+  /**
+   * Restricts the fields of the generated writers to the fields of the given view.
+   */
+  String exportView() default "";
+
+  /**
+   * Generates a {@code FieldSet}, which selects exported fields by name, e.g. for {@code ?fields=firstName,lastName}.
+   * Dtos created with {@code fromFields} copy only the selected fields and the generated serializer writes only those.
+   * Field sets can not be combined with {@link #immutable()} and support at most 64 fields.
+   */
+  boolean fieldSets() default false;
+
+  /**
+   * Generates a {@code validate} method, which checks {@code NotNull}, {@code Size}, {@code Min}, {@code Max} and
+   * {@code Pattern} constraints inline. If other constraints are used, {@code validate(Validator)} is generated
+   * as well, which validates the fields with those constraints by the bean validation provider.
+   */
+  boolean validation() default false;
+
+  /**
+   * Defines how collection and map fields are passed from the entity to the dto.
+   * Copies are created once, when the dto is mapped, e.g. to load lazy collections within the transaction.
+   * {@link CopyStrategy#SHARE} and {@link CopyStrategy#UNMODIFIABLE_VIEW} do not copy, so lazy collections
+   * are loaded on the first access to the dto, which may be outside of the transaction.
+   * The strategy can be changed for a single field with {@link Copy}.
+   */
+  CopyStrategy copyStrategy() default CopyStrategy.SHARE;
+
+  /**
+   * Generates a {@code CachingMapper}, which caches at most the given number of dtos by the id and version
+   * of their entity and returns the cached dto as long as the version of the entity is unchanged.
+   * The fields are marked with {@link CacheId} and {@link CacheVersion} or with {@code @Id} and {@code @Version}.
+   * The cache shares dtos between threads, so it requires {@link #immutable()} and immutable nested dtos.
+   * Collections and maps are copied with {@link CopyStrategy#IMMUTABLE_COPY} by default, other strategies are rejected.
+   */
+  int cacheSize() default 0;
+
+  /**
+   * Generates a {@code contentHash} method, which returns a stable 64-bit hash of the exported fields, e.g. for etags,
+   * and a {@code <view>ContentHash} method for each view. Nested dtos must generate a content hash as well,
+   * a cyclic reference to a dto, which is hashed already, contributes a constant instead of its fields.
+   */
+  boolean contentHash() default false;
+
+  /**
+   * Generates the methods {@code differsFrom} and {@code diff}, which compare the fields written by {@code update}
+   * with the entity. {@code diff} returns the changed fields as bit mask, so it supports at most 64 fields.
+   */
+  boolean diff() default false;
+
+  /**
+   * Generates {@code equals}, {@code hashCode} and {@code toString} from the exported fields,
+   * links and embedded resources are ignored. Immutable dtos cache their hash code.
+   * Mutable nested dtos, which may reference the dto again, are compared and printed with the dtos on the path
+   * from the outer dto to terminate cycles, and are not part of the hash code.
+   */
+  boolean valueMethods() default false;
 }
@@ -0,0 +1,677 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.annotation.Nullable;
+import javax.lang.model.element.Modifier;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Generates a compact binary encoding for dtos and view classes.
+ * Integers are written as zig-zag varints, the absence of nullable fields is stored in bitmaps
+ * and the encoding starts with a hash of the exported fields, which detects incompatible versions.
+ * Nested dtos are written once and referenced by their index afterwards, like the context of the mapping,
+ * so shared and cyclic references are restored.
+ */
+class BinaryCodecGenerator {
+
+  private static final String CONSTANT_SCHEMA_HASH = "SCHEMA_HASH";
+
+  private static final String FIELD_OUTPUT = "output";
+  private static final String FIELD_INPUT = "input";
+  private static final String FIELD_DTO = "dto";
+  private static final String FIELD_DTOS = "dtos";
+  private static final String FIELD_VALUE = "value";
+  private static final String FIELD_SIZE = "size";
+  private static final String FIELD_SHIFT = "shift";
+  private static final String FIELD_BYTES = "bytes";
+  private static final String FIELD_ELEMENT = "element";
+  private static final String FIELD_SCHEMA = "schema";
+  private static final String FIELD_WRITTEN = "written";
+  private static final String FIELD_READ = "read";
+  private static final String FIELD_REFERENCE = "reference";
+  private static final String FIELD_INDEX = "index";
+  private static final String FIELD_LENGTH = "length";
+  private static final String FIELD_CHUNK = "chunk";
+  private static final String FIELD_REMAINING = "remaining";
+  private static final String FIELD_COUNT = "count";
+  private static final String PREFIX_NULLS = "nulls";
+
+  private static final String METHOD_WRITE_TO = "writeTo";
+  private static final String METHOD_WRITE_FIELDS_TO = "writeFieldsTo";
+  private static final String METHOD_READ_FROM = "readFrom";
+  private static final String METHOD_READ_FIELDS_FROM = "readFieldsFrom";
+  private static final String PREFIX_WRITE = "write";
+  private static final String PREFIX_READ = "read";
+  private static final String SUFFIX_REFERENCE = "Reference";
+
+  // references to nested dtos: null, a new dto, which is written inline, or the index of a dto written before plus two
+  private static final int REFERENCE_NULL = 0;
+  private static final int REFERENCE_NEW = 1;
+  private static final int REFERENCE_OFFSET = 2;
+
+  // lengths are read from the input, so a corrupt or hostile length must not allocate more than the input contains
+  private static final int MAX_PRESIZE = 1024;
+  private static final int STRING_CHUNK = 8192;
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  /**
+   * Returns {@code true} if the type of the field can be encoded.
+   * Primitives, their wrappers, strings and nested dtos with a binary encoding are supported.
+   */
+  static boolean isSupported(DtoField field) {
+    if (field.getNested().isPresent()) {
+      return field.getNested().get().isBinary();
+    }
+    TypeName type = field.getType();
+    return type.isPrimitive() || type.isBoxedPrimitive() || type.equals(ClassName.get(String.class));
+  }
+
+  /**
+   * Returns the FNV-1a hash of the names and types of the fields.
+   */
+  static long schemaHash(List<DtoField> fields) {
+    StringBuilder schema = new StringBuilder();
+    for (DtoField field : fields) {
+      schema.append(field.getName()).append(':').append(field.getType()).append(';');
+    }
+    long hash = FNV_OFFSET_BASIS;
+    for (byte b : schema.toString().getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+
+  void append(TypeSpec.Builder builder, ClassName dtoType, List<DtoField> fields, boolean immutable, boolean hal) {
+    Set<Helper> helpers = EnumSet.noneOf(Helper.class);
+    Set<ClassName> references = new HashSet<>();
+
+    builder.addField(FieldSpec.builder(long.class, CONSTANT_SCHEMA_HASH)
+      .addJavadoc("Hash of the exported fields, which is written in front of the binary encoding.\n")
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+      .initializer("$LL", schemaHash(fields))
+      .build()
+    );
+
+    builder.addMethod(MethodSpec.methodBuilder(METHOD_WRITE_TO)
+      .addJavadoc("Writes the dto in the binary encoding, links and embedded resources are not written.\n")
+      .addModifiers(Modifier.PUBLIC)
+      .addParameter(DataOutput.class, FIELD_OUTPUT)
+      .addException(IOException.class)
+      .addStatement("$N.writeLong($N)", FIELD_OUTPUT, CONSTANT_SCHEMA_HASH)
+      .addStatement("$N($N, new $T<>())", METHOD_WRITE_FIELDS_TO, FIELD_OUTPUT, IdentityHashMap.class)
+      .build()
+    );
+
+    builder.addMethod(MethodSpec.methodBuilder(METHOD_READ_FROM)
+      .addJavadoc("Reads a dto, which was written by {@link #$N(DataOutput)}.\n", METHOD_WRITE_TO)
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+      .addParameter(DataInput.class, FIELD_INPUT)
+      .returns(dtoType)
+      .addException(IOException.class)
+      .addStatement("$T $N = $N.readLong()", long.class, FIELD_SCHEMA, FIELD_INPUT)
+      .beginControlFlow("if ($N != $N)", FIELD_SCHEMA, CONSTANT_SCHEMA_HASH)
+      .addStatement("throw new $T($S + $N)", IOException.class, "incompatible schema of " + dtoType.simpleName() + ": ", FIELD_SCHEMA)
+      .endControlFlow()
+      .addStatement("return $N($N, new $T<>())", METHOD_READ_FIELDS_FROM, FIELD_INPUT, ArrayList.class)
+      .build()
+    );
+
+    builder.addMethod(writeFields(builder, fields, helpers, references));
+    builder.addMethod(readFields(builder, dtoType, fields, immutable, hal, helpers, references));
+
+    for (Helper helper : helpers) {
+      builder.addMethod(helper.create());
+    }
+  }
+
+  private static TypeName writtenType() {
+    return ParameterizedTypeName.get(Map.class, Object.class, Integer.class);
+  }
+
+  private static TypeName readType() {
+    return ParameterizedTypeName.get(List.class, Object.class);
+  }
+
+  private MethodSpec writeFields(TypeSpec.Builder builder, List<DtoField> fields, Set<Helper> helpers, Set<ClassName> references) {
+    MethodSpec.Builder method = MethodSpec.methodBuilder(METHOD_WRITE_FIELDS_TO)
+      .addJavadoc("Writes the fields without the schema hash as nested dto of another dto.\n")
+      .addJavadoc("The dto is registered in the identity map of written dtos, so later references are written as index.\n")
+      .addModifiers(Modifier.PUBLIC)
+      .addParameter(DataOutput.class, FIELD_OUTPUT)
+      .addParameter(writtenType(), FIELD_WRITTEN)
+      .addException(IOException.class)
+      .addStatement("$N.put(this, $N.size())", FIELD_WRITTEN, FIELD_WRITTEN);
+
+    List<DtoField> nullable = nullableFields(fields);
+    for (int chunk = 0; chunk < chunks(nullable); chunk++) {
+      method.addStatement("$T $N = 0L", long.class, PREFIX_NULLS + chunk);
+    }
+    for (int i = 0; i < nullable.size(); i++) {
+      method.beginControlFlow("if (this.$N == null)", nullable.get(i).getName())
+        .addStatement("$N |= 1L << $L", PREFIX_NULLS + (i / Long.SIZE), i % Long.SIZE)
+        .endControlFlow();
+    }
+    for (int chunk = 0; chunk < chunks(nullable); chunk++) {
+      helpers.add(Helper.WRITE_UNSIGNED_VAR_LONG);
+      method.addStatement("$N($N, $N)", Helper.WRITE_UNSIGNED_VAR_LONG.method, FIELD_OUTPUT, PREFIX_NULLS + chunk);
+    }
+
+    for (DtoField field : fields) {
+      CodeBlock value = CodeBlock.of("this.$N", field.getName());
+      if (field.getType().isPrimitive()) {
+        method.addStatement(write(builder, field, value, helpers, references));
+      } else {
+        method.beginControlFlow("if ($L != null)", value)
+          .addStatement(write(builder, field, value, helpers, references))
+          .endControlFlow();
+      }
+    }
+    return method.build();
+  }
+
+  private MethodSpec readFields(
+    TypeSpec.Builder builder, ClassName dtoType, List<DtoField> fields, boolean immutable, boolean hal, Set<Helper> helpers,
+    Set<ClassName> references
+  ) {
+    MethodSpec.Builder method = MethodSpec.methodBuilder(METHOD_READ_FIELDS_FROM)
+      .addJavadoc("Reads the fields, which were written by {@link #$N(DataOutput, Map)}.\n", METHOD_WRITE_FIELDS_TO)
+      .addJavadoc("The dto is added to the list of read dtos, which resolves the references of the encoding.\n")
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+      .addParameter(DataInput.class, FIELD_INPUT)
+      .addParameter(readType(), FIELD_READ)
+      .returns(dtoType)
+      .addException(IOException.class);
+
+    // the index is reserved before the nested dtos are read, in the same order as the dtos were written
+    if (immutable) {
+      method.addStatement("int $N = $N.size()", FIELD_INDEX, FIELD_READ)
+        .addStatement("$N.add(null)", FIELD_READ);
+    }
+
+    List<DtoField> nullable = nullableFields(fields);
+    for (int chunk = 0; chunk < chunks(nullable); chunk++) {
+      helpers.add(Helper.READ_UNSIGNED_VAR_LONG);
+      method.addStatement("$T $N = $N($N)", long.class, PREFIX_NULLS + chunk, Helper.READ_UNSIGNED_VAR_LONG.method, FIELD_INPUT);
+    }
+
+    if (!immutable) {
+      // the dto is registered before its fields are read, so cyclic references resolve to it
+      method.addStatement("$T $N = new $T()", dtoType, FIELD_DTO, dtoType)
+        .addStatement("$N.add($N)", FIELD_READ, FIELD_DTO);
+    }
+
+    List<CodeBlock> arguments = new ArrayList<>();
+    if (hal) {
+      arguments.add(CodeBlock.of("null"));
+      arguments.add(CodeBlock.of("null"));
+    }
+
+    for (DtoField field : fields) {
+      CodeBlock value = read(builder, field, helpers, references);
+      int index = nullable.indexOf(field);
+      if (index >= 0) {
+        value = CodeBlock.of(
+          "($N & (1L << $L)) == 0 ? $L : null", PREFIX_NULLS + (index / Long.SIZE), index % Long.SIZE, value
+        );
+      }
+      // the values are read in the order of the fields, before the dto is created
+      if (immutable) {
+        method.addStatement("$T $N = $L", field.getType(), field.getName(), value);
+        arguments.add(CodeBlock.of("$N", field.getName()));
+      } else {
+        method.addStatement("$N.$N = $L", FIELD_DTO, field.getName(), value);
+      }
+    }
+
+    if (immutable) {
+      method.addStatement("$T $N = new $T($L)", dtoType, FIELD_DTO, dtoType, CodeBlock.join(arguments, ", "))
+        .addStatement("$N.set($N, $N)", FIELD_READ, FIELD_INDEX, FIELD_DTO)
+        .addStatement("return $N", FIELD_DTO);
+    } else {
+      method.addStatement("return $N", FIELD_DTO);
+    }
+    return method.build();
+  }
+
+  private CodeBlock write(TypeSpec.Builder builder, DtoField field, CodeBlock value, Set<Helper> helpers, Set<ClassName> references) {
+    Optional<NestedDto> nested = field.getNested();
+    if (nested.isPresent()) {
+      ClassName nestedType = nested.get().getDtoType();
+      appendReferences(builder, nestedType, helpers, references);
+      if (nested.get().isCollection()) {
+        builder.addMethod(writeCollection(field, nested.get(), helpers));
+        return CodeBlock.of("$N($N, $L, $N)", collectionMethod(PREFIX_WRITE, field), FIELD_OUTPUT, value, FIELD_WRITTEN);
+      }
+      // the schema hash of a single nested dto is written in front of each reference
+      helpers.add(Helper.WRITE_SCHEMA);
+      return CodeBlock.of(
+        "$N($N($N, $T.$N), $L, $N)",
+        referenceMethod(PREFIX_WRITE, nestedType), Helper.WRITE_SCHEMA.method, FIELD_OUTPUT, nestedType, CONSTANT_SCHEMA_HASH,
+        value, FIELD_WRITTEN
+      );
+    }
+
+    TypeName type = field.getType().isBoxedPrimitive() ? field.getType().unbox() : field.getType();
+    if (type.equals(TypeName.INT)) {
+      helpers.add(Helper.WRITE_VAR_INT);
+      helpers.add(Helper.WRITE_UNSIGNED_VAR_LONG);
+      return CodeBlock.of("$N($N, $L)", Helper.WRITE_VAR_INT.method, FIELD_OUTPUT, value);
+    } else if (type.equals(TypeName.LONG)) {
+      helpers.add(Helper.WRITE_VAR_LONG);
+      helpers.add(Helper.WRITE_UNSIGNED_VAR_LONG);
+      return CodeBlock.of("$N($N, $L)", Helper.WRITE_VAR_LONG.method, FIELD_OUTPUT, value);
+    } else if (type.equals(ClassName.get(String.class))) {
+      helpers.add(Helper.WRITE_STRING);
+      helpers.add(Helper.WRITE_UNSIGNED_VAR_LONG);
+      return CodeBlock.of("$N($N, $L)", Helper.WRITE_STRING.method, FIELD_OUTPUT, value);
+    }
+    return CodeBlock.of("$N.write$L($L)", FIELD_OUTPUT, primitiveMethodSuffix(type), value);
+  }
+
+  private CodeBlock read(TypeSpec.Builder builder, DtoField field, Set<Helper> helpers, Set<ClassName> references) {
+    Optional<NestedDto> nested = field.getNested();
+    if (nested.isPresent()) {
+      ClassName nestedType = nested.get().getDtoType();
+      appendReferences(builder, nestedType, helpers, references);
+      if (nested.get().isCollection()) {
+        builder.addMethod(readCollection(field, nested.get(), helpers));
+        return CodeBlock.of("$N($N, $N)", collectionMethod(PREFIX_READ, field), FIELD_INPUT, FIELD_READ);
+      }
+      helpers.add(Helper.READ_SCHEMA);
+      return CodeBlock.of(
+        "$N($N($N, $T.$N, $S), $N)",
+        referenceMethod(PREFIX_READ, nestedType), Helper.READ_SCHEMA.method, FIELD_INPUT, nestedType, CONSTANT_SCHEMA_HASH,
+        nestedType.simpleName(), FIELD_READ
+      );
+    }
+
+    TypeName type = field.getType().isBoxedPrimitive() ? field.getType().unbox() : field.getType();
+    if (type.equals(TypeName.INT)) {
+      helpers.add(Helper.READ_VAR_INT);
+      helpers.add(Helper.READ_UNSIGNED_VAR_LONG);
+      return CodeBlock.of("$N($N)", Helper.READ_VAR_INT.method, FIELD_INPUT);
+    } else if (type.equals(TypeName.LONG)) {
+      helpers.add(Helper.READ_VAR_LONG);
+      helpers.add(Helper.READ_UNSIGNED_VAR_LONG);
+      return CodeBlock.of("$N($N)", Helper.READ_VAR_LONG.method, FIELD_INPUT);
+    } else if (type.equals(ClassName.get(String.class))) {
+      helpers.add(Helper.READ_STRING);
+      helpers.add(Helper.READ_LENGTH);
+      helpers.add(Helper.READ_UNSIGNED_VAR_LONG);
+      return CodeBlock.of("$N($N)", Helper.READ_STRING.method, FIELD_INPUT);
+    }
+    return CodeBlock.of("$N.read$L()", FIELD_INPUT, primitiveMethodSuffix(type));
+  }
+
+  private String primitiveMethodSuffix(TypeName type) {
+    String name = type.toString();
+    return name.substring(0, 1).toUpperCase() + name.substring(1);
+  }
+
+  private MethodSpec writeCollection(DtoField field, NestedDto nested, Set<Helper> helpers) {
+    helpers.add(Helper.WRITE_UNSIGNED_VAR_LONG);
+    helpers.add(Helper.WRITE_SCHEMA);
+    // the schema hash of the elements is written once for the whole collection
+    return MethodSpec.methodBuilder(collectionMethod(PREFIX_WRITE, field))
+      .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+      .addParameter(DataOutput.class, FIELD_OUTPUT)
+      .addParameter(field.getType(), FIELD_DTOS)
+      .addParameter(writtenType(), FIELD_WRITTEN)
+      .addException(IOException.class)
+      .addStatement("$N($N, $N.size())", Helper.WRITE_UNSIGNED_VAR_LONG.method, FIELD_OUTPUT, FIELD_DTOS)
+      .addStatement("$N($N, $T.$N)", Helper.WRITE_SCHEMA.method, FIELD_OUTPUT, nested.getDtoType(), CONSTANT_SCHEMA_HASH)
+      .beginControlFlow("for ($T $N : $N)", nested.getDtoType(), FIELD_ELEMENT, FIELD_DTOS)
+      .addStatement("$N($N, $N, $N)", referenceMethod(PREFIX_WRITE, nested.getDtoType()), FIELD_OUTPUT, FIELD_ELEMENT, FIELD_WRITTEN)
+      .endControlFlow()
+      .build();
+  }
+
+  private MethodSpec readCollection(DtoField field, NestedDto nested, Set<Helper> helpers) {
+    helpers.add(Helper.READ_UNSIGNED_VAR_LONG);
+    helpers.add(Helper.READ_LENGTH);
+    helpers.add(Helper.READ_SCHEMA);
+    return MethodSpec.methodBuilder(collectionMethod(PREFIX_READ, field))
+      .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+      .addParameter(DataInput.class, FIELD_INPUT)
+      .addParameter(readType(), FIELD_READ)
+      .returns(field.getType())
+      .addException(IOException.class)
+      .addStatement("$T $N = $N($N)", int.class, FIELD_SIZE, Helper.READ_LENGTH.method, FIELD_INPUT)
+      .addStatement(
+        "$N($N, $T.$N, $S)", Helper.READ_SCHEMA.method, FIELD_INPUT, nested.getDtoType(), CONSTANT_SCHEMA_HASH,
+        nested.getDtoType().simpleName()
+      )
+      .addStatement(
+        "$T $N = new $T<>($T.min($N, $L))", field.getType(), FIELD_DTOS, nested.getCollectionImplementation(), Math.class,
+        FIELD_SIZE, MAX_PRESIZE
+      )
+      .beginControlFlow("for (int i = 0; i < $N; i++)", FIELD_SIZE)
+      .addStatement("$N.add($N($N, $N))", FIELD_DTOS, referenceMethod(PREFIX_READ, nested.getDtoType()), FIELD_INPUT, FIELD_READ)
+      .endControlFlow()
+      .addStatement("return $N", FIELD_DTOS)
+      .build();
+  }
+
+  /**
+   * Appends the methods, which write and read references to dtos of the nested type, once per type.
+   */
+  private void appendReferences(TypeSpec.Builder builder, ClassName nestedType, Set<Helper> helpers, Set<ClassName> references) {
+    if (!references.add(nestedType)) {
+      return;
+    }
+    helpers.add(Helper.WRITE_UNSIGNED_VAR_LONG);
+    helpers.add(Helper.READ_UNSIGNED_VAR_LONG);
+
+    builder.addMethod(MethodSpec.methodBuilder(referenceMethod(PREFIX_WRITE, nestedType))
+      .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+      .addParameter(DataOutput.class, FIELD_OUTPUT)
+      .addParameter(ParameterSpec.builder(nestedType, FIELD_DTO)
+        .addAnnotation(Nullable.class)
+        .build()
+      )
+      .addParameter(writtenType(), FIELD_WRITTEN)
+      .addException(IOException.class)
+      .beginControlFlow("if ($N == null)", FIELD_DTO)
+      .addStatement("$N($N, $L)", Helper.WRITE_UNSIGNED_VAR_LONG.method, FIELD_OUTPUT, REFERENCE_NULL)
+      .addStatement("return")
+      .endControlFlow()
+      .addStatement("$T $N = $N.get($N)", Integer.class, FIELD_INDEX, FIELD_WRITTEN, FIELD_DTO)
+      .beginControlFlow("if ($N != null)", FIELD_INDEX)
+      .addStatement("$N($N, $N + $LL)", Helper.WRITE_UNSIGNED_VAR_LONG.method, FIELD_OUTPUT, FIELD_INDEX, REFERENCE_OFFSET)
+      .nextControlFlow("else")
+      .addStatement("$N($N, $L)", Helper.WRITE_UNSIGNED_VAR_LONG.method, FIELD_OUTPUT, REFERENCE_NEW)
+      .addStatement("$N.$N($N, $N)", FIELD_DTO, METHOD_WRITE_FIELDS_TO, FIELD_OUTPUT, FIELD_WRITTEN)
+      .endControlFlow()
+      .build()
+    );
+
+    builder.addMethod(MethodSpec.methodBuilder(referenceMethod(PREFIX_READ, nestedType))
+      .addAnnotation(Nullable.class)
+      .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+      .addParameter(DataInput.class, FIELD_INPUT)
+      .addParameter(readType(), FIELD_READ)
+      .returns(nestedType)
+      .addException(IOException.class)
+      .addStatement("$T $N = $N($N)", long.class, FIELD_REFERENCE, Helper.READ_UNSIGNED_VAR_LONG.method, FIELD_INPUT)
+      .beginControlFlow("if ($N == $L)", FIELD_REFERENCE, REFERENCE_NULL)
+      .addStatement("return null")
+      .nextControlFlow("else if ($N == $L)", FIELD_REFERENCE, REFERENCE_NEW)
+      .addStatement("return $T.$N($N, $N)", nestedType, METHOD_READ_FIELDS_FROM, FIELD_INPUT, FIELD_READ)
+      .endControlFlow()
+      .addStatement("$T $N = $N - $L", long.class, FIELD_INDEX, FIELD_REFERENCE, REFERENCE_OFFSET)
+      // immutable dtos, which are still read, are null and can not be referenced
+      .addStatement(
+        "$T $N = $N >= 0 && $N < $N.size() ? $N.get(($T) $N) : null",
+        Object.class, FIELD_DTO, FIELD_INDEX, FIELD_INDEX, FIELD_READ, FIELD_READ, int.class, FIELD_INDEX
+      )
+      .beginControlFlow("if (!($N instanceof $T))", FIELD_DTO, nestedType)
+      .addStatement("throw new $T($S + $N)", IOException.class, "invalid reference to " + nestedType.simpleName() + ": ", FIELD_INDEX)
+      .endControlFlow()
+      .addStatement("return ($T) $N", nestedType, FIELD_DTO)
+      .build()
+    );
+  }
+
+  private String referenceMethod(String prefix, ClassName nestedType) {
+    return prefix + nestedType.simpleName() + SUFFIX_REFERENCE;
+  }
+
+  private String collectionMethod(String prefix, DtoField field) {
+    return prefix + field.getName().substring(0, 1).toUpperCase() + field.getName().substring(1);
+  }
+
+  private List<DtoField> nullableFields(List<DtoField> fields) {
+    List<DtoField> nullable = new ArrayList<>();
+    for (DtoField field : fields) {
+      if (!field.getType().isPrimitive()) {
+        nullable.add(field);
+      }
+    }
+    return nullable;
+  }
+
+  private int chunks(List<DtoField> nullable) {
+    return (nullable.size() + Long.SIZE - 1) / Long.SIZE;
+  }
+
+  /**
+   * Private static methods of the dto, which are generated only if they are used.
+   */
+  private enum Helper {
+    WRITE_UNSIGNED_VAR_LONG("writeUnsignedVarLong") {
+      @Override
+      MethodSpec create() {
+        return MethodSpec.methodBuilder(method)
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(DataOutput.class, FIELD_OUTPUT)
+          .addParameter(long.class, FIELD_VALUE)
+          .addException(IOException.class)
+          .beginControlFlow("while (($N & ~0x7FL) != 0)", FIELD_VALUE)
+          .addStatement("$N.writeByte((int) (($N & 0x7F) | 0x80))", FIELD_OUTPUT, FIELD_VALUE)
+          .addStatement("$N >>>= 7", FIELD_VALUE)
+          .endControlFlow()
+          .addStatement("$N.writeByte((int) $N)", FIELD_OUTPUT, FIELD_VALUE)
+          .build();
+      }
+    },
+    READ_UNSIGNED_VAR_LONG("readUnsignedVarLong") {
+      @Override
+      MethodSpec create() {
+        return MethodSpec.methodBuilder(method)
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(DataInput.class, FIELD_INPUT)
+          .returns(long.class)
+          .addException(IOException.class)
+          .addStatement("$T $N = 0L", long.class, FIELD_VALUE)
+          .beginControlFlow("for (int $N = 0; $N < 64; $N += 7)", FIELD_SHIFT, FIELD_SHIFT, FIELD_SHIFT)
+          .addStatement("byte b = $N.readByte()", FIELD_INPUT)
+          .addStatement("$N |= (long) (b & 0x7F) << $N", FIELD_VALUE, FIELD_SHIFT)
+          .beginControlFlow("if ((b & 0x80) == 0)")
+          .addStatement("return $N", FIELD_VALUE)
+          .endControlFlow()
+          .endControlFlow()
+          .addStatement("throw new $T($S)", IOException.class, "malformed varint")
+          .build();
+      }
+    },
+    WRITE_VAR_INT("writeVarInt") {
+      @Override
+      MethodSpec create() {
+        return MethodSpec.methodBuilder(method)
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(DataOutput.class, FIELD_OUTPUT)
+          .addParameter(int.class, FIELD_VALUE)
+          .addException(IOException.class)
+          .addStatement(
+            "$N($N, (($N << 1) ^ ($N >> 31)) & 0xFFFFFFFFL)",
+            WRITE_UNSIGNED_VAR_LONG.method, FIELD_OUTPUT, FIELD_VALUE, FIELD_VALUE
+          )
+          .build();
+      }
+    },
+    READ_VAR_INT("readVarInt") {
+      @Override
+      MethodSpec create() {
+        return MethodSpec.methodBuilder(method)
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(DataInput.class, FIELD_INPUT)
+          .returns(int.class)
+          .addException(IOException.class)
+          .addStatement("int $N = (int) $N($N)", FIELD_VALUE, READ_UNSIGNED_VAR_LONG.method, FIELD_INPUT)
+          .addStatement("return ($N >>> 1) ^ -($N & 1)", FIELD_VALUE, FIELD_VALUE)
+          .build();
+      }
+    },
+    WRITE_VAR_LONG("writeVarLong") {
+      @Override
+      MethodSpec create() {
+        return MethodSpec.methodBuilder(method)
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(DataOutput.class, FIELD_OUTPUT)
+          .addParameter(long.class, FIELD_VALUE)
+          .addException(IOException.class)
+          .addStatement(
+            "$N($N, ($N << 1) ^ ($N >> 63))", WRITE_UNSIGNED_VAR_LONG.method, FIELD_OUTPUT, FIELD_VALUE, FIELD_VALUE
+          )
+          .build();
+      }
+    },
+    READ_VAR_LONG("readVarLong") {
+      @Override
+      MethodSpec create() {
+        return MethodSpec.methodBuilder(method)
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(DataInput.class, FIELD_INPUT)
+          .returns(long.class)
+          .addException(IOException.class)
+          .addStatement("long $N = $N($N)", FIELD_VALUE, READ_UNSIGNED_VAR_LONG.method, FIELD_INPUT)
+          .addStatement("return ($N >>> 1) ^ -($N & 1)", FIELD_VALUE, FIELD_VALUE)
+          .build();
+      }
+    },
+    WRITE_SCHEMA("writeSchema") {
+      @Override
+      MethodSpec create() {
+        return MethodSpec.methodBuilder(method)
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(DataOutput.class, FIELD_OUTPUT)
+          .addParameter(long.class, FIELD_SCHEMA)
+          .returns(DataOutput.class)
+          .addException(IOException.class)
+          .addStatement("$N.writeLong($N)", FIELD_OUTPUT, FIELD_SCHEMA)
+          .addStatement("return $N", FIELD_OUTPUT)
+          .build();
+      }
+    },
+    READ_SCHEMA("readSchema") {
+      @Override
+      MethodSpec create() {
+        return MethodSpec.methodBuilder(method)
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(DataInput.class, FIELD_INPUT)
+          .addParameter(long.class, FIELD_SCHEMA)
+          .addParameter(String.class, FIELD_DTO)
+          .returns(DataInput.class)
+          .addException(IOException.class)
+          .beginControlFlow("if ($N.readLong() != $N)", FIELD_INPUT, FIELD_SCHEMA)
+          .addStatement("throw new $T($S + $N)", IOException.class, "incompatible schema of ", FIELD_DTO)
+          .endControlFlow()
+          .addStatement("return $N", FIELD_INPUT)
+          .build();
+      }
+    },
+    WRITE_STRING("writeString") {
+      @Override
+      MethodSpec create() {
+        // DataOutput.writeUTF is limited to 64k and uses a modified encoding, so the string is written as utf-8
+        return MethodSpec.methodBuilder(method)
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(DataOutput.class, FIELD_OUTPUT)
+          .addParameter(String.class, FIELD_VALUE)
+          .addException(IOException.class)
+          .addStatement("byte[] $N = $N.getBytes($T.UTF_8)", FIELD_BYTES, FIELD_VALUE, StandardCharsets.class)
+          .addStatement("$N($N, $N.length)", WRITE_UNSIGNED_VAR_LONG.method, FIELD_OUTPUT, FIELD_BYTES)
+          .addStatement("$N.write($N)", FIELD_OUTPUT, FIELD_BYTES)
+          .build();
+      }
+    },
+    READ_LENGTH("readLength") {
+      @Override
+      MethodSpec create() {
+        return MethodSpec.methodBuilder(method)
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(DataInput.class, FIELD_INPUT)
+          .returns(int.class)
+          .addException(IOException.class)
+          .addStatement("long $N = $N($N)", FIELD_LENGTH, READ_UNSIGNED_VAR_LONG.method, FIELD_INPUT)
+          .beginControlFlow("if ($N < 0 || $N > $T.MAX_VALUE)", FIELD_LENGTH, FIELD_LENGTH, Integer.class)
+          .addStatement("throw new $T($S + $T.toUnsignedString($N))", IOException.class, "invalid length ", Long.class, FIELD_LENGTH)
+          .endControlFlow()
+          .addStatement("return (int) $N", FIELD_LENGTH)
+          .build();
+      }
+    },
+    READ_STRING("readString") {
+      @Override
+      MethodSpec create() {
+        return MethodSpec.methodBuilder(method)
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(DataInput.class, FIELD_INPUT)
+          .returns(String.class)
+          .addException(IOException.class)
+          .addStatement("$T $N = $N($N)", int.class, FIELD_LENGTH, READ_LENGTH.method, FIELD_INPUT)
+          .beginControlFlow("if ($N <= $L)", FIELD_LENGTH, STRING_CHUNK)
+          .addStatement("byte[] $N = new byte[$N]", FIELD_BYTES, FIELD_LENGTH)
+          .addStatement("$N.readFully($N)", FIELD_INPUT, FIELD_BYTES)
+          .addStatement("return new $T($N, $T.UTF_8)", String.class, FIELD_BYTES, StandardCharsets.class)
+          .endControlFlow()
+          // long strings are read in chunks, so the buffer grows only with the bytes, which are actually present
+          .addStatement("$T $N = new $T($L)", ByteArrayOutputStream.class, FIELD_BYTES, ByteArrayOutputStream.class, STRING_CHUNK)
+          .addStatement("byte[] $N = new byte[$L]", FIELD_CHUNK, STRING_CHUNK)
+          .beginControlFlow("for (int $N = $N; $N > 0; )", FIELD_REMAINING, FIELD_LENGTH, FIELD_REMAINING)
+          .addStatement("int $N = $T.min($N, $N.length)", FIELD_COUNT, Math.class, FIELD_REMAINING, FIELD_CHUNK)
+          .addStatement("$N.readFully($N, 0, $N)", FIELD_INPUT, FIELD_CHUNK, FIELD_COUNT)
+          .addStatement("$N.write($N, 0, $N)", FIELD_BYTES, FIELD_CHUNK, FIELD_COUNT)
+          .addStatement("$N -= $N", FIELD_REMAINING, FIELD_COUNT)
+          .endControlFlow()
+          .addStatement("return new $T($N.toByteArray(), $T.UTF_8)", String.class, FIELD_BYTES, StandardCharsets.class)
+          .build();
+      }
+    };
+
+    final String method;
+
+    Helper(String method) {
+      this.method = method;
+    }
+
+    abstract MethodSpec create();
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.squareup.javapoet.TypeName;
+
+/**
+ * The fields, which identify the cached dto of an entity and detect its modifications.
+ */
+public class CacheModel {
+
+  private final int maximumSize;
+  private final TypeName idType;
+  private final String idGetter;
+  private final TypeName versionType;
+  private final String versionGetter;
+
+  CacheModel(int maximumSize, TypeName idType, String idGetter, TypeName versionType, String versionGetter) {
+    this.maximumSize = maximumSize;
+    this.idType = idType;
+    this.idGetter = idGetter;
+    this.versionType = versionType;
+    this.versionGetter = versionGetter;
+  }
+
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  public TypeName getIdType() {
+    return idType;
+  }
+
+  public String getIdGetter() {
+    return idGetter;
+  }
+
+  public TypeName getVersionType() {
+    return versionType;
+  }
+
+  public String getVersionGetter() {
+    return versionGetter;
+  }
+}
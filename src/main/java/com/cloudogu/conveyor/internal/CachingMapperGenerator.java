@@ -0,0 +1,281 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+
+import javax.lang.model.element.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generates a mapper, which caches immutable dtos by the id of their entity.
+ * Each entry stores the version of the entity, the cached dto is returned only if the version is unchanged,
+ * otherwise the entry is replaced. The cache is bounded by evicting the entries in insertion order.
+ */
+class CachingMapperGenerator {
+
+  private static final String SUFFIX = "CachingMapper";
+  private static final String CLASS_ENTRY = "Entry";
+
+  private static final String CONSTANT_DEFAULT_MAXIMUM_SIZE = "DEFAULT_MAXIMUM_SIZE";
+
+  private static final String FIELD_MAXIMUM_SIZE = "maximumSize";
+  private static final String FIELD_ENTRIES = "entries";
+  private static final String FIELD_INSERTION_ORDER = "insertionOrder";
+  private static final String FIELD_QUEUED = "queued";
+  private static final String FIELD_HITS = "hits";
+  private static final String FIELD_MISSES = "misses";
+  private static final String FIELD_EVICTIONS = "evictions";
+  private static final String FIELD_ENTITY = "entity";
+  private static final String FIELD_ENTITIES = "entities";
+  private static final String FIELD_ENTRY = "entry";
+  private static final String FIELD_ID = "id";
+  private static final String FIELD_VERSION = "version";
+  private static final String FIELD_DTO = "dto";
+  private static final String FIELD_DTOS = "dtos";
+
+  private static final String METHOD_FROM = "from";
+  private static final String METHOD_FROM_ALL = "fromAll";
+  private static final String METHOD_EVICT = "evict";
+
+  static ClassName mapperType(Model model) {
+    return ClassName.get(model.getPackageName(), model.getSimpleClassName() + SUFFIX);
+  }
+
+  JavaFile generate(Model model) {
+    CacheModel cache = model.getCache().orElseThrow(() -> new IllegalStateException("model has no cache"));
+    ClassName mapperType = mapperType(model);
+    ClassName entryType = mapperType.nestedClass(CLASS_ENTRY);
+    ClassName dtoType = model.getDtoType();
+    TypeName entityType = model.getEntityType();
+    TypeName idType = cache.getIdType().box();
+
+    TypeSpec.Builder builder = TypeSpec.classBuilder(mapperType)
+      .addOriginatingElement(model.getOriginatingElement())
+      .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+      .addField(FieldSpec.builder(int.class, CONSTANT_DEFAULT_MAXIMUM_SIZE, Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+        .initializer("$L", cache.getMaximumSize())
+        .build()
+      )
+      .addField(int.class, FIELD_MAXIMUM_SIZE, Modifier.PRIVATE, Modifier.FINAL)
+      .addField(FieldSpec.builder(
+          ParameterizedTypeName.get(ClassName.get(ConcurrentMap.class), idType, entryType),
+          FIELD_ENTRIES, Modifier.PRIVATE, Modifier.FINAL
+        )
+        .initializer("new $T<>()", ConcurrentHashMap.class)
+        .build()
+      )
+      .addField(FieldSpec.builder(
+          ParameterizedTypeName.get(ClassName.get(Queue.class), idType), FIELD_INSERTION_ORDER, Modifier.PRIVATE, Modifier.FINAL
+        )
+        .initializer("new $T<>()", ConcurrentLinkedQueue.class)
+        .build()
+      )
+      .addField(FieldSpec.builder(AtomicInteger.class, FIELD_QUEUED, Modifier.PRIVATE, Modifier.FINAL)
+        .initializer("new $T()", AtomicInteger.class)
+        .build()
+      )
+      .addField(counter(FIELD_HITS))
+      .addField(counter(FIELD_MISSES))
+      .addField(counter(FIELD_EVICTIONS))
+      .addMethod(MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PUBLIC)
+        .addStatement("this($N)", CONSTANT_DEFAULT_MAXIMUM_SIZE)
+        .build()
+      )
+      .addMethod(MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(int.class, FIELD_MAXIMUM_SIZE)
+        .beginControlFlow("if ($N < 1)", FIELD_MAXIMUM_SIZE)
+        .addStatement("throw new $T($S + $N)", IllegalArgumentException.class, "maximum size must be positive: ", FIELD_MAXIMUM_SIZE)
+        .endControlFlow()
+        .addStatement("this.$N = $N", FIELD_MAXIMUM_SIZE, FIELD_MAXIMUM_SIZE)
+        .build()
+      );
+
+    builder.addMethod(from(cache, entityType, dtoType, entryType));
+    builder.addMethod(fromAll(entityType, dtoType));
+    builder.addMethod(evict(idType));
+
+    // the id is removed from the insertion order as well, otherwise it would be queued twice after the next insert
+    builder.addMethod(MethodSpec.methodBuilder("invalidate")
+      .addJavadoc("Removes the cached dto of the entity with the given id.\n")
+      .addModifiers(Modifier.PUBLIC)
+      .addParameter(idType, FIELD_ID)
+      .beginControlFlow("if ($N.remove($N) != null && $N.remove($N))", FIELD_ENTRIES, FIELD_ID, FIELD_INSERTION_ORDER, FIELD_ID)
+      .addStatement("$N.decrementAndGet()", FIELD_QUEUED)
+      .endControlFlow()
+      .build()
+    );
+    builder.addMethod(MethodSpec.methodBuilder("invalidateAll")
+      .addJavadoc("Removes all cached dtos.\n")
+      .addModifiers(Modifier.PUBLIC)
+      .addStatement("$N.clear()", FIELD_ENTRIES)
+      .addStatement("$N.clear()", FIELD_INSERTION_ORDER)
+      .addStatement("$N.set(0)", FIELD_QUEUED)
+      .build()
+    );
+
+    builder.addMethod(getter("size", TypeName.INT, CodeBlock.of("$N.size()", FIELD_ENTRIES)));
+    builder.addMethod(getter("getMaximumSize", TypeName.INT, CodeBlock.of("$N", FIELD_MAXIMUM_SIZE)));
+    builder.addMethod(getter("getHitCount", TypeName.LONG, CodeBlock.of("$N.sum()", FIELD_HITS)));
+    builder.addMethod(getter("getMissCount", TypeName.LONG, CodeBlock.of("$N.sum()", FIELD_MISSES)));
+    builder.addMethod(getter("getEvictionCount", TypeName.LONG, CodeBlock.of("$N.sum()", FIELD_EVICTIONS)));
+
+    builder.addType(entry(cache, entryType, dtoType));
+
+    return JavaFile.builder(model.getPackageName(), builder.build()).build();
+  }
+
+  private FieldSpec counter(String name) {
+    return FieldSpec.builder(LongAdder.class, name, Modifier.PRIVATE, Modifier.FINAL)
+      .initializer("new $T()", LongAdder.class)
+      .build();
+  }
+
+  private MethodSpec getter(String name, TypeName type, CodeBlock value) {
+    return MethodSpec.methodBuilder(name)
+      .addModifiers(Modifier.PUBLIC)
+      .returns(type)
+      .addStatement("return $L", value)
+      .build();
+  }
+
+  private MethodSpec from(CacheModel cache, TypeName entityType, ClassName dtoType, ClassName entryType) {
+    TypeName idType = cache.getIdType();
+    TypeName versionType = cache.getVersionType();
+
+    MethodSpec.Builder method = MethodSpec.methodBuilder(METHOD_FROM)
+      .addJavadoc("Returns the cached dto of the entity, if its version is unchanged, otherwise a new dto is created and cached.\n")
+      .addModifiers(Modifier.PUBLIC)
+      .addParameter(entityType, FIELD_ENTITY)
+      .returns(dtoType)
+      .addStatement("$T $N = $N.$N()", idType, FIELD_ID, FIELD_ENTITY, cache.getIdGetter())
+      .addStatement("$T $N = $N.$N()", versionType, FIELD_VERSION, FIELD_ENTITY, cache.getVersionGetter());
+
+    // entities without id or version, e.g. new entities, are mapped without the cache,
+    // primitive ids of new entities are 0, which must not share a single cache entry
+    List<CodeBlock> nullChecks = new ArrayList<>();
+    if (!idType.isPrimitive()) {
+      nullChecks.add(CodeBlock.of("$N == null", FIELD_ID));
+    } else if (!idType.equals(TypeName.BOOLEAN)) {
+      nullChecks.add(CodeBlock.of("$N == 0", FIELD_ID));
+    }
+    if (!versionType.isPrimitive()) {
+      nullChecks.add(CodeBlock.of("$N == null", FIELD_VERSION));
+    }
+    if (!nullChecks.isEmpty()) {
+      method.beginControlFlow("if ($L)", CodeBlock.join(nullChecks, " || "))
+        .addStatement("$N.increment()", FIELD_MISSES)
+        .addStatement("return $T.$N($N)", dtoType, METHOD_FROM, FIELD_ENTITY)
+        .endControlFlow();
+    }
+
+    return method
+      .addStatement("$T $N = $N.get($N)", entryType, FIELD_ENTRY, FIELD_ENTRIES, FIELD_ID)
+      .beginControlFlow("if ($N != null && $N.$N.equals($N))", FIELD_ENTRY, FIELD_ENTRY, FIELD_VERSION, FIELD_VERSION)
+      .addStatement("$N.increment()", FIELD_HITS)
+      .addStatement("return $N.$N", FIELD_ENTRY, FIELD_DTO)
+      .endControlFlow()
+      .addStatement("$N.increment()", FIELD_MISSES)
+      .addStatement("$T $N = $T.$N($N)", dtoType, FIELD_DTO, dtoType, METHOD_FROM, FIELD_ENTITY)
+      // replaced entries keep their position, only new ids are queued for eviction
+      .beginControlFlow("if ($N.put($N, new $T($N, $N)) == null)", FIELD_ENTRIES, FIELD_ID, entryType, FIELD_VERSION, FIELD_DTO)
+      .addStatement("$N.add($N)", FIELD_INSERTION_ORDER, FIELD_ID)
+      .beginControlFlow("if ($N.incrementAndGet() > $N)", FIELD_QUEUED, FIELD_MAXIMUM_SIZE)
+      .addStatement("$N()", METHOD_EVICT)
+      .endControlFlow()
+      .endControlFlow()
+      .addStatement("return $N", FIELD_DTO)
+      .build();
+  }
+
+  private MethodSpec fromAll(TypeName entityType, ClassName dtoType) {
+    TypeName entitiesType = ParameterizedTypeName.get(ClassName.get(Collection.class), WildcardTypeName.subtypeOf(entityType));
+    TypeName dtosType = ParameterizedTypeName.get(ClassName.get(List.class), dtoType);
+
+    return MethodSpec.methodBuilder(METHOD_FROM_ALL)
+      .addModifiers(Modifier.PUBLIC)
+      .addParameter(entitiesType, FIELD_ENTITIES)
+      .returns(dtosType)
+      .addStatement("$T $N = new $T<>($N.size())", dtosType, FIELD_DTOS, ArrayList.class, FIELD_ENTITIES)
+      .beginControlFlow("for ($T $N : $N)", entityType, FIELD_ENTITY, FIELD_ENTITIES)
+      .addStatement("$N.add($N($N))", FIELD_DTOS, METHOD_FROM, FIELD_ENTITY)
+      .endControlFlow()
+      .addStatement("return $N", FIELD_DTOS)
+      .build();
+  }
+
+  private MethodSpec evict(TypeName idType) {
+    // the queue may contain ids, which were invalidated concurrently to their insertion,
+    // they are counted as well, so the number of entries never exceeds the maximum size
+    return MethodSpec.methodBuilder(METHOD_EVICT)
+      .addModifiers(Modifier.PRIVATE)
+      .beginControlFlow("while ($N.get() > $N)", FIELD_QUEUED, FIELD_MAXIMUM_SIZE)
+      .addStatement("$T $N = $N.poll()", idType, FIELD_ID, FIELD_INSERTION_ORDER)
+      .beginControlFlow("if ($N == null)", FIELD_ID)
+      .addStatement("return")
+      .endControlFlow()
+      .addStatement("$N.decrementAndGet()", FIELD_QUEUED)
+      .beginControlFlow("if ($N.remove($N) != null)", FIELD_ENTRIES, FIELD_ID)
+      .addStatement("$N.increment()", FIELD_EVICTIONS)
+      .endControlFlow()
+      .endControlFlow()
+      .build();
+  }
+
+  private TypeSpec entry(CacheModel cache, ClassName entryType, ClassName dtoType) {
+    TypeName versionType = cache.getVersionType().box();
+    return TypeSpec.classBuilder(entryType)
+      .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+      .addField(versionType, FIELD_VERSION, Modifier.PRIVATE, Modifier.FINAL)
+      .addField(dtoType, FIELD_DTO, Modifier.PRIVATE, Modifier.FINAL)
+      .addMethod(MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PRIVATE)
+        .addParameter(versionType, FIELD_VERSION)
+        .addParameter(dtoType, FIELD_DTO)
+        .addStatement("this.$N = $N", FIELD_VERSION, FIELD_VERSION)
+        .addStatement("this.$N = $N", FIELD_DTO, FIELD_DTO)
+        .build()
+      )
+      .build();
+  }
+}
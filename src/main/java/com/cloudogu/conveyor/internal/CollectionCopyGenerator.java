@@ -0,0 +1,206 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.cloudogu.conveyor.CopyStrategy;
+import com.google.common.collect.ImmutableMap;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.annotation.Nullable;
+import javax.lang.model.element.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Generates the copies of collection and map fields according to their {@link CopyStrategy}.
+ * The implementation of a copy is derived from the declared type, e.g. a {@code SortedSet} is copied to a
+ * {@code TreeSet}, which keeps the comparator, and is wrapped by {@code Collections.unmodifiableSortedSet}.
+ */
+class CollectionCopyGenerator {
+
+  private static final String PREFIX_COPY = "copy";
+
+  /**
+   * Interfaces with the implementation of their copy and the method, which creates an unmodifiable view.
+   */
+  private static final Map<ClassName, Copy> INTERFACES = ImmutableMap.<ClassName, Copy>builder()
+    .put(ClassName.get(Collection.class), new Copy(ArrayList.class, "unmodifiableCollection"))
+    .put(ClassName.get(List.class), new Copy(ArrayList.class, "unmodifiableList"))
+    .put(ClassName.get(Set.class), new Copy(LinkedHashSet.class, "unmodifiableSet"))
+    .put(ClassName.get(SortedSet.class), new Copy(TreeSet.class, "unmodifiableSortedSet"))
+    .put(ClassName.get(NavigableSet.class), new Copy(TreeSet.class, "unmodifiableNavigableSet"))
+    .put(ClassName.get(Map.class), new Copy(LinkedHashMap.class, "unmodifiableMap"))
+    .put(ClassName.get(SortedMap.class), new Copy(TreeMap.class, "unmodifiableSortedMap"))
+    .put(ClassName.get(NavigableMap.class), new Copy(TreeMap.class, "unmodifiableNavigableMap"))
+    .build();
+
+  /**
+   * Implementations, which are copied to the same class and can not be wrapped.
+   */
+  private static final Map<ClassName, Copy> IMPLEMENTATIONS = ImmutableMap.<ClassName, Copy>builder()
+    .put(ClassName.get(ArrayList.class), new Copy(ArrayList.class, null))
+    .put(ClassName.get(LinkedList.class), new Copy(LinkedList.class, null))
+    .put(ClassName.get(HashSet.class), new Copy(HashSet.class, null))
+    .put(ClassName.get(LinkedHashSet.class), new Copy(LinkedHashSet.class, null))
+    .put(ClassName.get(TreeSet.class), new Copy(TreeSet.class, null))
+    .put(ClassName.get(HashMap.class), new Copy(HashMap.class, null))
+    .put(ClassName.get(LinkedHashMap.class), new Copy(LinkedHashMap.class, null))
+    .put(ClassName.get(TreeMap.class), new Copy(TreeMap.class, null))
+    .build();
+
+  /**
+   * Returns {@code true} if the type is a collection or map, which can be copied.
+   */
+  static boolean isCollection(TypeName type) {
+    return copy(type) != null;
+  }
+
+  /**
+   * Returns {@code true} if the strategy can be applied to the type.
+   * Unmodifiable views and copies require an interface, because the wrappers are no subclasses of the implementations.
+   */
+  static boolean isSupported(TypeName type, CopyStrategy strategy) {
+    Copy copy = copy(type);
+    if (copy == null) {
+      return false;
+    }
+    return copy.unmodifiable != null || strategy == CopyStrategy.SHARE || strategy == CopyStrategy.PRESIZED_COPY;
+  }
+
+  @Nullable
+  private static Copy copy(TypeName type) {
+    ClassName rawType;
+    if (type instanceof ParameterizedTypeName) {
+      rawType = ((ParameterizedTypeName) type).rawType;
+    } else if (type instanceof ClassName) {
+      rawType = (ClassName) type;
+    } else {
+      return null;
+    }
+    Copy copy = INTERFACES.get(rawType);
+    if (copy == null) {
+      copy = IMPLEMENTATIONS.get(rawType);
+    }
+    return copy;
+  }
+
+  /**
+   * Returns the value of the field in the dto, which is created from the value of the entity.
+   */
+  CodeBlock value(DtoField field, CodeBlock value) {
+    if (field.getCopyStrategy() == CopyStrategy.SHARE) {
+      return value;
+    }
+    return CodeBlock.of("$N($L)", copyMethod(field), value);
+  }
+
+  /**
+   * Returns a mutable copy of the value of the dto, which is passed to the entity.
+   * The entity must not receive the unmodifiable collection of the dto.
+   */
+  CodeBlock entityValue(DtoField field, String value) {
+    if (field.getCopyStrategy() == CopyStrategy.SHARE) {
+      return CodeBlock.of("$L", value);
+    }
+    return CodeBlock.of("$L != null ? new $T<>($L) : null", value, copy(field.getType()).implementation, value);
+  }
+
+  void append(TypeSpec.Builder builder, List<DtoField> fields) {
+    for (DtoField field : fields) {
+      if (field.getCopyStrategy() != CopyStrategy.SHARE) {
+        builder.addMethod(createCopy(field));
+      }
+    }
+  }
+
+  private MethodSpec createCopy(DtoField field) {
+    String name = field.getName();
+    Copy copy = copy(field.getType());
+
+    CodeBlock value;
+    switch (field.getCopyStrategy()) {
+      case UNMODIFIABLE_VIEW:
+        value = CodeBlock.of("$T.$N($N)", Collections.class, copy.unmodifiable, name);
+        break;
+      case IMMUTABLE_COPY:
+        value = CodeBlock.of("$T.$N(new $T<>($N))", Collections.class, copy.unmodifiable, copy.implementation, name);
+        break;
+      default:
+        // the copy constructors of the collections allocate the capacity for all elements at once
+        value = CodeBlock.of("new $T<>($N)", copy.implementation, name);
+        break;
+    }
+
+    return MethodSpec.methodBuilder(copyMethod(field))
+      .addAnnotation(Nullable.class)
+      .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+      .addParameter(ParameterSpec.builder(field.getType(), name)
+        .addAnnotation(Nullable.class)
+        .build()
+      )
+      .returns(field.getType())
+      .beginControlFlow("if ($N == null)", name)
+      .addStatement("return null")
+      .endControlFlow()
+      .addStatement("return $L", value)
+      .build();
+  }
+
+  private String copyMethod(DtoField field) {
+    return PREFIX_COPY + field.getName().substring(0, 1).toUpperCase() + field.getName().substring(1);
+  }
+
+  private static final class Copy {
+
+    private final ClassName implementation;
+    private final String unmodifiable;
+
+    private Copy(Class<?> implementation, @Nullable String unmodifiable) {
+      this.implementation = ClassName.get(implementation);
+      this.unmodifiable = unmodifiable;
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.squareup.javapoet.ClassName;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bean validation constraint of an exported field, e.g. {@code @Size(max = 42)}.
+ * The constraint is detached from the javac model and contains only attributes with string, number or boolean values.
+ */
+class Constraint {
+
+  private final ClassName type;
+  private final Map<String, Object> attributes;
+  private final boolean simple;
+
+  Constraint(ClassName type, Map<String, Object> attributes, boolean simple) {
+    this.type = type;
+    this.attributes = Collections.unmodifiableMap(attributes);
+    this.simple = simple;
+  }
+
+  public ClassName getType() {
+    return type;
+  }
+
+  /**
+   * Returns the simple name of the annotation, which is the same for javax and jakarta validation.
+   */
+  public String getName() {
+    return type.simpleName();
+  }
+
+  /**
+   * Returns {@code true} if all explicitly assigned attributes are strings, numbers or booleans.
+   * Constraints with groups, payloads or flags are not simple.
+   */
+  public boolean isSimple() {
+    return simple;
+  }
+
+  /**
+   * Returns the value of the attribute, including default values.
+   */
+  public Optional<Object> get(String attribute) {
+    return Optional.ofNullable(attributes.get(attribute));
+  }
+}
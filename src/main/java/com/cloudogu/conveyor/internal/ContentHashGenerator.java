@@ -0,0 +1,437 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.google.auto.common.MoreElements;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+
+import javax.annotation.Nullable;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.MonthDay;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.Period;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalAmount;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Generates a stable 64-bit hash of the exported fields, e.g. for etags, which does not require serialization.
+ * The values are folded in the order of the fields with the FNV prime, strings are hashed by their characters
+ * and enums by their name, so the hash is equal on every jvm. Nested dtos contribute their own content hash,
+ * the elements of sets and maps are combined independent of their order.
+ * Arrays are folded like lists, numbers with arbitrary precision, uuids and the values of {@code java.time} by their
+ * string representation. Other types are rejected, because their {@code hashCode} may differ between jvms.
+ * Dtos, which are hashed already on the path from the outer dto, contribute a constant,
+ * so cyclic references of the identity context terminate.
+ */
+class ContentHashGenerator {
+
+  private static final String METHOD_CONTENT_HASH = "contentHash";
+  private static final String SUFFIX_CONTENT_HASH = "ContentHash";
+  private static final String METHOD_MIX = "mixContentHash";
+  private static final String METHOD_STRING = "stringContentHash";
+  private static final String METHOD_VALUE = "valueContentHash";
+
+  private static final String CONSTANT_OFFSET_BASIS = "CONTENT_HASH_OFFSET_BASIS";
+  private static final String CONSTANT_PRIME = "CONTENT_HASH_PRIME";
+  private static final String CONSTANT_NULL = "CONTENT_HASH_NULL";
+  private static final String CONSTANT_CYCLE = "CONTENT_HASH_CYCLE";
+
+  private static final String FIELD_HASH = "hash";
+  private static final String FIELD_VALUE = "value";
+  private static final String FIELD_ELEMENT = "element";
+  private static final String FIELD_ENTRY = "entry";
+  private static final String FIELD_INDEX = "i";
+  private static final String FIELD_VISITING = "visiting";
+  private static final String SUFFIX_HASH = "Hash";
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final long NULL_HASH = 0x9e3779b97f4a7c15L;
+  private static final long CYCLE_HASH = 0xc2b2ae3d27d4eb4fL;
+
+  private static final long TRUE_HASH = 1231L;
+  private static final long FALSE_HASH = 1237L;
+
+  private static final Set<String> STABLE_TYPES = ImmutableSet.of(
+    Boolean.class.getName(), Byte.class.getName(), Short.class.getName(), Integer.class.getName(),
+    Long.class.getName(), Float.class.getName(), Double.class.getName(), Character.class.getName(),
+    String.class.getName(), CharSequence.class.getName()
+  );
+
+  // hashed by their string representation, which is specified and equal on every jvm
+  private static final Set<String> STRING_TYPES = ImmutableSet.of(
+    UUID.class.getName(), BigDecimal.class.getName(), BigInteger.class.getName(),
+    Instant.class.getName(), LocalDate.class.getName(), LocalDateTime.class.getName(), LocalTime.class.getName(),
+    OffsetDateTime.class.getName(), OffsetTime.class.getName(), ZonedDateTime.class.getName(),
+    Year.class.getName(), YearMonth.class.getName(), MonthDay.class.getName(),
+    Duration.class.getName(), Period.class.getName()
+  );
+
+  private static final Set<String> CONTAINER_TYPES = ImmutableSet.of(
+    Collection.class.getName(), List.class.getName(), Set.class.getName(), Map.class.getName()
+  );
+
+  private static final List<TypeName> ARRAY_COMPONENTS = ImmutableList.of(
+    TypeName.BOOLEAN, TypeName.BYTE, TypeName.SHORT, TypeName.CHAR,
+    TypeName.INT, TypeName.LONG, TypeName.FLOAT, TypeName.DOUBLE
+  );
+
+  /**
+   * Returns {@code true} if the field can be hashed, which requires a content hash of nested dtos
+   * and a stable hash of all other values, because {@code hashCode} may differ between jvms.
+   */
+  static boolean isSupported(DtoField field, TypeMirror type) {
+    Optional<NestedDto> nested = field.getNested();
+    if (nested.isPresent()) {
+      return nested.get().isContentHash();
+    }
+    return isStable(type);
+  }
+
+  @SuppressWarnings("UnstableApiUsage")
+  private static boolean isStable(TypeMirror type) {
+    if (type.getKind().isPrimitive()) {
+      return true;
+    }
+    if (type.getKind() == TypeKind.ARRAY) {
+      return isStable(((ArrayType) type).getComponentType());
+    }
+    if (type.getKind() != TypeKind.DECLARED) {
+      return false;
+    }
+    DeclaredType declaredType = (DeclaredType) type;
+    TypeElement element = MoreElements.asType(declaredType.asElement());
+    String name = element.getQualifiedName().toString();
+    if (element.getKind() == ElementKind.ENUM || STABLE_TYPES.contains(name) || STRING_TYPES.contains(name)) {
+      return true;
+    }
+    List<? extends TypeMirror> arguments = declaredType.getTypeArguments();
+    return CONTAINER_TYPES.contains(name)
+      && !arguments.isEmpty()
+      && arguments.stream().allMatch(ContentHashGenerator::isStable);
+  }
+
+  /**
+   * Appends {@code contentHash} for the fields and a {@code <view>ContentHash} method for each view,
+   * which is equal to the {@code contentHash} of the view class.
+   */
+  void append(TypeSpec.Builder builder, List<DtoField> fields, List<ViewModel> views) {
+    builder.addField(constant(CONSTANT_OFFSET_BASIS, FNV_OFFSET_BASIS));
+    builder.addField(constant(CONSTANT_PRIME, FNV_PRIME));
+    builder.addField(constant(CONSTANT_NULL, NULL_HASH));
+
+    if (hasNested(fields)) {
+      builder.addField(constant(CONSTANT_CYCLE, CYCLE_HASH));
+      builder.addMethod(startContentHash(METHOD_CONTENT_HASH)
+        .addJavadoc("Returns a stable hash of the exported fields, which changes if one of the fields changes.\n")
+        .build()
+      );
+      builder.addMethod(contentHash(METHOD_CONTENT_HASH, fields, true)
+        .addJavadoc("Returns the content hash as nested dto of another dto.\n")
+        .addJavadoc("The dtos, which are hashed on the path from the outer dto, are collected by identity to terminate cycles.\n")
+        .addModifiers(Modifier.PUBLIC)
+        .build()
+      );
+    } else {
+      builder.addMethod(contentHash(METHOD_CONTENT_HASH, fields, false)
+        .addJavadoc("Returns a stable hash of the exported fields, which changes if one of the fields changes.\n")
+        .addModifiers(Modifier.PUBLIC)
+        .build()
+      );
+      // dtos without nested dtos can not be part of a cycle
+      builder.addMethod(MethodSpec.methodBuilder(METHOD_CONTENT_HASH)
+        .addJavadoc("Returns the content hash as nested dto of another dto.\n")
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(visitingType(), FIELD_VISITING)
+        .returns(long.class)
+        .addStatement("return $N()", METHOD_CONTENT_HASH)
+        .build()
+      );
+    }
+
+    for (ViewModel view : views) {
+      String name = view.getName() + SUFFIX_CONTENT_HASH;
+      if (hasNested(view.getFields())) {
+        builder.addMethod(startContentHash(name)
+          .addJavadoc("Returns a stable hash of the fields of the view $L.\n", view.getName())
+          .build()
+        );
+        builder.addMethod(contentHash(name, view.getFields(), true)
+          .addModifiers(Modifier.PRIVATE)
+          .build()
+        );
+      } else {
+        builder.addMethod(contentHash(name, view.getFields(), false)
+          .addJavadoc("Returns a stable hash of the fields of the view $L.\n", view.getName())
+          .addModifiers(Modifier.PUBLIC)
+          .build()
+        );
+      }
+    }
+
+    builder.addMethod(mix());
+    builder.addMethod(string());
+    builder.addMethod(value());
+  }
+
+  private FieldSpec constant(String name, long value) {
+    return FieldSpec.builder(long.class, name, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+      .initializer("$LL", value)
+      .build();
+  }
+
+  private static boolean hasNested(List<DtoField> fields) {
+    return fields.stream().anyMatch(field -> field.getNested().isPresent());
+  }
+
+  private static TypeName visitingType() {
+    return ParameterizedTypeName.get(Set.class, Object.class);
+  }
+
+  private MethodSpec.Builder startContentHash(String name) {
+    return MethodSpec.methodBuilder(name)
+      .addModifiers(Modifier.PUBLIC)
+      .returns(long.class)
+      .addStatement("return $N($T.newSetFromMap(new $T<>()))", name, Collections.class, IdentityHashMap.class);
+  }
+
+  private MethodSpec.Builder contentHash(String name, List<DtoField> fields, boolean visiting) {
+    MethodSpec.Builder method = MethodSpec.methodBuilder(name)
+      .returns(long.class);
+
+    if (visiting) {
+      method.addParameter(visitingType(), FIELD_VISITING)
+        .beginControlFlow("if (!$N.add(this))", FIELD_VISITING)
+        .addStatement("return $N", CONSTANT_CYCLE)
+        .endControlFlow();
+    }
+    method.addStatement("$T $N = $N", long.class, FIELD_HASH, CONSTANT_OFFSET_BASIS);
+
+    for (DtoField field : fields) {
+      Optional<NestedDto> nested = field.getNested();
+      if (nested.isPresent() && nested.get().isCollection()) {
+        appendNestedCollection(method, field, nested.get());
+      } else {
+        method.addStatement("$N = $N($N, $L)", FIELD_HASH, METHOD_MIX, FIELD_HASH, hash(field, nested.orElse(null)));
+      }
+    }
+
+    if (visiting) {
+      // the dto is removed again, so shared dtos are hashed completely on each path and only cycles are cut
+      method.addStatement("$N.remove(this)", FIELD_VISITING);
+    }
+    return method.addStatement("return $N", FIELD_HASH);
+  }
+
+  private CodeBlock hash(DtoField field, @Nullable NestedDto nested) {
+    CodeBlock value = CodeBlock.of("this.$N", field.getName());
+    TypeName type = field.getType();
+    if (nested != null) {
+      return CodeBlock.of("$L != null ? $L.$N($N) : $N", value, value, METHOD_CONTENT_HASH, FIELD_VISITING, CONSTANT_NULL);
+    }
+    if (type.isPrimitive()) {
+      return primitive(type, value);
+    }
+    if (type.isBoxedPrimitive()) {
+      return CodeBlock.of("$L != null ? $L : $N", value, primitive(type.unbox(), value), CONSTANT_NULL);
+    }
+    if (type.equals(ClassName.get(String.class))) {
+      return CodeBlock.of("$N($L)", METHOD_STRING, value);
+    }
+    return CodeBlock.of("$N($L)", METHOD_VALUE, value);
+  }
+
+  private CodeBlock primitive(TypeName type, CodeBlock value) {
+    if (type.equals(TypeName.BOOLEAN)) {
+      return CodeBlock.of("($L ? $LL : $LL)", value, TRUE_HASH, FALSE_HASH);
+    } else if (type.equals(TypeName.FLOAT)) {
+      return CodeBlock.of("$T.floatToIntBits($L)", Float.class, value);
+    } else if (type.equals(TypeName.DOUBLE)) {
+      return CodeBlock.of("$T.doubleToLongBits($L)", Double.class, value);
+    }
+    return value;
+  }
+
+  private void appendNestedCollection(MethodSpec.Builder method, DtoField field, NestedDto nested) {
+    String name = field.getName();
+    String elementsHash = name + SUFFIX_HASH;
+    CodeBlock element = CodeBlock.of(
+      "$N != null ? $N.$N($N) : $N", FIELD_ELEMENT, FIELD_ELEMENT, METHOD_CONTENT_HASH, FIELD_VISITING, CONSTANT_NULL
+    );
+
+    method.beginControlFlow("if (this.$N == null)", name)
+      .addStatement("$N = $N($N, $N)", FIELD_HASH, METHOD_MIX, FIELD_HASH, CONSTANT_NULL)
+      .nextControlFlow("else");
+    if (nested.isSet()) {
+      // the sum does not depend on the iteration order of the set
+      method.addStatement("$T $N = 0L", long.class, elementsHash)
+        .beginControlFlow("for ($T $N : this.$N)", nested.getDtoType(), FIELD_ELEMENT, name)
+        .addStatement("$N += $L", elementsHash, element);
+    } else {
+      method.addStatement("$T $N = $N", long.class, elementsHash, CONSTANT_OFFSET_BASIS)
+        .beginControlFlow("for ($T $N : this.$N)", nested.getDtoType(), FIELD_ELEMENT, name)
+        .addStatement("$N = $N($N, $L)", elementsHash, METHOD_MIX, elementsHash, element);
+    }
+    method.endControlFlow()
+      .addStatement("$N = $N($N, $N)", FIELD_HASH, METHOD_MIX, FIELD_HASH, elementsHash)
+      .endControlFlow();
+  }
+
+  private MethodSpec mix() {
+    return MethodSpec.methodBuilder(METHOD_MIX)
+      .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+      .addParameter(long.class, FIELD_HASH)
+      .addParameter(long.class, FIELD_VALUE)
+      .returns(long.class)
+      .addStatement("return ($N ^ $N) * $N", FIELD_HASH, FIELD_VALUE, CONSTANT_PRIME)
+      .build();
+  }
+
+  private MethodSpec string() {
+    return MethodSpec.methodBuilder(METHOD_STRING)
+      .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+      .addParameter(CharSequence.class, FIELD_VALUE)
+      .returns(long.class)
+      .beginControlFlow("if ($N == null)", FIELD_VALUE)
+      .addStatement("return $N", CONSTANT_NULL)
+      .endControlFlow()
+      .addStatement("$T $N = $N", long.class, FIELD_HASH, CONSTANT_OFFSET_BASIS)
+      .beginControlFlow("for (int $N = 0; $N < $N.length(); $N++)", FIELD_INDEX, FIELD_INDEX, FIELD_VALUE, FIELD_INDEX)
+      .addStatement("$N = $N($N, $N.charAt($N))", FIELD_HASH, METHOD_MIX, FIELD_HASH, FIELD_VALUE, FIELD_INDEX)
+      .endControlFlow()
+      .addStatement("return $N", FIELD_HASH)
+      .build();
+  }
+
+  private MethodSpec value() {
+    TypeName wildcard = WildcardTypeName.subtypeOf(Object.class);
+    MethodSpec.Builder method = MethodSpec.methodBuilder(METHOD_VALUE)
+      .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+      .addParameter(Object.class, FIELD_VALUE)
+      .returns(long.class)
+      .beginControlFlow("if ($N == null)", FIELD_VALUE)
+      .addStatement("return $N", CONSTANT_NULL)
+      .nextControlFlow("else if ($N instanceof $T)", FIELD_VALUE, CharSequence.class)
+      .addStatement("return $N(($T) $N)", METHOD_STRING, CharSequence.class, FIELD_VALUE)
+      .nextControlFlow("else if ($N instanceof $T)", FIELD_VALUE, Enum.class)
+      .addStatement("return $N((($T) $N).name())", METHOD_STRING, ParameterizedTypeName.get(ClassName.get(Enum.class), wildcard), FIELD_VALUE)
+      .nextControlFlow("else if ($N instanceof $T || $N instanceof $T)", FIELD_VALUE, Double.class, FIELD_VALUE, Float.class)
+      .addStatement("return $T.doubleToLongBits((($T) $N).doubleValue())", Double.class, Number.class, FIELD_VALUE)
+      .nextControlFlow(
+        "else if ($N instanceof $T || $N instanceof $T || $N instanceof $T || $N instanceof $T)",
+        FIELD_VALUE, Long.class, FIELD_VALUE, Integer.class, FIELD_VALUE, Short.class, FIELD_VALUE, Byte.class
+      )
+      .addStatement("return (($T) $N).longValue()", Number.class, FIELD_VALUE)
+      .nextControlFlow("else if ($N instanceof $T)", FIELD_VALUE, Character.class)
+      .addStatement("return ($T) $N", Character.class, FIELD_VALUE)
+      .nextControlFlow("else if ($N instanceof $T)", FIELD_VALUE, Boolean.class)
+      .addStatement("return ($T) $N ? $LL : $LL", Boolean.class, FIELD_VALUE, TRUE_HASH, FALSE_HASH)
+      .nextControlFlow(
+        "else if ($N instanceof $T || $N instanceof $T || $N instanceof $T || $N instanceof $T || $N instanceof $T)",
+        FIELD_VALUE, UUID.class, FIELD_VALUE, BigDecimal.class, FIELD_VALUE, BigInteger.class,
+        FIELD_VALUE, TemporalAccessor.class, FIELD_VALUE, TemporalAmount.class
+      )
+      .addStatement("return $N($N.toString())", METHOD_STRING, FIELD_VALUE)
+      .nextControlFlow("else if ($N instanceof $T)", FIELD_VALUE, Object[].class)
+      .addStatement("$T $N = $N", long.class, FIELD_HASH, CONSTANT_OFFSET_BASIS)
+      .beginControlFlow("for ($T $N : ($T) $N)", Object.class, FIELD_ELEMENT, Object[].class, FIELD_VALUE)
+      .addStatement("$N = $N($N, $N($N))", FIELD_HASH, METHOD_MIX, FIELD_HASH, METHOD_VALUE, FIELD_ELEMENT)
+      .endControlFlow()
+      .addStatement("return $N", FIELD_HASH);
+    for (TypeName component : ARRAY_COMPONENTS) {
+      TypeName arrayType = ArrayTypeName.of(component);
+      method.nextControlFlow("else if ($N instanceof $T)", FIELD_VALUE, arrayType)
+        .addStatement("$T $N = $N", long.class, FIELD_HASH, CONSTANT_OFFSET_BASIS)
+        .beginControlFlow("for ($T $N : ($T) $N)", component, FIELD_ELEMENT, arrayType, FIELD_VALUE)
+        .addStatement("$N = $N($N, $L)", FIELD_HASH, METHOD_MIX, FIELD_HASH, primitive(component, CodeBlock.of("$N", FIELD_ELEMENT)))
+        .endControlFlow()
+        .addStatement("return $N", FIELD_HASH);
+    }
+    return method.nextControlFlow("else if ($N instanceof $T)", FIELD_VALUE, List.class)
+      .addStatement("$T $N = $N", long.class, FIELD_HASH, CONSTANT_OFFSET_BASIS)
+      .beginControlFlow("for ($T $N : ($T) $N)", Object.class, FIELD_ELEMENT, ParameterizedTypeName.get(ClassName.get(List.class), wildcard), FIELD_VALUE)
+      .addStatement("$N = $N($N, $N($N))", FIELD_HASH, METHOD_MIX, FIELD_HASH, METHOD_VALUE, FIELD_ELEMENT)
+      .endControlFlow()
+      .addStatement("return $N", FIELD_HASH)
+      .nextControlFlow("else if ($N instanceof $T)", FIELD_VALUE, Collection.class)
+      .addStatement("$T $N = 0L", long.class, FIELD_HASH)
+      .beginControlFlow("for ($T $N : ($T) $N)", Object.class, FIELD_ELEMENT, ParameterizedTypeName.get(ClassName.get(Collection.class), wildcard), FIELD_VALUE)
+      .addStatement("$N += $N($N)", FIELD_HASH, METHOD_VALUE, FIELD_ELEMENT)
+      .endControlFlow()
+      .addStatement("return $N", FIELD_HASH)
+      .nextControlFlow("else if ($N instanceof $T)", FIELD_VALUE, Map.class)
+      .addStatement("$T $N = 0L", long.class, FIELD_HASH)
+      .beginControlFlow(
+        "for ($T $N : (($T) $N).entrySet())",
+        ParameterizedTypeName.get(ClassName.get(Map.Entry.class), wildcard, wildcard), FIELD_ENTRY,
+        ParameterizedTypeName.get(ClassName.get(Map.class), wildcard, wildcard), FIELD_VALUE
+      )
+      .addStatement(
+        "$N += $N($N($N, $N($N.getKey())), $N($N.getValue()))",
+        FIELD_HASH, METHOD_MIX, METHOD_MIX, CONSTANT_OFFSET_BASIS, METHOD_VALUE, FIELD_ENTRY, METHOD_VALUE, FIELD_ENTRY
+      )
+      .endControlFlow()
+      .addStatement("return $N", FIELD_HASH)
+      .endControlFlow()
+      // the supported types are checked at compile time, so only a raw or unchecked collection can reach this
+      .addStatement("throw new $T($S + $N.getClass())", IllegalArgumentException.class, "no stable content hash for ", FIELD_VALUE)
+      .build();
+  }
+}
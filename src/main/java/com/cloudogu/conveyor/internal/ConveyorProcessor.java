@@ -24,58 +24,224 @@
 
 package com.cloudogu.conveyor.internal;
 
+import com.cloudogu.conveyor.ExportFormat;
 import com.cloudogu.conveyor.GenerateDto;
 import com.google.auto.common.MoreElements;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.squareup.javapoet.JavaFile;
 import org.kohsuke.MetaInfServices;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Filer;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.Processor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
 import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @MetaInfServices(Processor.class)
 @SupportedSourceVersion(SourceVersion.RELEASE_8)
 @SupportedAnnotationTypes("com.cloudogu.conveyor.GenerateDto")
+@SupportedOptions({Options.JACKSON, Options.JACKSON_MODULE, Options.PARALLEL, Options.STATS, Options.OPENAPI, Options.REGISTRY})
 public class ConveyorProcessor extends AbstractProcessor {
 
+  private final SourceCodeGenerator sourceCodeGenerator = new SourceCodeGenerator();
+  private final JacksonGenerator jacksonGenerator = new JacksonGenerator();
+  private final ExportWriterGenerator exportWriterGenerator = new ExportWriterGenerator();
+  private final OpenApiGenerator openApiGenerator = new OpenApiGenerator();
+  private final RegistryGenerator registryGenerator = new RegistryGenerator();
+  private final CachingMapperGenerator cachingMapperGenerator = new CachingMapperGenerator();
+
+  private final List<Model> serializedModels = new ArrayList<>();
+  private final List<Model> registeredModels = new ArrayList<>();
+  private final Statistics statistics = new Statistics();
+
+  private Options options;
+
+  @Override
+  public synchronized void init(ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+    this.options = new Options(processingEnv.getOptions());
+  }
+
+  @Override
+  public Set<String> getSupportedOptions() {
+    Set<String> supportedOptions = new HashSet<>(super.getSupportedOptions());
+    supportedOptions.add(options.getGradleProcessingType());
+    return supportedOptions;
+  }
+
   @Override
   public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
     if (roundEnv.processingOver()) {
+      writeStatistics();
       return false;
     }
 
+    statistics.startRound();
+
+    // the javac model is not thread safe, so the models are always created on the processor thread
+    List<Model> models = new ArrayList<>();
     for (TypeElement annotation : annotations) {
       for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
-        process(element);
+        models.add(createModel(element));
+      }
+    }
+
+    if (models.isEmpty()) {
+      writeAggregates();
+    } else {
+      write(models, render(models));
+      if (options.isJackson()) {
+        serializedModels.addAll(models);
+      }
+      if (options.getRegistry().isPresent()) {
+        registeredModels.addAll(models);
       }
     }
 
+    statistics.endRound();
     return false;
   }
 
   @SuppressWarnings("UnstableApiUsage")
-  private void process(Element element) {
+  private Model createModel(Element element) {
+    Statistics.Type stats = statistics.type(element);
     GenerateDto annotation = element.getAnnotation(GenerateDto.class);
+
+    long start = System.nanoTime();
     ModelBuilder modelBuilder = new ModelBuilder(MoreElements.asType(element), annotation);
+    stats.collected(System.nanoTime() - start, modelBuilder.getSuperClassLevels());
+
+    start = System.nanoTime();
     Model model = modelBuilder.create();
+    stats.created(System.nanoTime() - start);
 
+    statistics.register(model, stats);
+    return model;
+  }
+
+  private List<List<GeneratedFile>> render(List<Model> models) {
+    int parallelism = Math.min(options.getParallelism(), models.size());
+    List<List<GeneratedFile>> sources = new ArrayList<>(models.size());
+    if (parallelism <= 1) {
+      for (Model model : models) {
+        sources.add(render(model));
+      }
+      return sources;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(
+      parallelism, new ThreadFactoryBuilder().setNameFormat("conveyor-%d").setDaemon(true).build()
+    );
     try {
-      write(model);
-    } catch (IOException ex) {
-      throw new IllegalStateException("failed to create model", ex);
+      List<Future<List<GeneratedFile>>> futures = new ArrayList<>(models.size());
+      for (Model model : models) {
+        futures.add(executor.submit(() -> render(model)));
+      }
+      // collect the results in the order of the models, to keep the output deterministic
+      for (Future<List<GeneratedFile>> future : futures) {
+        sources.add(future.get());
+      }
+      return sources;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("rendering of sources was interrupted", ex);
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException("failed to render sources", cause);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private List<GeneratedFile> render(Model model) {
+    long start = System.nanoTime();
+
+    List<JavaFile> files = new ArrayList<>(sourceCodeGenerator.generate(model));
+    if (options.isJackson()) {
+      files.add(jacksonGenerator.generate(model));
+      files.add(jacksonGenerator.generateUpdater(model));
+    }
+    for (ExportFormat format : model.getExportFormats()) {
+      files.add(exportWriterGenerator.generate(model, format));
+    }
+    if (model.getCache().isPresent()) {
+      files.add(cachingMapperGenerator.generate(model));
+    }
+
+    List<GeneratedFile> sources = new ArrayList<>(files.size() + 1);
+    for (JavaFile file : files) {
+      sources.add(SourceFile.render(file));
+    }
+    if (options.isOpenApi()) {
+      sources.add(openApiGenerator.generate(model));
+    }
+
+    statistics.get(model).generated(System.nanoTime() - start);
+    return sources;
+  }
+
+  private void write(List<Model> models, List<List<GeneratedFile>> sources) {
+    for (int i = 0; i < models.size(); i++) {
+      long start = System.nanoTime();
+      for (GeneratedFile source : sources.get(i)) {
+        write(source);
+      }
+      statistics.get(models.get(i)).written(System.nanoTime() - start);
     }
   }
 
-  private void write(Model model) throws IOException {
+  private void write(GeneratedFile source) {
     Filer filer = processingEnv.getFiler();
-    SourceCodeGenerator generator = new SourceCodeGenerator(filer);
-    generator.generate(model);
+    try {
+      source.write(filer);
+    } catch (IOException ex) {
+      throw new IllegalStateException("failed to write " + source.getName(), ex);
+    }
+  }
+
+  private void writeAggregates() {
+    // aggregated sources are written in the first round without new dtos,
+    // so that they are compiled together with the dtos of the previous rounds
+    if (!serializedModels.isEmpty() && options.getJacksonModule().isPresent()) {
+      write(SourceFile.render(jacksonGenerator.generateModule(options.getJacksonModule().get(), serializedModels)));
+      serializedModels.clear();
+    }
+    if (!registeredModels.isEmpty() && options.getRegistry().isPresent()) {
+      String registry = options.getRegistry().get();
+      write(SourceFile.render(registryGenerator.generate(registry, registeredModels)));
+      write(registryGenerator.generateIndex(registry, registeredModels));
+      registeredModels.clear();
+    }
+  }
+
+  private void writeStatistics() {
+    if (!options.isStats() || statistics.isEmpty()) {
+      return;
+    }
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, statistics.summary());
+    try {
+      statistics.write(processingEnv.getFiler());
+    } catch (IOException ex) {
+      throw new IllegalStateException("failed to write " + Statistics.RESOURCE, ex);
+    }
   }
 }
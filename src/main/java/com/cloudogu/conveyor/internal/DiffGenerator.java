@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.annotation.Nullable;
+import javax.lang.model.element.Modifier;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Generates {@code differsFrom} and {@code diff}, which compare the fields written by {@code update} with the entity
+ * without modifying it. This allows to skip transactions, audit events or flushes of unchanged entities.
+ */
+class DiffGenerator {
+
+  private static final String METHOD_DIFFERS_FROM = "differsFrom";
+  private static final String METHOD_DIFF = "diff";
+
+  private static final String FIELD_ENTITY = "entity";
+  private static final String FIELD_DIFF = "diff";
+
+  /**
+   * Appends the methods for the given fields.
+   *
+   * @param constantsType class, which defines the {@code FIELD_} constants
+   * @param mask field with the mask of the fields, which are written by {@code update}, or {@code null} if all fields are written
+   */
+  void append(TypeSpec.Builder builder, TypeName entityType, List<DtoField> fields, ClassName constantsType, @Nullable String mask) {
+    MethodSpec.Builder differsFrom = MethodSpec.methodBuilder(METHOD_DIFFERS_FROM)
+      .addJavadoc("Returns {@code true} if {@code update} would change at least one field of the entity.\n")
+      .addModifiers(Modifier.PUBLIC)
+      .addParameter(entityType, FIELD_ENTITY)
+      .returns(boolean.class);
+
+    MethodSpec.Builder diff = MethodSpec.methodBuilder(METHOD_DIFF)
+      .addJavadoc("Returns the fields, which would be changed by {@code update}, as bit mask of the {@code FIELD_} constants.\n")
+      .addModifiers(Modifier.PUBLIC)
+      .addParameter(entityType, FIELD_ENTITY)
+      .returns(long.class)
+      .addStatement("$T $N = 0L", long.class, FIELD_DIFF);
+
+    for (DtoField field : fields) {
+      if (!field.isUpdatable()) {
+        continue;
+      }
+      CodeBlock differs = differs(field);
+      if (mask != null) {
+        differs = CodeBlock.of("($N & $T.$N) != 0 && $L", mask, constantsType, field.getConstantName(), differs);
+      }
+      differsFrom.beginControlFlow("if ($L)", differs)
+        .addStatement("return true")
+        .endControlFlow();
+      diff.beginControlFlow("if ($L)", differs)
+        .addStatement("$N |= $T.$N", FIELD_DIFF, constantsType, field.getConstantName())
+        .endControlFlow();
+    }
+
+    builder.addMethod(differsFrom.addStatement("return false").build());
+    builder.addMethod(diff.addStatement("return $N", FIELD_DIFF).build());
+  }
+
+  private CodeBlock differs(DtoField field) {
+    CodeBlock value = CodeBlock.of("this.$N", field.getName());
+    CodeBlock entityValue = CodeBlock.of("$N.$N()", FIELD_ENTITY, field.getGetter());
+    TypeName type = field.getType();
+    if (type.equals(TypeName.FLOAT)) {
+      // compare treats NaN as equal to itself, like the boxed values
+      return CodeBlock.of("$T.compare($L, $L) != 0", Float.class, value, entityValue);
+    } else if (type.equals(TypeName.DOUBLE)) {
+      return CodeBlock.of("$T.compare($L, $L) != 0", Double.class, value, entityValue);
+    } else if (type.isPrimitive()) {
+      return CodeBlock.of("$L != $L", value, entityValue);
+    } else if (type instanceof ArrayTypeName) {
+      return CodeBlock.of("!$T.equals($L, $L)", Arrays.class, value, entityValue);
+    }
+    return CodeBlock.of("!$T.equals($L, $L)", Objects.class, value, entityValue);
+  }
+}
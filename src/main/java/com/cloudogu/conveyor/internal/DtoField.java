@@ -24,51 +24,112 @@
 
 package com.cloudogu.conveyor.internal;
 
+import com.cloudogu.conveyor.CopyStrategy;
+import com.google.common.base.CaseFormat;
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.TypeName;
+
 import javax.annotation.Nullable;
-import javax.lang.model.element.Element;
-import javax.lang.model.element.VariableElement;
-import javax.lang.model.type.TypeMirror;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Exported field of a dto. The field is detached from the javac model,
+ * which allows the source code generation outside of the processor thread.
+ */
 class DtoField {
 
-  private final VariableElement field;
-  private final Element getter;
-  private final Element setter;
+  private final int index;
+  private final String name;
+  private final TypeName type;
+  private final List<AnnotationSpec> annotations;
+  private final String getter;
+  private final String setter;
   private final List<String> views = new ArrayList<>();
+  private final NestedDto nested;
+  private final List<Constraint> constraints;
+  private final CopyStrategy copyStrategy;
 
-  DtoField(VariableElement field, String[] views, Element getter, @Nullable Element setter) {
-    this.field = field;
+  DtoField(int index, String name, TypeName type, List<AnnotationSpec> annotations, String[] views, String getter, @Nullable String setter, @Nullable NestedDto nested, List<Constraint> constraints, CopyStrategy copyStrategy) {
+    this.index = index;
+    this.name = name;
+    this.type = nested != null ? nested.getFieldType() : type;
+    this.annotations = Collections.unmodifiableList(annotations);
     this.views.addAll(Arrays.asList(views));
     this.getter = getter;
     this.setter = setter;
+    this.nested = nested;
+    this.constraints = Collections.unmodifiableList(constraints);
+    this.copyStrategy = copyStrategy;
+  }
+
+  /**
+   * Returns the position of the field in the exported fields of the dto.
+   */
+  public int getIndex() {
+    return index;
   }
 
-  public VariableElement getField() {
-    return field;
+  /**
+   * Returns the name of the generated constant, which contains the bit of the field in field masks.
+   */
+  public String getConstantName() {
+    return "FIELD_" + CaseFormat.LOWER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, name);
   }
 
-  public TypeMirror getType() {
-    return field.asType();
+  /**
+   * Returns the type of the field in the dto, which differs from the type of the entity for nested dtos.
+   */
+  public TypeName getType() {
+    return type;
   }
 
   public String getName() {
-    return field.getSimpleName().toString();
+    return name;
   }
 
-  public Element getGetter() {
+  public List<AnnotationSpec> getAnnotations() {
+    return annotations;
+  }
+
+  public String getGetter() {
     return getter;
   }
 
-  public Optional<Element> getSetter() {
+  public Optional<String> getSetter() {
     return Optional.ofNullable(setter);
   }
 
   public List<String> getViews() {
     return Collections.unmodifiableList(views);
   }
+
+  public Optional<NestedDto> getNested() {
+    return Optional.ofNullable(nested);
+  }
+
+  /**
+   * Returns the bean validation constraints of the field.
+   */
+  public List<Constraint> getConstraints() {
+    return constraints;
+  }
+
+  /**
+   * Returns the strategy, which is used to pass the collection of the entity to the dto.
+   * The strategy is {@link CopyStrategy#SHARE} for all fields, which are no collections or nested dtos.
+   */
+  public CopyStrategy getCopyStrategy() {
+    return copyStrategy;
+  }
+
+  /**
+   * Returns {@code true} if the field is not nested and has a setter, so it can be written back to the entity.
+   */
+  public boolean isUpdatable() {
+    return nested == null && setter != null;
+  }
 }
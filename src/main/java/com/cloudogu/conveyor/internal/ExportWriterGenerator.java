@@ -0,0 +1,355 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.cloudogu.conveyor.ExportFormat;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+
+import javax.lang.model.element.Modifier;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates writers, which stream the exported fields of entities or dtos as csv or ndjson.
+ * Each row is collected in a reused buffer and copied to a reused array, which is written at once,
+ * values are written without intermediate objects.
+ */
+class ExportWriterGenerator {
+
+  private static final String SUFFIX_CSV = "CsvWriter";
+  private static final String SUFFIX_NDJSON = "NdjsonWriter";
+
+  private static final String FIELD_WRITER = "writer";
+  private static final String FIELD_OUTPUT = "output";
+  private static final String FIELD_ROW = "row";
+  private static final String FIELD_CHARS = "chars";
+  private static final String FIELD_LENGTH = "length";
+  private static final String FIELD_ENTITY = "entity";
+  private static final String FIELD_ENTITIES = "entities";
+  private static final String FIELD_DTO = "dto";
+  private static final String FIELD_VALUE = "value";
+
+  private static final String CONSTANT_HEADER = "HEADER";
+
+  private static final String METHOD_WRITE = "write";
+  private static final String METHOD_WRITE_ALL = "writeAll";
+  private static final String METHOD_WRITE_HEADER = "writeHeader";
+  private static final String METHOD_WRITE_ROW = "writeRow";
+  private static final String METHOD_APPEND_STRING = "appendString";
+  private static final String METHOD_APPEND_NUMBER = "appendNumber";
+  private static final String METHOD_FLUSH = "flush";
+  private static final String METHOD_CLOSE = "close";
+
+  private static final String CSV_SEPARATOR = ",";
+  private static final String CSV_LINE_SEPARATOR = "\r\n";
+  private static final String NDJSON_LINE_SEPARATOR = "\n";
+  private static final String NDJSON_NULL = "null";
+
+  private static final int INITIAL_ROW_CAPACITY = 256;
+
+  /**
+   * Returns {@code true} if the field can be written by the export writers.
+   * Nested dtos, arrays and generic types are not supported.
+   */
+  static boolean isSupported(DtoField field) {
+    TypeName type = field.getType();
+    return !field.getNested().isPresent() && (type.isPrimitive() || type instanceof ClassName);
+  }
+
+  static ClassName writerType(Model model, ExportFormat format) {
+    String suffix = format == ExportFormat.CSV ? SUFFIX_CSV : SUFFIX_NDJSON;
+    return ClassName.get(model.getPackageName(), model.getSimpleClassName() + suffix);
+  }
+
+  JavaFile generate(Model model, ExportFormat format) {
+    ClassName writerType = writerType(model, format);
+    List<DtoField> fields = model.getExportFields();
+
+    TypeSpec.Builder builder = TypeSpec.classBuilder(writerType)
+      .addOriginatingElement(model.getOriginatingElement())
+      .addModifiers(Modifier.PUBLIC)
+      .addSuperinterface(Closeable.class)
+      .addSuperinterface(Flushable.class)
+      .addField(Writer.class, FIELD_WRITER, Modifier.PRIVATE, Modifier.FINAL)
+      .addField(FieldSpec.builder(StringBuilder.class, FIELD_ROW, Modifier.PRIVATE, Modifier.FINAL)
+        .initializer("new $T($L)", StringBuilder.class, INITIAL_ROW_CAPACITY)
+        .build()
+      )
+      .addField(FieldSpec.builder(char[].class, FIELD_CHARS, Modifier.PRIVATE)
+        .initializer("new char[$L]", INITIAL_ROW_CAPACITY)
+        .build()
+      )
+      .addMethod(MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(Writer.class, FIELD_WRITER)
+        .addStatement("this.$N = $N", FIELD_WRITER, FIELD_WRITER)
+        .build()
+      )
+      .addMethod(MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(OutputStream.class, FIELD_OUTPUT)
+        .addStatement(
+          "this(new $T(new $T($N, $T.UTF_8)))", BufferedWriter.class, OutputStreamWriter.class, FIELD_OUTPUT, StandardCharsets.class
+        )
+        .build()
+      );
+
+    if (format == ExportFormat.CSV) {
+      appendHeader(builder, fields);
+    }
+
+    builder.addMethod(write(format, model.getEntityType(), FIELD_ENTITY, fields));
+    builder.addMethod(write(format, model.getDtoType(), FIELD_DTO, fields));
+
+    builder.addMethod(MethodSpec.methodBuilder(METHOD_WRITE_ALL)
+      .addModifiers(Modifier.PUBLIC)
+      .addParameter(
+        ParameterizedTypeName.get(ClassName.get(Iterable.class), WildcardTypeName.subtypeOf(model.getEntityType())),
+        FIELD_ENTITIES
+      )
+      .addException(IOException.class)
+      .beginControlFlow("for ($T $N : $N)", model.getEntityType(), FIELD_ENTITY, FIELD_ENTITIES)
+      .addStatement("$N($N)", METHOD_WRITE, FIELD_ENTITY)
+      .endControlFlow()
+      .build()
+    );
+
+    builder.addMethod(MethodSpec.methodBuilder(METHOD_FLUSH)
+      .addAnnotation(Override.class)
+      .addModifiers(Modifier.PUBLIC)
+      .addException(IOException.class)
+      .addStatement("$N.flush()", FIELD_WRITER)
+      .build()
+    );
+
+    builder.addMethod(MethodSpec.methodBuilder(METHOD_CLOSE)
+      .addAnnotation(Override.class)
+      .addModifiers(Modifier.PUBLIC)
+      .addException(IOException.class)
+      .addStatement("$N.close()", FIELD_WRITER)
+      .build()
+    );
+
+    builder.addMethod(writeRow());
+    builder.addMethod(format == ExportFormat.CSV ? appendCsvString() : appendJsonString());
+    if (format == ExportFormat.NDJSON) {
+      appendJsonNumbers(builder, fields);
+    }
+
+    return JavaFile.builder(model.getPackageName(), builder.build()).build();
+  }
+
+  private void appendHeader(TypeSpec.Builder builder, List<DtoField> fields) {
+    StringBuilder header = new StringBuilder();
+    for (DtoField field : fields) {
+      if (header.length() > 0) {
+        header.append(CSV_SEPARATOR);
+      }
+      header.append(field.getName());
+    }
+    header.append(CSV_LINE_SEPARATOR);
+
+    builder.addField(FieldSpec.builder(String.class, CONSTANT_HEADER, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+      .initializer("$S", header.toString())
+      .build()
+    );
+
+    builder.addMethod(MethodSpec.methodBuilder(METHOD_WRITE_HEADER)
+      .addJavadoc("Writes the names of the fields as first row.\n")
+      .addModifiers(Modifier.PUBLIC)
+      .addException(IOException.class)
+      .addStatement("$N.write($N)", FIELD_WRITER, CONSTANT_HEADER)
+      .build()
+    );
+  }
+
+  private MethodSpec write(ExportFormat format, TypeName type, String parameter, List<DtoField> fields) {
+    MethodSpec.Builder method = MethodSpec.methodBuilder(METHOD_WRITE)
+      .addModifiers(Modifier.PUBLIC)
+      .addParameter(type, parameter)
+      .addException(IOException.class)
+      .addStatement("$N.setLength(0)", FIELD_ROW);
+
+    for (int i = 0; i < fields.size(); i++) {
+      DtoField field = fields.get(i);
+      CodeBlock value = CodeBlock.of("$N.$N()", parameter, field.getGetter());
+      if (format == ExportFormat.CSV) {
+        if (i > 0) {
+          method.addStatement("$N.append(',')", FIELD_ROW);
+        }
+        appendValue(method, format, field.getType(), value, "");
+      } else {
+        String prefix = (i == 0 ? "{" : ",") + "\"" + field.getName() + "\":";
+        method.addStatement("$N.append($S)", FIELD_ROW, prefix);
+        appendValue(method, format, field.getType(), value, NDJSON_NULL);
+      }
+    }
+
+    if (format == ExportFormat.CSV) {
+      method.addStatement("$N.append($S)", FIELD_ROW, CSV_LINE_SEPARATOR);
+    } else {
+      method.addStatement("$N.append($S)", FIELD_ROW, (fields.isEmpty() ? "{" : "") + "}" + NDJSON_LINE_SEPARATOR);
+    }
+
+    return method.addStatement("$N()", METHOD_WRITE_ROW).build();
+  }
+
+  private MethodSpec writeRow() {
+    // the row is copied to a reused array, because appending the builder to the writer would copy it to a string
+    return MethodSpec.methodBuilder(METHOD_WRITE_ROW)
+      .addModifiers(Modifier.PRIVATE)
+      .addException(IOException.class)
+      .addStatement("int $N = $N.length()", FIELD_LENGTH, FIELD_ROW)
+      .beginControlFlow("if ($N.length < $N)", FIELD_CHARS, FIELD_LENGTH)
+      .addStatement("$N = new char[$T.max($N, $N.length * 2)]", FIELD_CHARS, Math.class, FIELD_LENGTH, FIELD_CHARS)
+      .endControlFlow()
+      .addStatement("$N.getChars(0, $N, $N, 0)", FIELD_ROW, FIELD_LENGTH, FIELD_CHARS)
+      .addStatement("$N.write($N, 0, $N)", FIELD_WRITER, FIELD_CHARS, FIELD_LENGTH)
+      .build();
+  }
+
+  private void appendValue(MethodSpec.Builder method, ExportFormat format, TypeName type, CodeBlock value, String nullValue) {
+    if (type.isPrimitive()) {
+      appendNonNull(method, format, type, value);
+      return;
+    }
+
+    method.beginControlFlow("if ($L != null)", value);
+    appendNonNull(method, format, type.isBoxedPrimitive() ? type.unbox() : type, value);
+    if (!nullValue.isEmpty()) {
+      method.nextControlFlow("else")
+        .addStatement("$N.append($S)", FIELD_ROW, nullValue);
+    }
+    method.endControlFlow();
+  }
+
+  private void appendNonNull(MethodSpec.Builder method, ExportFormat format, TypeName type, CodeBlock value) {
+    if (format == ExportFormat.NDJSON && isFloatingPoint(type)) {
+      // json has no literals for NaN and infinity
+      method.addStatement("$N($N, $L)", METHOD_APPEND_NUMBER, FIELD_ROW, value);
+    } else if (type.isPrimitive() && !type.equals(TypeName.CHAR)) {
+      method.addStatement("$N.append($L)", FIELD_ROW, value);
+    } else {
+      // strings, characters and all other types are written as escaped strings
+      method.addStatement("$N($N, $T.valueOf($L))", METHOD_APPEND_STRING, FIELD_ROW, String.class, value);
+    }
+  }
+
+  private static boolean isFloatingPoint(TypeName type) {
+    TypeName unboxed = type.isBoxedPrimitive() ? type.unbox() : type;
+    return unboxed.equals(TypeName.DOUBLE) || unboxed.equals(TypeName.FLOAT);
+  }
+
+  private void appendJsonNumbers(TypeSpec.Builder builder, List<DtoField> fields) {
+    Set<TypeName> types = new LinkedHashSet<>();
+    for (DtoField field : fields) {
+      if (isFloatingPoint(field.getType())) {
+        types.add(field.getType().isBoxedPrimitive() ? field.getType().unbox() : field.getType());
+      }
+    }
+    for (TypeName type : types) {
+      // non-finite values are written as null, because they can not be represented as json number
+      builder.addMethod(MethodSpec.methodBuilder(METHOD_APPEND_NUMBER)
+        .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+        .addParameter(StringBuilder.class, FIELD_ROW)
+        .addParameter(type, FIELD_VALUE)
+        .beginControlFlow("if ($T.isFinite($N))", type.box(), FIELD_VALUE)
+        .addStatement("$N.append($N)", FIELD_ROW, FIELD_VALUE)
+        .nextControlFlow("else")
+        .addStatement("$N.append($S)", FIELD_ROW, NDJSON_NULL)
+        .endControlFlow()
+        .build()
+      );
+    }
+  }
+
+  private MethodSpec appendCsvString() {
+    // values are quoted only if they contain a separator, a quote or a line break
+    return MethodSpec.methodBuilder(METHOD_APPEND_STRING)
+      .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+      .addParameter(StringBuilder.class, FIELD_ROW)
+      .addParameter(String.class, FIELD_VALUE)
+      .beginControlFlow(
+        "if ($N.indexOf(',') < 0 && $N.indexOf('\"') < 0 && $N.indexOf('\\n') < 0 && $N.indexOf('\\r') < 0)",
+        FIELD_VALUE, FIELD_VALUE, FIELD_VALUE, FIELD_VALUE
+      )
+      .addStatement("$N.append($N)", FIELD_ROW, FIELD_VALUE)
+      .addStatement("return")
+      .endControlFlow()
+      .addStatement("$N.append('\"')", FIELD_ROW)
+      .beginControlFlow("for (int i = 0; i < $N.length(); i++)", FIELD_VALUE)
+      .addStatement("char c = $N.charAt(i)", FIELD_VALUE)
+      .beginControlFlow("if (c == '\"')")
+      .addStatement("$N.append('\"')", FIELD_ROW)
+      .endControlFlow()
+      .addStatement("$N.append(c)", FIELD_ROW)
+      .endControlFlow()
+      .addStatement("$N.append('\"')", FIELD_ROW)
+      .build();
+  }
+
+  private MethodSpec appendJsonString() {
+    return MethodSpec.methodBuilder(METHOD_APPEND_STRING)
+      .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+      .addParameter(StringBuilder.class, FIELD_ROW)
+      .addParameter(String.class, FIELD_VALUE)
+      .addStatement("$N.append('\"')", FIELD_ROW)
+      .beginControlFlow("for (int i = 0; i < $N.length(); i++)", FIELD_VALUE)
+      .addStatement("char c = $N.charAt(i)", FIELD_VALUE)
+      .beginControlFlow("if (c == '\"' || c == '\\\\')")
+      .addStatement("$N.append('\\\\').append(c)", FIELD_ROW)
+      .nextControlFlow("else if (c == '\\n')")
+      .addStatement("$N.append($S)", FIELD_ROW, "\\n")
+      .nextControlFlow("else if (c == '\\r')")
+      .addStatement("$N.append($S)", FIELD_ROW, "\\r")
+      .nextControlFlow("else if (c == '\\t')")
+      .addStatement("$N.append($S)", FIELD_ROW, "\\t")
+      .nextControlFlow("else if (c < 0x20)")
+      .addStatement("$N.append($T.format($S, (int) c))", FIELD_ROW, String.class, "\\u%04x")
+      .nextControlFlow("else")
+      .addStatement("$N.append(c)", FIELD_ROW)
+      .endControlFlow()
+      .endControlFlow()
+      .addStatement("$N.append('\"')", FIELD_ROW)
+      .build();
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.annotation.Nullable;
+import javax.lang.model.element.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates the {@code FieldSet} of a dto, which selects a subset of the exported fields as bit mask
+ * of the {@code FIELD_} constants. The field names are resolved once by {@code parse}, mapping and
+ * serialization only test bits afterwards.
+ */
+class FieldSetGenerator {
+
+  static final String CLASS_FIELD_SET = "FieldSet";
+  static final String CONSTANT_ALL_FIELDS = "ALL_FIELDS";
+
+  private static final String CONSTANT_ALL = "ALL";
+
+  private static final String FIELD_MASK = "mask";
+  private static final String FIELD_FIELDS = "fields";
+  private static final String FIELD_NAME = "name";
+  private static final String FIELD_START = "start";
+  private static final String FIELD_END = "end";
+  private static final String FIELD_OTHER = "other";
+
+  private static final String METHOD_OF = "of";
+  private static final String METHOD_PARSE = "parse";
+  private static final String METHOD_FIELD = "field";
+  private static final String METHOD_GET_MASK = "getMask";
+  private static final String METHOD_CONTAINS = "contains";
+
+  static ClassName fieldSetType(ClassName dtoType) {
+    return dtoType.nestedClass(CLASS_FIELD_SET);
+  }
+
+  void append(TypeSpec.Builder builder, ClassName dtoType, List<DtoField> fields) {
+    List<CodeBlock> constants = new ArrayList<>(fields.size());
+    for (DtoField field : fields) {
+      constants.add(CodeBlock.of("$N", field.getConstantName()));
+    }
+
+    builder.addField(FieldSpec.builder(long.class, CONSTANT_ALL_FIELDS)
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+      .initializer(constants.isEmpty() ? CodeBlock.of("0L") : CodeBlock.join(constants, " | "))
+      .build()
+    );
+
+    builder.addType(createFieldSet(fieldSetType(dtoType), fields));
+  }
+
+  private TypeSpec createFieldSet(ClassName fieldSetType, List<DtoField> fields) {
+    return TypeSpec.classBuilder(fieldSetType)
+      .addJavadoc("Selection of exported fields, e.g. parsed from the {@code fields} parameter of a request.\n")
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+      .addField(FieldSpec.builder(fieldSetType, CONSTANT_ALL)
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+        .initializer("new $T($N)", fieldSetType, CONSTANT_ALL_FIELDS)
+        .build()
+      )
+      .addField(long.class, FIELD_MASK, Modifier.PRIVATE, Modifier.FINAL)
+      .addMethod(MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PRIVATE)
+        .addParameter(long.class, FIELD_MASK)
+        .addStatement("this.$N = $N", FIELD_MASK, FIELD_MASK)
+        .build()
+      )
+      .addMethod(MethodSpec.methodBuilder(METHOD_OF)
+        .addJavadoc("Creates a field set from a bit mask of the {@code FIELD_} constants.\n")
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addParameter(long.class, FIELD_MASK)
+        .returns(fieldSetType)
+        .addStatement("return new $T($N & $N)", fieldSetType, FIELD_MASK, CONSTANT_ALL_FIELDS)
+        .build()
+      )
+      .addMethod(parse(fieldSetType))
+      .addMethod(field(fields))
+      .addMethod(MethodSpec.methodBuilder(METHOD_GET_MASK)
+        .addModifiers(Modifier.PUBLIC)
+        .returns(long.class)
+        .addStatement("return $N", FIELD_MASK)
+        .build()
+      )
+      .addMethod(MethodSpec.methodBuilder(METHOD_CONTAINS)
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(long.class, METHOD_FIELD)
+        .returns(boolean.class)
+        .addStatement("return ($N & $N) != 0", FIELD_MASK, METHOD_FIELD)
+        .build()
+      )
+      .addMethod(MethodSpec.methodBuilder("equals")
+        .addAnnotation(Override.class)
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(Object.class, FIELD_OTHER)
+        .returns(boolean.class)
+        .addStatement(
+          "return $N instanceof $T && (($T) $N).$N == $N", FIELD_OTHER, fieldSetType, fieldSetType, FIELD_OTHER, FIELD_MASK, FIELD_MASK
+        )
+        .build()
+      )
+      .addMethod(MethodSpec.methodBuilder("hashCode")
+        .addAnnotation(Override.class)
+        .addModifiers(Modifier.PUBLIC)
+        .returns(int.class)
+        .addStatement("return $T.hashCode($N)", Long.class, FIELD_MASK)
+        .build()
+      )
+      .build();
+  }
+
+  private MethodSpec parse(ClassName fieldSetType) {
+    // the list is split without regular expressions and intermediate arrays
+    return MethodSpec.methodBuilder(METHOD_PARSE)
+      .addJavadoc("Parses a comma separated list of field names, {@code null} or an empty list select all fields.\n")
+      .addJavadoc("\n@throws IllegalArgumentException if a name does not match an exported field\n")
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+      .addParameter(ParameterSpec.builder(String.class, FIELD_FIELDS)
+        .addAnnotation(Nullable.class)
+        .build()
+      )
+      .returns(fieldSetType)
+      .beginControlFlow("if ($N == null || $N.trim().isEmpty())", FIELD_FIELDS, FIELD_FIELDS)
+      .addStatement("return $N", CONSTANT_ALL)
+      .endControlFlow()
+      .addStatement("long $N = 0L", FIELD_MASK)
+      .addStatement("int $N = 0", FIELD_START)
+      .beginControlFlow("while ($N <= $N.length())", FIELD_START, FIELD_FIELDS)
+      .addStatement("int $N = $N.indexOf(',', $N)", FIELD_END, FIELD_FIELDS, FIELD_START)
+      .beginControlFlow("if ($N < 0)", FIELD_END)
+      .addStatement("$N = $N.length()", FIELD_END, FIELD_FIELDS)
+      .endControlFlow()
+      .addStatement("$T $N = $N.substring($N, $N).trim()", String.class, FIELD_NAME, FIELD_FIELDS, FIELD_START, FIELD_END)
+      .beginControlFlow("if (!$N.isEmpty())", FIELD_NAME)
+      .addStatement("$N |= $N($N)", FIELD_MASK, METHOD_FIELD, FIELD_NAME)
+      .endControlFlow()
+      .addStatement("$N = $N + 1", FIELD_START, FIELD_END)
+      .endControlFlow()
+      .addStatement("return new $T($N)", fieldSetType, FIELD_MASK)
+      .build();
+  }
+
+  private MethodSpec field(List<DtoField> fields) {
+    // a string switch compares hash codes first, so the names are resolved without a map lookup
+    MethodSpec.Builder method = MethodSpec.methodBuilder(METHOD_FIELD)
+      .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+      .addParameter(String.class, FIELD_NAME)
+      .returns(long.class)
+      .beginControlFlow("switch ($N)", FIELD_NAME);
+
+    for (DtoField field : fields) {
+      method.addCode("case $S:\n$>", field.getName())
+        .addStatement("return $N", field.getConstantName())
+        .addCode("$<");
+    }
+
+    return method.addCode("default:\n$>")
+      .addStatement("throw new $T($S + $N)", IllegalArgumentException.class, "unknown field ", FIELD_NAME)
+      .addCode("$<")
+      .endControlFlow()
+      .build();
+  }
+}
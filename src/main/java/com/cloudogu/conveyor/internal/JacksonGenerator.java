@@ -0,0 +1,431 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.google.common.base.CaseFormat;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import de.otto.edison.hal.Embedded;
+import de.otto.edison.hal.Links;
+
+import javax.lang.model.element.Modifier;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+class JacksonGenerator {
+
+  private static final String SUFFIX_SERIALIZER = "Serializer";
+  private static final String SUFFIX_UPDATER = "JsonUpdater";
+
+  private static final String FIELD_DTO = "dto";
+  private static final String FIELD_GENERATOR = "generator";
+  private static final String FIELD_PROVIDER = "provider";
+  private static final String FIELD_LINKS = "links";
+  private static final String FIELD_EMBEDDED = "embedded";
+  private static final String FIELD_PARSER = "parser";
+  private static final String FIELD_ENTITY = "entity";
+  private static final String FIELD_TOKEN = "token";
+  private static final String FIELD_NAME = "name";
+  private static final String FIELD_SELECTED = "selected";
+  private static final String FIELD_TEXT = "text";
+  private static final String FIELD_CODEC = "codec";
+
+  private static final String PROPERTY_LINKS = "_links";
+  private static final String PROPERTY_EMBEDDED = "_embedded";
+
+  private static final String CONSTANT_LINKS = "HAL_LINKS";
+  private static final String CONSTANT_EMBEDDED = "HAL_EMBEDDED";
+  private static final String PREFIX_PROPERTY = "PROPERTY_";
+  private static final String PREFIX_TYPE = "TYPE_";
+
+  private static final String METHOD_SERIALIZE = "serialize";
+  private static final String METHOD_GET_LINKS = "getLinks";
+  private static final String METHOD_GET_EMBEDDED = "getEmbedded";
+  private static final String METHOD_UPDATE_FROM_JSON = "updateFromJson";
+  private static final String METHOD_SELECTED_FIELDS = "selectedFields";
+
+  static ClassName serializerType(Model model) {
+    return ClassName.get(model.getPackageName(), model.getSimpleClassName() + SUFFIX_SERIALIZER);
+  }
+
+  JavaFile generate(Model model) {
+    ClassName dtoType = model.getDtoType();
+    ClassName serializerType = serializerType(model);
+
+    TypeSpec.Builder builder = TypeSpec.classBuilder(serializerType.simpleName())
+      .addOriginatingElement(model.getOriginatingElement())
+      .addModifiers(Modifier.PUBLIC)
+      .superclass(ParameterizedTypeName.get(ClassName.get(StdSerializer.class), dtoType))
+      .addMethod(MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PUBLIC)
+        .addStatement("super($T.class)", dtoType)
+        .build()
+      );
+
+    MethodSpec.Builder serialize = MethodSpec.methodBuilder(METHOD_SERIALIZE)
+      .addAnnotation(Override.class)
+      .addModifiers(Modifier.PUBLIC)
+      .addParameter(dtoType, FIELD_DTO)
+      .addParameter(JsonGenerator.class, FIELD_GENERATOR)
+      .addParameter(SerializerProvider.class, FIELD_PROVIDER)
+      .addException(IOException.class)
+      .addStatement("$N.writeStartObject($N)", FIELD_GENERATOR, FIELD_DTO);
+
+    if (model.isHal()) {
+      appendProperty(builder, CONSTANT_LINKS, PROPERTY_LINKS);
+      appendHalProperty(serialize, Links.class, FIELD_LINKS, METHOD_GET_LINKS, CONSTANT_LINKS);
+    }
+
+    if (model.isFieldSets()) {
+      serialize.addStatement("long $N = $N.$N()", FIELD_SELECTED, FIELD_DTO, METHOD_SELECTED_FIELDS);
+    }
+
+    for (DtoField field : model.getExportedFields()) {
+      appendProperty(builder, constantName(field), field.getName());
+      if (model.isFieldSets()) {
+        // fields which are not selected are skipped without calling their getter
+        serialize.beginControlFlow("if (($N & $T.$N) != 0)", FIELD_SELECTED, dtoType, field.getConstantName());
+        appendField(serialize, field);
+        serialize.endControlFlow();
+      } else {
+        appendField(serialize, field);
+      }
+    }
+
+    if (model.isHal()) {
+      appendProperty(builder, CONSTANT_EMBEDDED, PROPERTY_EMBEDDED);
+      appendHalProperty(serialize, Embedded.class, FIELD_EMBEDDED, METHOD_GET_EMBEDDED, CONSTANT_EMBEDDED);
+    }
+
+    serialize.addStatement("$N.writeEndObject()", FIELD_GENERATOR);
+    builder.addMethod(serialize.build());
+
+    return JavaFile.builder(model.getPackageName(), builder.build()).build();
+  }
+
+  JavaFile generateUpdater(Model model) {
+    TypeName entityType = model.getEntityType();
+
+    TypeSpec.Builder builder = TypeSpec.classBuilder(model.getSimpleClassName() + SUFFIX_UPDATER)
+      .addOriginatingElement(model.getOriginatingElement())
+      .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+      .addMethod(MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PRIVATE)
+        .build()
+      );
+
+    builder.addMethod(MethodSpec.methodBuilder(METHOD_UPDATE_FROM_JSON)
+      .addJavadoc("Applies the json object to the entity. Objects and arrays are read by the codec of the parser,\n")
+      .addJavadoc("which is set if the parser is created by an {@code ObjectMapper} or its factory.\n")
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+      .addParameter(JsonParser.class, FIELD_PARSER)
+      .addParameter(entityType, FIELD_ENTITY)
+      .addException(IOException.class)
+      .addStatement("$N($N, $N.getCodec(), $N)", METHOD_UPDATE_FROM_JSON, FIELD_PARSER, FIELD_PARSER, FIELD_ENTITY)
+      .build()
+    );
+
+    MethodSpec.Builder method = MethodSpec.methodBuilder(METHOD_UPDATE_FROM_JSON)
+      .addJavadoc("Applies the json object to the entity. Objects and arrays are read by the given codec,\n")
+      .addJavadoc("e.g. an {@code ObjectMapper}, which is required if the parser has no codec.\n")
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+      .addParameter(JsonParser.class, FIELD_PARSER)
+      .addParameter(ObjectCodec.class, FIELD_CODEC)
+      .addParameter(entityType, FIELD_ENTITY)
+      .addException(IOException.class)
+      .addStatement("$T $N = $N.getCurrentToken()", JsonToken.class, FIELD_TOKEN, FIELD_PARSER)
+      .beginControlFlow("if ($N == null)", FIELD_TOKEN)
+      .addStatement("$N = $N.nextToken()", FIELD_TOKEN, FIELD_PARSER)
+      .endControlFlow()
+      .beginControlFlow("if ($N != $T.START_OBJECT)", FIELD_TOKEN, JsonToken.class)
+      .addStatement("throw new $T($N, $S)", JsonParseException.class, FIELD_PARSER, "expected start of object")
+      .endControlFlow()
+      .beginControlFlow("while ($N.nextToken() == $T.FIELD_NAME)", FIELD_PARSER, JsonToken.class)
+      .addStatement("$T $N = $N.getCurrentName()", String.class, FIELD_NAME, FIELD_PARSER)
+      .addStatement("$N = $N.nextToken()", FIELD_TOKEN, FIELD_PARSER)
+      .beginControlFlow("switch ($N)", FIELD_NAME);
+
+    Set<Helper> helpers = EnumSet.noneOf(Helper.class);
+    for (DtoField field : model.getExportedFields()) {
+      if (field.isUpdatable()) {
+        method.addCode("case $S:\n", field.getName()).addCode("$>");
+        appendRead(builder, method, field, field.getSetter().get(), helpers);
+        method.addStatement("break").addCode("$<");
+      }
+    }
+
+    // read-only, nested and unknown properties are skipped without buffering
+    method.addCode("default:\n$>")
+      .addStatement("$N.skipChildren()", FIELD_PARSER)
+      .addCode("$<")
+      .endControlFlow()
+      .endControlFlow();
+
+    builder.addMethod(method.build());
+    for (Helper helper : helpers) {
+      builder.addMethod(helper.create());
+    }
+
+    return JavaFile.builder(model.getPackageName(), builder.build()).build();
+  }
+
+  private void appendRead(TypeSpec.Builder builder, MethodSpec.Builder method, DtoField field, String setter, Set<Helper> helpers) {
+    TypeName type = field.getType();
+
+    // objects and arrays are rejected, otherwise the loop would read their properties as properties of the entity
+    if (type.isPrimitive()) {
+      helpers.add(Helper.REQUIRE_SCALAR);
+      method.addStatement("$N($N)", Helper.REQUIRE_SCALAR.method, FIELD_PARSER);
+      method.addStatement("$N.$N($L)", FIELD_ENTITY, setter, readValue(type, helpers));
+    } else if (type.isBoxedPrimitive()) {
+      helpers.add(Helper.REQUIRE_SCALAR);
+      method.addStatement("$N($N)", Helper.REQUIRE_SCALAR.method, FIELD_PARSER);
+      method.addStatement(
+        "$N.$N($N == $T.VALUE_NULL ? null : $L)",
+        FIELD_ENTITY, setter, FIELD_TOKEN, JsonToken.class, readValue(type.unbox(), helpers)
+      );
+    } else if (type.equals(ClassName.get(String.class))) {
+      helpers.add(Helper.READ_STRING);
+      method.addStatement("$N.$N($N($N))", FIELD_ENTITY, setter, Helper.READ_STRING.method, FIELD_PARSER);
+    } else if (type instanceof ParameterizedTypeName) {
+      String constant = PREFIX_TYPE + CaseFormat.LOWER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, field.getName());
+      TypeName referenceType = ParameterizedTypeName.get(ClassName.get(TypeReference.class), type);
+      builder.addField(FieldSpec.builder(referenceType, constant)
+        .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+        .initializer("new $T() {}", referenceType)
+        .build()
+      );
+      helpers.add(Helper.REQUIRE_CODEC);
+      method.addStatement(
+        "$N.$N($N($N, $N).readValue($N, $N))",
+        FIELD_ENTITY, setter, Helper.REQUIRE_CODEC.method, FIELD_PARSER, FIELD_CODEC, FIELD_PARSER, constant
+      );
+    } else {
+      helpers.add(Helper.REQUIRE_CODEC);
+      method.addStatement(
+        "$N.$N($N($N, $N).readValue($N, $T.class))",
+        FIELD_ENTITY, setter, Helper.REQUIRE_CODEC.method, FIELD_PARSER, FIELD_CODEC, FIELD_PARSER, type
+      );
+    }
+  }
+
+  private CodeBlock readValue(TypeName primitive, Set<Helper> helpers) {
+    if (primitive.equals(TypeName.BOOLEAN)) {
+      return CodeBlock.of("$N.getBooleanValue()", FIELD_PARSER);
+    } else if (primitive.equals(TypeName.CHAR)) {
+      helpers.add(Helper.READ_CHAR);
+      return CodeBlock.of("$N($N)", Helper.READ_CHAR.method, FIELD_PARSER);
+    } else if (primitive.equals(TypeName.BYTE)) {
+      return CodeBlock.of("$N.getByteValue()", FIELD_PARSER);
+    } else if (primitive.equals(TypeName.SHORT)) {
+      return CodeBlock.of("$N.getShortValue()", FIELD_PARSER);
+    } else if (primitive.equals(TypeName.LONG)) {
+      return CodeBlock.of("$N.getLongValue()", FIELD_PARSER);
+    } else if (primitive.equals(TypeName.FLOAT)) {
+      return CodeBlock.of("$N.getFloatValue()", FIELD_PARSER);
+    } else if (primitive.equals(TypeName.DOUBLE)) {
+      return CodeBlock.of("$N.getDoubleValue()", FIELD_PARSER);
+    }
+    return CodeBlock.of("$N.getIntValue()", FIELD_PARSER);
+  }
+
+  JavaFile generateModule(String qualifiedClassName, List<Model> models) {
+    ClassName moduleType = ClassName.bestGuess(qualifiedClassName);
+
+    MethodSpec.Builder constructor = MethodSpec.constructorBuilder()
+      .addModifiers(Modifier.PUBLIC)
+      .addStatement("super($S)", moduleType.simpleName());
+
+    TypeSpec.Builder builder = TypeSpec.classBuilder(moduleType.simpleName())
+      .addModifiers(Modifier.PUBLIC)
+      .superclass(SimpleModule.class);
+
+    for (Model model : models) {
+      constructor.addStatement("addSerializer($T.class, new $T())", model.getDtoType(), serializerType(model));
+      builder.addOriginatingElement(model.getOriginatingElement());
+    }
+
+    builder.addMethod(constructor.build());
+
+    return JavaFile.builder(moduleType.packageName(), builder.build()).build();
+  }
+
+  private void appendProperty(TypeSpec.Builder builder, String constant, String name) {
+    builder.addField(FieldSpec.builder(SerializableString.class, constant)
+      .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+      .initializer("new $T($S)", SerializedString.class, name)
+      .build()
+    );
+  }
+
+  private String constantName(DtoField field) {
+    return PREFIX_PROPERTY + CaseFormat.LOWER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, field.getName());
+  }
+
+  private void appendHalProperty(MethodSpec.Builder method, Class<?> type, String variable, String getter, String constant) {
+    method.addStatement("$T $N = $N.$N()", type, variable, FIELD_DTO, getter)
+      .beginControlFlow("if ($N != null && !$N.isEmpty())", variable, variable)
+      .addStatement("$N.writeFieldName($N)", FIELD_GENERATOR, constant)
+      .addStatement("$N.defaultSerializeValue($N, $N)", FIELD_PROVIDER, variable, FIELD_GENERATOR)
+      .endControlFlow();
+  }
+
+  private void appendField(MethodSpec.Builder method, DtoField field) {
+    TypeName type = field.getType();
+    String getter = field.getGetter();
+    String constant = constantName(field);
+
+    if (type.isPrimitive()) {
+      method.addStatement("$N.writeFieldName($N)", FIELD_GENERATOR, constant);
+      method.addStatement(writeValue(type), FIELD_GENERATOR, FIELD_DTO, getter);
+      return;
+    }
+
+    method.beginControlFlow("if ($N.$N() != null)", FIELD_DTO, getter)
+      .addStatement("$N.writeFieldName($N)", FIELD_GENERATOR, constant);
+
+    if (type.isBoxedPrimitive()) {
+      method.addStatement(writeValue(type.unbox()), FIELD_GENERATOR, FIELD_DTO, getter);
+    } else if (type.equals(ClassName.get(String.class))) {
+      method.addStatement("$N.writeString($N.$N())", FIELD_GENERATOR, FIELD_DTO, getter);
+    } else {
+      method.addStatement("$N.defaultSerializeValue($N.$N(), $N)", FIELD_PROVIDER, FIELD_DTO, getter, FIELD_GENERATOR);
+    }
+
+    method.endControlFlow();
+  }
+
+  private String writeValue(TypeName primitive) {
+    if (primitive.equals(TypeName.BOOLEAN)) {
+      return "$N.writeBoolean($N.$N())";
+    } else if (primitive.equals(TypeName.CHAR)) {
+      return "$N.writeString(String.valueOf($N.$N()))";
+    }
+    return "$N.writeNumber($N.$N())";
+  }
+
+  /**
+   * Methods of the updater, which validate the current token before its value is read.
+   */
+  private enum Helper {
+    REQUIRE_SCALAR("requireScalar") {
+      @Override
+      MethodSpec create() {
+        return MethodSpec.methodBuilder(method)
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(JsonParser.class, FIELD_PARSER)
+          .addException(IOException.class)
+          .addStatement("$T $N = $N.getCurrentToken()", JsonToken.class, FIELD_TOKEN, FIELD_PARSER)
+          .beginControlFlow("if ($N.isStructStart())", FIELD_TOKEN)
+          .addStatement("throw new $T($N, $S + $N)", JsonParseException.class, FIELD_PARSER, "expected scalar value, but was ", FIELD_TOKEN)
+          .endControlFlow()
+          .build();
+      }
+    },
+    REQUIRE_CODEC("requireCodec") {
+      @Override
+      MethodSpec create() {
+        return MethodSpec.methodBuilder(method)
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(JsonParser.class, FIELD_PARSER)
+          .addParameter(ObjectCodec.class, FIELD_CODEC)
+          .returns(ObjectCodec.class)
+          .beginControlFlow("if ($N == null)", FIELD_CODEC)
+          .addStatement(
+            "throw new $T($S + $N.getCurrentName() + $S)", IllegalStateException.class,
+            "property ", FIELD_PARSER, " requires an ObjectCodec, use a parser of an ObjectMapper or pass the codec"
+          )
+          .endControlFlow()
+          .addStatement("return $N", FIELD_CODEC)
+          .build();
+      }
+    },
+    READ_STRING("readString") {
+      @Override
+      MethodSpec create() {
+        return MethodSpec.methodBuilder(method)
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(JsonParser.class, FIELD_PARSER)
+          .returns(String.class)
+          .addException(IOException.class)
+          .addStatement("$T $N = $N.getCurrentToken()", JsonToken.class, FIELD_TOKEN, FIELD_PARSER)
+          .beginControlFlow("if ($N == $T.VALUE_NULL)", FIELD_TOKEN, JsonToken.class)
+          .addStatement("return null")
+          .endControlFlow()
+          .beginControlFlow("if ($N != $T.VALUE_STRING)", FIELD_TOKEN, JsonToken.class)
+          .addStatement("throw new $T($N, $S + $N)", JsonParseException.class, FIELD_PARSER, "expected string, but was ", FIELD_TOKEN)
+          .endControlFlow()
+          .addStatement("return $N.getText()", FIELD_PARSER)
+          .build();
+      }
+    },
+    READ_CHAR("readChar") {
+      @Override
+      MethodSpec create() {
+        return MethodSpec.methodBuilder(method)
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(JsonParser.class, FIELD_PARSER)
+          .returns(char.class)
+          .addException(IOException.class)
+          .beginControlFlow("if ($N.getCurrentToken() != $T.VALUE_STRING)", FIELD_PARSER, JsonToken.class)
+          .addStatement("throw new $T($N, $S + $N.getCurrentToken())", JsonParseException.class, FIELD_PARSER, "expected string, but was ", FIELD_PARSER)
+          .endControlFlow()
+          .addStatement("$T $N = $N.getText()", String.class, FIELD_TEXT, FIELD_PARSER)
+          .beginControlFlow("if ($N.length() != 1)", FIELD_TEXT)
+          .addStatement("throw new $T($N, $S + $N)", JsonParseException.class, FIELD_PARSER, "expected a single character, but was ", FIELD_TEXT)
+          .endControlFlow()
+          .addStatement("return $N.charAt(0)", FIELD_TEXT)
+          .build();
+      }
+    };
+
+    final String method;
+
+    Helper(String method) {
+      this.method = method;
+    }
+
+    abstract MethodSpec create();
+  }
+}
@@ -24,28 +24,126 @@
 
 package com.cloudogu.conveyor.internal;
 
+import com.cloudogu.conveyor.ExportFormat;
+import com.cloudogu.conveyor.GenerateDto;
 import com.google.auto.common.MoreElements;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.TypeName;
 
+import javax.annotation.Nullable;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * Model of a dto. The model is created on the processor thread and contains everything, which is required to generate
+ * the sources. Only the originating element references the javac model, it must only be used for the {@code Filer}.
+ */
 public class Model {
 
-  private final TypeElement classElement;
+  private final TypeElement originatingElement;
+  private final TypeName entityType;
+  private final boolean publicEntity;
+  private final String packageName;
   private final List<DtoField> exportedFields;
   private final List<ViewModel> views;
   private final String simpleClassName;
+  private final boolean lazyLinks;
+  private final boolean trackChanges;
+  private final boolean viewClasses;
+  private final boolean immutable;
+  private final boolean hal;
+  private final boolean reusable;
+  private final boolean binary;
+  private final List<ExportFormat> exportFormats;
+  private final String exportView;
+  private final boolean fieldSets;
+  private final boolean validation;
+  private final boolean contentHash;
+  private final boolean diff;
+  private final boolean valueMethods;
+  private final CacheModel cache;
 
-  Model(TypeElement classElement, List<DtoField> exportedFields, List<ViewModel> views, String simpleClassName) {
-    this.classElement = classElement;
+  Model(TypeElement classElement, GenerateDto generateDto, List<DtoField> exportedFields, List<ViewModel> views, String simpleClassName,
+        @Nullable CacheModel cache) {
+    this.originatingElement = originatingElement(classElement);
+    this.entityType = TypeName.get(classElement.asType());
+    this.publicEntity = isPublic(classElement);
+    this.packageName = packageName(classElement);
     this.exportedFields = Collections.unmodifiableList(exportedFields);
     this.views = views;
     this.simpleClassName = simpleClassName;
+    this.lazyLinks = generateDto.lazyLinks();
+    this.trackChanges = generateDto.trackChanges();
+    this.viewClasses = generateDto.viewClasses();
+    this.immutable = generateDto.immutable();
+    this.hal = generateDto.hal();
+    this.reusable = generateDto.reusable();
+    this.binary = generateDto.binary();
+    this.exportFormats = ImmutableList.copyOf(generateDto.exportFormats());
+    this.exportView = generateDto.exportView();
+    this.fieldSets = generateDto.fieldSets();
+    this.validation = generateDto.validation();
+    this.contentHash = generateDto.contentHash();
+    this.diff = generateDto.diff();
+    this.valueMethods = generateDto.valueMethods();
+    this.cache = cache;
+  }
+
+  /**
+   * Returns the top level type which contains the annotated class.
+   * Every file which is generated for the model must use it as originating element,
+   * otherwise gradle is not able to track the generated files of an isolating processor.
+   */
+  @SuppressWarnings("UnstableApiUsage")
+  private static TypeElement originatingElement(TypeElement classElement) {
+    Element element = classElement;
+    while (element.getEnclosingElement().getKind() != ElementKind.PACKAGE) {
+      element = element.getEnclosingElement();
+    }
+    return MoreElements.asType(element);
+  }
+
+  private static boolean isPublic(TypeElement classElement) {
+    Element element = classElement;
+    while (element.getKind() != ElementKind.PACKAGE) {
+      if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+        return false;
+      }
+      element = element.getEnclosingElement();
+    }
+    return true;
   }
 
-  public TypeElement getClassElement() {
-    return classElement;
+  @SuppressWarnings("UnstableApiUsage")
+  private static String packageName(TypeElement classElement) {
+    return MoreElements.getPackage(classElement).getQualifiedName().toString();
+  }
+
+  public TypeElement getOriginatingElement() {
+    return originatingElement;
+  }
+
+  public TypeName getEntityType() {
+    return entityType;
+  }
+
+  /**
+   * Returns {@code true} if the entity and all its enclosing classes are public,
+   * so that the entity can be referenced from other packages.
+   */
+  public boolean isPublicEntity() {
+    return publicEntity;
+  }
+
+  public ClassName getDtoType() {
+    return ClassName.get(packageName, simpleClassName);
   }
 
   public List<DtoField> getExportedFields() {
@@ -56,12 +154,85 @@ public class Model {
     return simpleClassName;
   }
 
-  @SuppressWarnings("UnstableApiUsage")
   public String getPackageName() {
-    return MoreElements.asPackage(classElement.getEnclosingElement()).getQualifiedName().toString();
+    return packageName;
   }
 
   public List<ViewModel> getViews() {
     return views;
   }
+
+  public boolean isLazyLinks() {
+    return lazyLinks;
+  }
+
+  public boolean isTrackChanges() {
+    return trackChanges;
+  }
+
+  public boolean isViewClasses() {
+    return viewClasses;
+  }
+
+  public boolean isImmutable() {
+    return immutable;
+  }
+
+  public boolean isHal() {
+    return hal;
+  }
+
+  public boolean isReusable() {
+    return reusable;
+  }
+
+  public boolean isBinary() {
+    return binary;
+  }
+
+  public boolean isFieldSets() {
+    return fieldSets;
+  }
+
+  public boolean isValidation() {
+    return validation;
+  }
+
+  public boolean isContentHash() {
+    return contentHash;
+  }
+
+  public boolean isDiff() {
+    return diff;
+  }
+
+  public boolean isValueMethods() {
+    return valueMethods;
+  }
+
+  /**
+   * Returns the keys of the cache, if a caching mapper is generated.
+   */
+  public Optional<CacheModel> getCache() {
+    return Optional.ofNullable(cache);
+  }
+
+  public List<ExportFormat> getExportFormats() {
+    return exportFormats;
+  }
+
+  /**
+   * Returns the fields, which are written by the export writers.
+   */
+  public List<DtoField> getExportFields() {
+    if (Strings.isNullOrEmpty(exportView)) {
+      return exportedFields;
+    }
+    for (ViewModel view : views) {
+      if (view.getName().equals(exportView)) {
+        return view.getFields();
+      }
+    }
+    throw new IllegalStateException("could not find view " + exportView);
+  }
 }
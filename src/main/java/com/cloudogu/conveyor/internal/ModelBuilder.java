@@ -25,6 +25,10 @@
 package com.cloudogu.conveyor.internal;
 
 import com.cloudogu.conveyor.View;
+import com.cloudogu.conveyor.CacheId;
+import com.cloudogu.conveyor.CacheVersion;
+import com.cloudogu.conveyor.Copy;
+import com.cloudogu.conveyor.CopyStrategy;
 import com.cloudogu.conveyor.Exclude;
 import com.cloudogu.conveyor.GenerateDto;
 import com.cloudogu.conveyor.Include;
@@ -32,7 +36,14 @@ import com.cloudogu.conveyor.Strategy;
 import com.google.auto.common.MoreElements;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.TypeName;
 
+import javax.annotation.Nullable;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
@@ -42,21 +53,53 @@ import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Predicate;
 
 public class ModelBuilder {
 
+  static final int MAX_MASK_FIELDS = Long.SIZE;
+
+  private static final String CONVEYOR_PACKAGE = ClassName.get(GenerateDto.class).packageName();
+
+  private static final Set<String> CONSTRAINT_PACKAGES = ImmutableSet.of(
+    "javax.validation.constraints", "jakarta.validation.constraints"
+  );
+
+  private static final Set<String> ID_ANNOTATIONS = ImmutableSet.of(
+    "javax.persistence.Id", "jakarta.persistence.Id", "org.springframework.data.annotation.Id"
+  );
+
+  private static final Set<String> VERSION_ANNOTATIONS = ImmutableSet.of(
+    "javax.persistence.Version", "jakarta.persistence.Version", "org.springframework.data.annotation.Version"
+  );
+
+  private static final Set<String> NESTABLE_COLLECTIONS = ImmutableSet.of(
+    Collection.class.getName(), List.class.getName(), Set.class.getName()
+  );
+
   private final TypeElement classElement;
   private final GenerateDto generateDto;
 
   private final List<VariableElement> fields = new ArrayList<>();
   private final Map<String, Element> methods = new HashMap<>();
 
+  // the conveyor annotations take precedence over the annotations of jpa or spring data
+  private VariableElement cacheId;
+  private VariableElement cacheVersion;
+  private VariableElement annotatedId;
+  private VariableElement annotatedVersion;
+
+  private int superClassLevels = 0;
+
   public ModelBuilder(TypeElement classElement, GenerateDto generateDto) {
     this.classElement = checkDefaultConstructor(classElement);
     this.generateDto = generateDto;
@@ -91,6 +134,7 @@ public class ModelBuilder {
         TypeElement parent = (TypeElement) e;
 
         collect(parent);
+        superClassLevels++;
         superClass = parent.getSuperclass();
       } else {
         break;
@@ -101,6 +145,9 @@ public class ModelBuilder {
   private void collect(Element element) {
     for (Element e : element.getEnclosedElements()) {
       if (e.getKind() == ElementKind.FIELD) {
+        if (generateDto.cacheSize() > 0) {
+          collectCacheKey((VariableElement) e);
+        }
         Include includeAnnotation = e.getAnnotation(Include.class);
         if (includeAnnotation != null) {
           addField(e);
@@ -116,20 +163,142 @@ public class ModelBuilder {
     }
   }
 
+  private void collectCacheKey(VariableElement field) {
+    if (cacheId == null && field.getAnnotation(CacheId.class) != null) {
+      cacheId = field;
+    }
+    if (cacheVersion == null && field.getAnnotation(CacheVersion.class) != null) {
+      cacheVersion = field;
+    }
+    if (annotatedId == null && hasAnnotation(field, ID_ANNOTATIONS)) {
+      annotatedId = field;
+    }
+    if (annotatedVersion == null && hasAnnotation(field, VERSION_ANNOTATIONS)) {
+      annotatedVersion = field;
+    }
+  }
+
+  @SuppressWarnings("UnstableApiUsage")
+  private boolean hasAnnotation(VariableElement field, Set<String> annotations) {
+    for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+      TypeElement annotationType = MoreElements.asType(mirror.getAnnotationType().asElement());
+      if (annotations.contains(annotationType.getQualifiedName().toString())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private void addField(Element element) {
     fields.add((VariableElement) element);
   }
 
+  public int getSuperClassLevels() {
+    return superClassLevels;
+  }
+
   public Model create() {
-    List<DtoField> exportedFields = fields.stream()
-      .map(this::field)
-      .collect(Collectors.toList());
+    List<DtoField> exportedFields = new ArrayList<>(fields.size());
+    for (VariableElement field : fields) {
+      exportedFields.add(field(exportedFields.size(), field));
+    }
+    if (!generateDto.hal()) {
+      checkCompatible(generateDto.lazyLinks(), "hal = false", "lazyLinks");
+    }
+    if (generateDto.immutable()) {
+      checkCompatible(generateDto.lazyLinks(), "immutable", "lazyLinks");
+      checkCompatible(generateDto.trackChanges(), "immutable", "trackChanges");
+      checkCompatible(generateDto.reusable(), "immutable", "reusable");
+      checkCompatible(generateDto.fieldSets(), "immutable", "fieldSets");
+    }
+    if (generateDto.trackChanges() && exportedFields.size() > MAX_MASK_FIELDS) {
+      throw new TooManyFieldsException(classElement, exportedFields.size(), MAX_MASK_FIELDS, "change tracking");
+    }
+    if (generateDto.fieldSets() && exportedFields.size() > MAX_MASK_FIELDS) {
+      throw new TooManyFieldsException(classElement, exportedFields.size(), MAX_MASK_FIELDS, "field sets");
+    }
+    if (generateDto.diff() && exportedFields.size() > MAX_MASK_FIELDS) {
+      throw new TooManyFieldsException(classElement, exportedFields.size(), MAX_MASK_FIELDS, "diff");
+    }
+    if (generateDto.binary()) {
+      checkSupported(exportedFields, BinaryCodecGenerator::isSupported, "binary encoding");
+    }
+    if (generateDto.contentHash()) {
+      checkSupported(
+        exportedFields, field -> ContentHashGenerator.isSupported(field, fields.get(field.getIndex()).asType()), "content hash"
+      );
+    }
     List<ViewModel> views = createViews(exportedFields);
-    return new Model(classElement, exportedFields, views, className());
+    if (generateDto.exportFormats().length > 0) {
+      checkSupported(exportFields(exportedFields, views), ExportWriterGenerator::isSupported, "export writers");
+    }
+    CacheModel cache = null;
+    if (generateDto.cacheSize() > 0) {
+      checkCompatible(!generateDto.immutable(), "cacheSize", "immutable = false");
+      checkSupported(exportedFields, ModelBuilder::isCacheable, "caching mapper");
+      cache = cache();
+    }
+    return new Model(classElement, generateDto, exportedFields, views, className(), cache);
+  }
+
+  /**
+   * Returns {@code true} if the field can be shared by the cached dto between threads,
+   * which requires immutable nested dtos and immutable copies of collections and maps.
+   */
+  private static boolean isCacheable(DtoField field) {
+    Optional<NestedDto> nested = field.getNested();
+    if (nested.isPresent()) {
+      return nested.get().isImmutable();
+    }
+    return !CollectionCopyGenerator.isCollection(field.getType()) || field.getCopyStrategy() == CopyStrategy.IMMUTABLE_COPY;
+  }
+
+  private CacheModel cache() {
+    VariableElement id = cacheKey(cacheId, annotatedId, "@CacheId or @Id");
+    VariableElement version = cacheKey(cacheVersion, annotatedVersion, "@CacheVersion or @Version");
+    return new CacheModel(
+      generateDto.cacheSize(), TypeName.get(id.asType()), getter(id), TypeName.get(version.asType()), getter(version)
+    );
+  }
+
+  private VariableElement cacheKey(@Nullable VariableElement field, @Nullable VariableElement annotatedField, String annotation) {
+    if (field != null) {
+      return field;
+    }
+    if (annotatedField != null) {
+      return annotatedField;
+    }
+    throw new MissingCacheKeyException(classElement, annotation);
+  }
+
+  private List<DtoField> exportFields(List<DtoField> exportedFields, List<ViewModel> views) {
+    String exportView = generateDto.exportView();
+    if (Strings.isNullOrEmpty(exportView)) {
+      return exportedFields;
+    }
+    return views.stream()
+      .filter(view -> view.getName().equals(exportView))
+      .findFirst()
+      .map(ViewModel::getFields)
+      .orElseThrow(() -> new UnknownViewException(classElement, exportView));
+  }
+
+  private void checkSupported(List<DtoField> exportedFields, Predicate<DtoField> supported, String feature) {
+    for (DtoField field : exportedFields) {
+      if (!supported.test(field)) {
+        throw new UnsupportedTypeException(classElement, field.getName(), field.getType(), feature);
+      }
+    }
+  }
+
+  private void checkCompatible(boolean enabled, String option, String other) {
+    if (enabled) {
+      throw new IncompatibleOptionsException(classElement, option, other);
+    }
   }
 
   private List<ViewModel> createViews(List<DtoField> exportedFields) {
-    Map<String, ViewModel> views = new HashMap<>();
+    Map<String, ViewModel> views = new LinkedHashMap<>();
     for (DtoField exportedField : exportedFields) {
       for (String view : exportedField.getViews()) {
         ViewModel viewModel = views.computeIfAbsent(view, this::createViewModel);
@@ -140,7 +309,7 @@ public class ModelBuilder {
   }
 
   private ViewModel createViewModel(String view) {
-    return new ViewModel(createViewClassName(view));
+    return new ViewModel(view, createViewClassName(view));
   }
 
   private String createViewClassName(String view) {
@@ -149,17 +318,16 @@ public class ModelBuilder {
     return prefix + className;
   }
 
-  private DtoField field(VariableElement field) {
+  private DtoField field(int index, VariableElement field) {
     String name = field.getSimpleName().toString();
     Include includeAnnotation = field.getAnnotation(Include.class);
 
     String capName = name.substring(0, 1).toUpperCase() + name.substring(1);
 
-    String prefix = isBoolean(field) ? "is" : "get";
-    Element getter = findRequiredMethod(prefix + capName);
-    Element setter = null;
+    String getter = getter(field);
+    String setter = null;
     if (includeAnnotation == null || !includeAnnotation.readOnly()) {
-      setter = findRequiredMethod("set" + capName);
+      setter = findRequiredMethod("set" + capName).getSimpleName().toString();
     }
 
     String[] views = new String[0];
@@ -168,7 +336,129 @@ public class ModelBuilder {
       views = viewAnnotation.value();
     }
 
-    return new DtoField(field, views, getter, setter);
+    TypeName type = TypeName.get(field.asType());
+    NestedDto nested = nested(field);
+    return new DtoField(
+      index, name, type, annotations(field), views, getter, setter, nested,
+      constraints(field), copyStrategy(field, type, nested)
+    );
+  }
+
+  private String getter(VariableElement field) {
+    String name = field.getSimpleName().toString();
+    String prefix = isBoolean(field) ? "is" : "get";
+    return findRequiredMethod(prefix + name.substring(0, 1).toUpperCase() + name.substring(1)).getSimpleName().toString();
+  }
+
+  private CopyStrategy copyStrategy(VariableElement field, TypeName type, @Nullable NestedDto nested) {
+    Copy copyAnnotation = field.getAnnotation(Copy.class);
+    CopyStrategy strategy = copyAnnotation != null ? copyAnnotation.value() : defaultCopyStrategy();
+    // nested collections are always created by the mapping, other fields are never copied
+    if (strategy == CopyStrategy.SHARE || nested != null) {
+      return CopyStrategy.SHARE;
+    }
+    if (copyAnnotation == null && !CollectionCopyGenerator.isCollection(type)) {
+      return CopyStrategy.SHARE;
+    }
+    if (!CollectionCopyGenerator.isSupported(type, strategy)) {
+      throw new UnsupportedTypeException(classElement, field.getSimpleName().toString(), type, "copy strategy " + strategy);
+    }
+    return strategy;
+  }
+
+  private CopyStrategy defaultCopyStrategy() {
+    // cached dtos are shared between threads and outlive the transaction, so they must not share the collections of the entity
+    if (generateDto.cacheSize() > 0 && generateDto.copyStrategy() == CopyStrategy.SHARE) {
+      return CopyStrategy.IMMUTABLE_COPY;
+    }
+    return generateDto.copyStrategy();
+  }
+
+  @Nullable
+  @SuppressWarnings("UnstableApiUsage")
+  private NestedDto nested(VariableElement field) {
+    TypeMirror type = field.asType();
+    if (type.getKind() != TypeKind.DECLARED) {
+      return null;
+    }
+
+    DeclaredType declaredType = (DeclaredType) type;
+    TypeElement element = MoreElements.asType(declaredType.asElement());
+    GenerateDto nestedGenerateDto = element.getAnnotation(GenerateDto.class);
+    if (nestedGenerateDto != null) {
+      return new NestedDto(dtoType(element, nestedGenerateDto), TypeName.get(type), null, nestedGenerateDto);
+    }
+
+    if (isNestableCollection(element) && declaredType.getTypeArguments().size() == 1) {
+      TypeMirror elementType = declaredType.getTypeArguments().get(0);
+      if (elementType.getKind() == TypeKind.DECLARED) {
+        TypeElement entityElement = MoreElements.asType(((DeclaredType) elementType).asElement());
+        GenerateDto elementGenerateDto = entityElement.getAnnotation(GenerateDto.class);
+        if (elementGenerateDto != null) {
+          return new NestedDto(
+            dtoType(entityElement, elementGenerateDto), TypeName.get(elementType), ClassName.get(element), elementGenerateDto
+          );
+        }
+      }
+    }
+    return null;
+  }
+
+  private boolean isNestableCollection(TypeElement element) {
+    return NESTABLE_COLLECTIONS.contains(element.getQualifiedName().toString());
+  }
+
+  @SuppressWarnings("UnstableApiUsage")
+  private ClassName dtoType(TypeElement element, GenerateDto generateDto) {
+    String packageName = MoreElements.getPackage(element).getQualifiedName().toString();
+    return ClassName.get(packageName, className(element, generateDto));
+  }
+
+  private List<AnnotationSpec> annotations(VariableElement field) {
+    List<AnnotationSpec> annotations = new ArrayList<>();
+    for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+      if (!isConveyorAnnotation(mirror)) {
+        annotations.add(AnnotationSpec.get(mirror));
+      }
+    }
+    return annotations;
+  }
+
+  @SuppressWarnings("UnstableApiUsage")
+  private List<Constraint> constraints(VariableElement field) {
+    List<Constraint> constraints = new ArrayList<>();
+    for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+      TypeElement annotationType = MoreElements.asType(mirror.getAnnotationType().asElement());
+      String packageName = MoreElements.getPackage(annotationType).getQualifiedName().toString();
+      if (!CONSTRAINT_PACKAGES.contains(packageName)) {
+        continue;
+      }
+
+      // only simple values are copied, so the constraint does not reference the javac model
+      Map<? extends ExecutableElement, ? extends AnnotationValue> values = mirror.getElementValues();
+      Map<String, Object> attributes = new HashMap<>();
+      boolean simple = true;
+      for (ExecutableElement attribute : ElementFilter.methodsIn(annotationType.getEnclosedElements())) {
+        AnnotationValue value = values.containsKey(attribute) ? values.get(attribute) : attribute.getDefaultValue();
+        if (value != null && isSimpleValue(value.getValue())) {
+          attributes.put(attribute.getSimpleName().toString(), value.getValue());
+        } else if (values.containsKey(attribute)) {
+          simple = false;
+        }
+      }
+      constraints.add(new Constraint(ClassName.get(annotationType), attributes, simple));
+    }
+    return constraints;
+  }
+
+  private boolean isSimpleValue(Object value) {
+    return value instanceof String || value instanceof Number || value instanceof Boolean;
+  }
+
+  @SuppressWarnings("UnstableApiUsage")
+  private boolean isConveyorAnnotation(AnnotationMirror mirror) {
+    TypeElement annotationType = MoreElements.asType(mirror.getAnnotationType().asElement());
+    return MoreElements.getPackage(annotationType).getQualifiedName().contentEquals(CONVEYOR_PACKAGE);
   }
 
   private boolean isBoolean(VariableElement field) {
@@ -184,8 +474,12 @@ public class ModelBuilder {
   }
 
   private String className() {
+    return className(classElement, generateDto);
+  }
+
+  private static String className(TypeElement element, GenerateDto generateDto) {
     if (Strings.isNullOrEmpty(generateDto.className())) {
-      return classElement.getSimpleName().toString() + "Dto";
+      return element.getSimpleName().toString() + "Dto";
     }
     return generateDto.className();
   }
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.cloudogu.conveyor.GenerateDto;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Exported field, whose type is another entity with a generated dto or a collection of such entities.
+ */
+class NestedDto {
+
+  private final ClassName dtoType;
+  private final TypeName entityType;
+  private final ClassName collectionType;
+  private final GenerateDto generateDto;
+
+  NestedDto(ClassName dtoType, TypeName entityType, @Nullable ClassName collectionType, GenerateDto generateDto) {
+    this.dtoType = dtoType;
+    this.entityType = entityType;
+    this.collectionType = collectionType;
+    this.generateDto = generateDto;
+  }
+
+  public ClassName getDtoType() {
+    return dtoType;
+  }
+
+  /**
+   * Returns the type of the entity or the element type of the collection.
+   */
+  public TypeName getEntityType() {
+    return entityType;
+  }
+
+  /**
+   * Returns the type of the field in the dto, which is the nested dto or a collection of nested dtos.
+   */
+  public TypeName getFieldType() {
+    if (collectionType == null) {
+      return dtoType;
+    }
+    return ParameterizedTypeName.get(collectionType, dtoType);
+  }
+
+  public boolean isCollection() {
+    return collectionType != null;
+  }
+
+  /**
+   * Returns {@code true} if the nested dtos are collected in a set, which has no defined order.
+   */
+  public boolean isSet() {
+    return ClassName.get(Set.class).equals(collectionType);
+  }
+
+  /**
+   * Returns {@code true} if the nested dto has a binary encoding, which can be written as part of the outer dto.
+   */
+  public boolean isBinary() {
+    return generateDto.binary();
+  }
+
+  /**
+   * Returns {@code true} if the nested dto is immutable, which can not be part of a cycle of the identity context.
+   */
+  public boolean isImmutable() {
+    return generateDto.immutable();
+  }
+
+  /**
+   * Returns {@code true} if the nested dto generates a content hash, which is part of the content hash of the outer dto.
+   */
+  public boolean isContentHash() {
+    return generateDto.contentHash();
+  }
+
+  /**
+   * Returns {@code true} if the nested dto generates value methods, which take the compared dtos of the outer dto.
+   */
+  public boolean isValueMethods() {
+    return generateDto.valueMethods();
+  }
+
+  /**
+   * Returns the class, which is used to collect the nested dtos of a collection.
+   */
+  public ClassName getCollectionImplementation() {
+    if (isSet()) {
+      return ClassName.get(LinkedHashSet.class);
+    }
+    return ClassName.get(ArrayList.class);
+  }
+}
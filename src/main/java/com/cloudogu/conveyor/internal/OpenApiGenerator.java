@@ -0,0 +1,374 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.WildcardTypeName;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Generates the OpenAPI schemas of a dto and its views as resource, so that they can be loaded at runtime without
+ * reflection. The resource contains the schemas keyed by their name, which is the content of
+ * {@code components.schemas}. Nested dtos are referenced by their name. The names are qualified by the package,
+ * because dtos of different packages may have the same simple name.
+ */
+class OpenApiGenerator {
+
+  static final String DIRECTORY = "META-INF/conveyor/openapi/";
+
+  private static final String REFERENCE_PREFIX = "#/components/schemas/";
+
+  private static final String TYPE_OBJECT = "object";
+  private static final String TYPE_ARRAY = "array";
+  private static final String TYPE_STRING = "string";
+  private static final String TYPE_INTEGER = "integer";
+  private static final String TYPE_NUMBER = "number";
+  private static final String TYPE_BOOLEAN = "boolean";
+
+  private static final Map<TypeName, Schema> SIMPLE_TYPES = ImmutableMap.<TypeName, Schema>builder()
+    .put(TypeName.BOOLEAN, new Schema(TYPE_BOOLEAN, null))
+    .put(TypeName.BYTE, new Schema(TYPE_INTEGER, "int32"))
+    .put(TypeName.SHORT, new Schema(TYPE_INTEGER, "int32"))
+    .put(TypeName.INT, new Schema(TYPE_INTEGER, "int32"))
+    .put(TypeName.LONG, new Schema(TYPE_INTEGER, "int64"))
+    .put(TypeName.FLOAT, new Schema(TYPE_NUMBER, "float"))
+    .put(TypeName.DOUBLE, new Schema(TYPE_NUMBER, "double"))
+    .put(TypeName.CHAR, new Schema(TYPE_STRING, null))
+    .put(ClassName.get(String.class), new Schema(TYPE_STRING, null))
+    .put(ClassName.get(BigDecimal.class), new Schema(TYPE_NUMBER, null))
+    .put(ClassName.get(BigInteger.class), new Schema(TYPE_INTEGER, null))
+    .put(ClassName.get(Date.class), new Schema(TYPE_STRING, "date-time"))
+    .put(ClassName.get(Instant.class), new Schema(TYPE_STRING, "date-time"))
+    .put(ClassName.get(OffsetDateTime.class), new Schema(TYPE_STRING, "date-time"))
+    .put(ClassName.get(ZonedDateTime.class), new Schema(TYPE_STRING, "date-time"))
+    .put(ClassName.get(LocalDateTime.class), new Schema(TYPE_STRING, "date-time"))
+    .put(ClassName.get(LocalDate.class), new Schema(TYPE_STRING, "date"))
+    .put(ClassName.get(UUID.class), new Schema(TYPE_STRING, "uuid"))
+    .put(ClassName.get(URI.class), new Schema(TYPE_STRING, "uri"))
+    .build();
+
+  private static final Set<ClassName> COLLECTIONS = ImmutableSet.of(
+    ClassName.get(Collection.class), ClassName.get(List.class), ClassName.get(Set.class), ClassName.get(Iterable.class)
+  );
+
+  private static final Set<String> REQUIRED_CONSTRAINTS = ImmutableSet.of("NotNull", "NotEmpty", "NotBlank");
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  static String resourcePath(Model model) {
+    return DIRECTORY + model.getDtoType().reflectionName() + ".json";
+  }
+
+  ResourceFile generate(Model model) {
+    StringWriter writer = new StringWriter();
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+      generator.useDefaultPrettyPrinter();
+      generator.writeStartObject();
+      writeSchema(generator, schemaName(model.getDtoType()), model.getExportedFields(), model.isHal());
+      for (ViewModel view : model.getViews()) {
+        ClassName viewType = ClassName.get(model.getPackageName(), view.getSimpleClassName());
+        writeSchema(generator, schemaName(viewType), view.getFields(), false);
+      }
+      generator.writeEndObject();
+    } catch (IOException ex) {
+      throw new IllegalStateException("failed to render openapi schema of " + model.getDtoType(), ex);
+    }
+    return new ResourceFile(resourcePath(model), writer.toString(), model.getOriginatingElement());
+  }
+
+  private static String schemaName(ClassName dtoType) {
+    return dtoType.canonicalName();
+  }
+
+  private void writeSchema(JsonGenerator generator, String name, List<DtoField> fields, boolean hal) throws IOException {
+    generator.writeObjectFieldStart(name);
+    generator.writeStringField("type", TYPE_OBJECT);
+    generator.writeObjectFieldStart("properties");
+
+    if (hal) {
+      writeHalProperty(generator, "_links");
+      writeHalProperty(generator, "_embedded");
+    }
+
+    List<String> required = new ArrayList<>();
+    for (DtoField field : fields) {
+      generator.writeObjectFieldStart(field.getName());
+      if (field.getNested().isPresent()) {
+        writeNested(generator, field.getNested().get());
+      } else {
+        String type = writeType(generator, field.getType());
+        writeConstraints(generator, field.getConstraints(), type);
+      }
+      generator.writeEndObject();
+
+      if (field.getConstraints().stream().anyMatch(constraint -> REQUIRED_CONSTRAINTS.contains(constraint.getName()))) {
+        required.add(field.getName());
+      }
+    }
+    generator.writeEndObject();
+
+    if (!required.isEmpty()) {
+      generator.writeArrayFieldStart("required");
+      for (String property : required) {
+        generator.writeString(property);
+      }
+      generator.writeEndArray();
+    }
+
+    generator.writeEndObject();
+  }
+
+  private void writeHalProperty(JsonGenerator generator, String name) throws IOException {
+    generator.writeObjectFieldStart(name);
+    generator.writeStringField("type", TYPE_OBJECT);
+    generator.writeEndObject();
+  }
+
+  private void writeNested(JsonGenerator generator, NestedDto nested) throws IOException {
+    String reference = REFERENCE_PREFIX + schemaName(nested.getDtoType());
+    if (!nested.isCollection()) {
+      generator.writeStringField("$ref", reference);
+      return;
+    }
+    generator.writeStringField("type", TYPE_ARRAY);
+    if (nested.getFieldType() instanceof ParameterizedTypeName && isSet((ParameterizedTypeName) nested.getFieldType())) {
+      generator.writeBooleanField("uniqueItems", true);
+    }
+    generator.writeObjectFieldStart("items");
+    generator.writeStringField("$ref", reference);
+    generator.writeEndObject();
+  }
+
+  /**
+   * Writes the type of the schema and returns it, types without a mapping are written as schema without type,
+   * which allows any value.
+   */
+  @Nullable
+  private String writeType(JsonGenerator generator, TypeName type) throws IOException {
+    TypeName resolved = type.isBoxedPrimitive() ? type.unbox() : type;
+    if (resolved instanceof WildcardTypeName) {
+      resolved = ((WildcardTypeName) resolved).upperBounds.get(0);
+    }
+
+    Schema schema = SIMPLE_TYPES.get(resolved);
+    if (schema != null) {
+      generator.writeStringField("type", schema.type);
+      if (schema.format != null) {
+        generator.writeStringField("format", schema.format);
+      }
+      return schema.type;
+    }
+
+    if (resolved instanceof ArrayTypeName) {
+      TypeName componentType = ((ArrayTypeName) resolved).componentType;
+      if (componentType.equals(TypeName.BYTE)) {
+        // jackson writes byte arrays as base64 string
+        generator.writeStringField("type", TYPE_STRING);
+        generator.writeStringField("format", "byte");
+        return TYPE_STRING;
+      }
+      return writeArray(generator, componentType, false);
+    }
+
+    if (resolved instanceof ParameterizedTypeName) {
+      ParameterizedTypeName parameterized = (ParameterizedTypeName) resolved;
+      if (COLLECTIONS.contains(parameterized.rawType)) {
+        return writeArray(generator, parameterized.typeArguments.get(0), isSet(parameterized));
+      }
+      if (parameterized.rawType.equals(ClassName.get(Map.class))) {
+        generator.writeStringField("type", TYPE_OBJECT);
+        generator.writeObjectFieldStart("additionalProperties");
+        writeType(generator, parameterized.typeArguments.get(1));
+        generator.writeEndObject();
+        return TYPE_OBJECT;
+      }
+    }
+    return null;
+  }
+
+  private String writeArray(JsonGenerator generator, TypeName elementType, boolean unique) throws IOException {
+    generator.writeStringField("type", TYPE_ARRAY);
+    if (unique) {
+      generator.writeBooleanField("uniqueItems", true);
+    }
+    generator.writeObjectFieldStart("items");
+    writeType(generator, elementType);
+    generator.writeEndObject();
+    return TYPE_ARRAY;
+  }
+
+  private boolean isSet(ParameterizedTypeName type) {
+    return type.rawType.equals(ClassName.get(Set.class));
+  }
+
+  private void writeConstraints(JsonGenerator generator, List<Constraint> constraints, @Nullable String type) throws IOException {
+    // the keywords are collected first, because multiple constraints can restrict the same keyword
+    Map<String, Object> keywords = new LinkedHashMap<>();
+    for (Constraint constraint : constraints) {
+      switch (constraint.getName()) {
+        case "NotEmpty":
+        case "NotBlank":
+          putMinimumSize(keywords, type, 1);
+          break;
+        case "Size":
+          putMinimumSize(keywords, type, intValue(constraint, "min", 0));
+          int max = intValue(constraint, "max", Integer.MAX_VALUE);
+          if (max != Integer.MAX_VALUE) {
+            putSize(keywords, type, "max", max);
+          }
+          break;
+        case "Min":
+          constraint.get("value").ifPresent(value -> keywords.put("minimum", value));
+          break;
+        case "Max":
+          constraint.get("value").ifPresent(value -> keywords.put("maximum", value));
+          break;
+        case "DecimalMin":
+          putDecimal(keywords, constraint, "minimum", "exclusiveMinimum");
+          break;
+        case "DecimalMax":
+          putDecimal(keywords, constraint, "maximum", "exclusiveMaximum");
+          break;
+        case "Positive":
+          keywords.put("minimum", 0);
+          keywords.put("exclusiveMinimum", true);
+          break;
+        case "PositiveOrZero":
+          keywords.put("minimum", 0);
+          break;
+        case "Negative":
+          keywords.put("maximum", 0);
+          keywords.put("exclusiveMaximum", true);
+          break;
+        case "NegativeOrZero":
+          keywords.put("maximum", 0);
+          break;
+        case "Pattern":
+          constraint.get("regexp").ifPresent(regexp -> keywords.put("pattern", regexp));
+          break;
+        case "Email":
+          if (TYPE_STRING.equals(type)) {
+            keywords.put("format", "email");
+          }
+          break;
+        default:
+          // constraints without a schema keyword are only validated at runtime
+          break;
+      }
+    }
+
+    for (Map.Entry<String, Object> keyword : keywords.entrySet()) {
+      writeKeyword(generator, keyword.getKey(), keyword.getValue());
+    }
+  }
+
+  private void putMinimumSize(Map<String, Object> keywords, @Nullable String type, int min) {
+    if (min > 0) {
+      putSize(keywords, type, "min", min);
+    }
+  }
+
+  private void putSize(Map<String, Object> keywords, @Nullable String type, String prefix, int size) {
+    String keyword;
+    if (TYPE_STRING.equals(type)) {
+      keyword = prefix + "Length";
+    } else if (TYPE_ARRAY.equals(type)) {
+      keyword = prefix + "Items";
+    } else if (TYPE_OBJECT.equals(type)) {
+      keyword = prefix + "Properties";
+    } else {
+      return;
+    }
+    // the most restrictive size wins, e.g. for @NotEmpty combined with @Size(min = 2)
+    keywords.merge(keyword, size, (a, b) -> "min".equals(prefix)
+      ? Math.max((Integer) a, (Integer) b)
+      : Math.min((Integer) a, (Integer) b)
+    );
+  }
+
+  private void putDecimal(Map<String, Object> keywords, Constraint constraint, String keyword, String exclusiveKeyword) {
+    constraint.get("value").ifPresent(value -> {
+      keywords.put(keyword, new BigDecimal(value.toString()));
+      if (Boolean.FALSE.equals(constraint.get("inclusive").orElse(Boolean.TRUE))) {
+        keywords.put(exclusiveKeyword, true);
+      }
+    });
+  }
+
+  private int intValue(Constraint constraint, String attribute, int defaultValue) {
+    return constraint.get(attribute)
+      .map(value -> ((Number) value).intValue())
+      .orElse(defaultValue);
+  }
+
+  private void writeKeyword(JsonGenerator generator, String keyword, Object value) throws IOException {
+    if (value instanceof Boolean) {
+      generator.writeBooleanField(keyword, (Boolean) value);
+    } else if (value instanceof BigDecimal) {
+      generator.writeNumberField(keyword, (BigDecimal) value);
+    } else if (value instanceof Number) {
+      generator.writeNumberField(keyword, ((Number) value).longValue());
+    } else {
+      generator.writeStringField(keyword, value.toString());
+    }
+  }
+
+  private static final class Schema {
+
+    private final String type;
+    private final String format;
+
+    private Schema(String type, @Nullable String format) {
+      this.type = type;
+      this.format = format;
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.google.common.base.Strings;
+
+import java.util.Map;
+import java.util.Optional;
+
+class Options {
+
+  static final String JACKSON = "conveyor.jackson";
+  static final String JACKSON_MODULE = "conveyor.jackson.module";
+  static final String PARALLEL = "conveyor.parallel";
+  static final String STATS = "conveyor.stats";
+  static final String OPENAPI = "conveyor.openapi";
+  static final String REGISTRY = "conveyor.registry";
+
+  private static final String GRADLE_ISOLATING = "org.gradle.annotation.processing.isolating";
+  private static final String GRADLE_AGGREGATING = "org.gradle.annotation.processing.aggregating";
+
+  private final Map<String, String> options;
+
+  Options(Map<String, String> options) {
+    this.options = options;
+  }
+
+  boolean isJackson() {
+    return isEnabled(JACKSON) || getJacksonModule().isPresent();
+  }
+
+  Optional<String> getJacksonModule() {
+    return get(JACKSON_MODULE);
+  }
+
+  Optional<String> getRegistry() {
+    return get(REGISTRY);
+  }
+
+  boolean isStats() {
+    return isEnabled(STATS);
+  }
+
+  boolean isOpenApi() {
+    return isEnabled(OPENAPI);
+  }
+
+  /**
+   * Returns the number of threads which are used to render the sources of a round.
+   * The option accepts {@code true} to use all available processors or the number of threads.
+   */
+  int getParallelism() {
+    Optional<String> value = get(PARALLEL);
+    if (!value.isPresent() || "false".equalsIgnoreCase(value.get())) {
+      return 1;
+    }
+    if ("true".equalsIgnoreCase(value.get())) {
+      return Runtime.getRuntime().availableProcessors();
+    }
+    try {
+      return Math.max(1, Integer.parseInt(value.get()));
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("option " + PARALLEL + " must be true, false or a number of threads", ex);
+    }
+  }
+
+  /**
+   * Returns the incremental processing type for gradle. The processor is isolating as long as every generated file
+   * belongs to exactly one annotated class. Nested dtos are resolved from the class retained {@code GenerateDto}
+   * of the nested entity, which isolating processors are allowed to read. Options which aggregate all dtos
+   * into a single file switch the processor to aggregating.
+   */
+  String getGradleProcessingType() {
+    if (isAggregating()) {
+      return GRADLE_AGGREGATING;
+    }
+    return GRADLE_ISOLATING;
+  }
+
+  private boolean isAggregating() {
+    return getJacksonModule().isPresent() || getRegistry().isPresent() || isStats();
+  }
+
+  private boolean isEnabled(String key) {
+    return Boolean.parseBoolean(options.get(key));
+  }
+
+  private Optional<String> get(String key) {
+    String value = options.get(key);
+    if (Strings.isNullOrEmpty(value)) {
+      return Optional.empty();
+    }
+    return Optional.of(value.trim());
+  }
+}
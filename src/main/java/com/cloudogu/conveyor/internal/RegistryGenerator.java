@@ -0,0 +1,267 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
+import com.squareup.javapoet.WildcardTypeName;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Generates the registry of all dtos, which finds the mapper of an entity or dto class with a single map lookup
+ * instead of classpath scanning. The registry aggregates the dtos of all rounds.
+ */
+class RegistryGenerator {
+
+  static final String RESOURCE = "META-INF/conveyor/registries";
+
+  private static final String CLASS_MAPPER = "Mapper";
+
+  private static final String CONSTANT_MAPPERS = "MAPPERS";
+  private static final String CONSTANT_ENTITIES = "ENTITIES";
+  private static final String CONSTANT_DTOS = "DTOS";
+
+  private static final String FIELD_MAPPERS = "mappers";
+  private static final String FIELD_MAPPER = "mapper";
+  private static final String FIELD_ENTITIES = "entities";
+  private static final String FIELD_DTOS = "dtos";
+  private static final String FIELD_ENTITY = "entity";
+  private static final String FIELD_ENTITY_TYPE = "entityType";
+  private static final String FIELD_DTO_TYPE = "dtoType";
+  private static final String FIELD_VIEW_TYPES = "viewTypes";
+  private static final String FIELD_FROM = "from";
+
+  private static final String METHOD_FOR_ENTITY = "forEntity";
+  private static final String METHOD_FOR_DTO = "forDto";
+  private static final String METHOD_GET_MAPPERS = "getMappers";
+  private static final String METHOD_GET_ENTITY_TYPE = "getEntityType";
+  private static final String METHOD_GET_DTO_TYPE = "getDtoType";
+  private static final String METHOD_GET_VIEW_TYPES = "getViewTypes";
+  private static final String METHOD_FROM = "from";
+  private static final String METHOD_FROM_ALL = "fromAll";
+
+  private static final TypeVariableName E = TypeVariableName.get("E");
+  private static final TypeVariableName D = TypeVariableName.get("D");
+
+  /**
+   * Returns the dtos, which can be referenced by the registry. Entities which are not public can only be registered,
+   * if the registry is in the same package.
+   */
+  private List<Model> registrable(ClassName registryType, List<Model> models) {
+    List<Model> registrable = new ArrayList<>(models.size());
+    for (Model model : models) {
+      if (model.isPublicEntity() || model.getPackageName().equals(registryType.packageName())) {
+        registrable.add(model);
+      }
+    }
+    return registrable;
+  }
+
+  JavaFile generate(String qualifiedClassName, List<Model> allModels) {
+    ClassName registryType = ClassName.bestGuess(qualifiedClassName);
+    List<Model> models = registrable(registryType, allModels);
+    ClassName mapperType = registryType.nestedClass(CLASS_MAPPER);
+    TypeName anyMapperType = ParameterizedTypeName.get(
+      mapperType, WildcardTypeName.subtypeOf(Object.class), WildcardTypeName.subtypeOf(Object.class)
+    );
+    TypeName anyClassType = ParameterizedTypeName.get(ClassName.get(Class.class), WildcardTypeName.subtypeOf(Object.class));
+    TypeName mapperListType = ParameterizedTypeName.get(ClassName.get(List.class), anyMapperType);
+    TypeName mapperMapType = ParameterizedTypeName.get(ClassName.get(Map.class), anyClassType, anyMapperType);
+
+    TypeSpec.Builder builder = TypeSpec.classBuilder(registryType)
+      .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+      .addField(mapperListType, CONSTANT_MAPPERS, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+      .addField(mapperMapType, CONSTANT_ENTITIES, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+      .addField(mapperMapType, CONSTANT_DTOS, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+      .addMethod(MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PRIVATE)
+        .build()
+      );
+
+    // the maps are sized for all dtos, so they are never resized
+    int capacity = (int) (models.size() / 0.75f) + 1;
+    CodeBlock.Builder initializer = CodeBlock.builder()
+      .addStatement("$T $N = new $T<>($L)", mapperListType, FIELD_MAPPERS, ArrayList.class, models.size());
+    for (Model model : models) {
+      builder.addOriginatingElement(model.getOriginatingElement());
+      initializer.addStatement("$N.add($L)", FIELD_MAPPERS, newMapper(mapperType, model));
+    }
+    initializer
+      .addStatement("$T $N = new $T<>($L)", mapperMapType, FIELD_ENTITIES, HashMap.class, capacity)
+      .addStatement("$T $N = new $T<>($L)", mapperMapType, FIELD_DTOS, HashMap.class, capacity)
+      .beginControlFlow("for ($T $N : $N)", anyMapperType, FIELD_MAPPER, FIELD_MAPPERS)
+      .addStatement("$N.put($N.$N(), $N)", FIELD_ENTITIES, FIELD_MAPPER, METHOD_GET_ENTITY_TYPE, FIELD_MAPPER)
+      .addStatement("$N.put($N.$N(), $N)", FIELD_DTOS, FIELD_MAPPER, METHOD_GET_DTO_TYPE, FIELD_MAPPER)
+      .endControlFlow()
+      .addStatement("$N = $T.unmodifiableList($N)", CONSTANT_MAPPERS, Collections.class, FIELD_MAPPERS)
+      .addStatement("$N = $N", CONSTANT_ENTITIES, FIELD_ENTITIES)
+      .addStatement("$N = $N", CONSTANT_DTOS, FIELD_DTOS);
+    builder.addStaticBlock(initializer.build());
+
+    builder.addMethod(lookup(METHOD_FOR_ENTITY, E, FIELD_ENTITY_TYPE, CONSTANT_ENTITIES,
+      ParameterizedTypeName.get(mapperType, E, WildcardTypeName.subtypeOf(Object.class))
+    ));
+    builder.addMethod(lookup(METHOD_FOR_DTO, D, FIELD_DTO_TYPE, CONSTANT_DTOS,
+      ParameterizedTypeName.get(mapperType, WildcardTypeName.subtypeOf(Object.class), D)
+    ));
+    builder.addMethod(MethodSpec.methodBuilder(METHOD_GET_MAPPERS)
+      .addJavadoc("Returns the mappers of all dtos.\n")
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+      .returns(mapperListType)
+      .addStatement("return $N", CONSTANT_MAPPERS)
+      .build()
+    );
+
+    builder.addType(createMapper(mapperType, anyClassType));
+
+    return JavaFile.builder(registryType.packageName(), builder.build()).build();
+  }
+
+  ResourceFile generateIndex(String qualifiedClassName, List<Model> models) {
+    Element[] originatingElements = models.stream()
+      .map(Model::getOriginatingElement)
+      .toArray(Element[]::new);
+    return new ResourceFile(RESOURCE, qualifiedClassName + "\n", originatingElements);
+  }
+
+  private CodeBlock newMapper(ClassName mapperType, Model model) {
+    List<CodeBlock> viewTypes = new ArrayList<>(model.getViews().size());
+    for (ViewModel view : model.getViews()) {
+      viewTypes.add(CodeBlock.of("$T.class", ClassName.get(model.getPackageName(), view.getSimpleClassName())));
+    }
+    CodeBlock views = viewTypes.isEmpty()
+      ? CodeBlock.of("$T.emptyList()", Collections.class)
+      : CodeBlock.of("$T.unmodifiableList($T.asList($L))", Collections.class, Arrays.class, CodeBlock.join(viewTypes, ", "));
+
+    return CodeBlock.of(
+      "new $T<>($T.class, $T.class, $L, $T::$N)",
+      mapperType, rawType(model.getEntityType()), model.getDtoType(), views, model.getDtoType(), METHOD_FROM
+    );
+  }
+
+  private TypeName rawType(TypeName type) {
+    if (type instanceof ParameterizedTypeName) {
+      return ((ParameterizedTypeName) type).rawType;
+    }
+    return type;
+  }
+
+  private MethodSpec lookup(String name, TypeVariableName typeVariable, String parameter, String constant, TypeName mapperType) {
+    return MethodSpec.methodBuilder(name)
+      .addJavadoc("Returns the mapper for the given class or an empty optional, if no dto is registered.\n")
+      .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
+        .addMember("value", "$S", "unchecked")
+        .build()
+      )
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+      .addTypeVariable(typeVariable)
+      .addParameter(ParameterizedTypeName.get(ClassName.get(Class.class), typeVariable), parameter)
+      .returns(ParameterizedTypeName.get(ClassName.get(Optional.class), mapperType))
+      .addStatement("return $T.ofNullable(($T) $N.get($N))", Optional.class, mapperType, constant, parameter)
+      .build();
+  }
+
+  private TypeSpec createMapper(ClassName mapperType, TypeName anyClassType) {
+    TypeName entityClassType = ParameterizedTypeName.get(ClassName.get(Class.class), E);
+    TypeName dtoClassType = ParameterizedTypeName.get(ClassName.get(Class.class), D);
+    TypeName viewTypesType = ParameterizedTypeName.get(ClassName.get(List.class), anyClassType);
+    TypeName functionType = ParameterizedTypeName.get(
+      ClassName.get(Function.class), WildcardTypeName.supertypeOf(E), WildcardTypeName.subtypeOf(D)
+    );
+    TypeName entitiesType = ParameterizedTypeName.get(ClassName.get(Collection.class), WildcardTypeName.subtypeOf(E));
+    TypeName dtosType = ParameterizedTypeName.get(ClassName.get(List.class), D);
+
+    return TypeSpec.classBuilder(mapperType)
+      .addJavadoc("Maps entities of one type to their generated dto.\n")
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+      .addTypeVariable(E)
+      .addTypeVariable(D)
+      .addField(entityClassType, FIELD_ENTITY_TYPE, Modifier.PRIVATE, Modifier.FINAL)
+      .addField(dtoClassType, FIELD_DTO_TYPE, Modifier.PRIVATE, Modifier.FINAL)
+      .addField(viewTypesType, FIELD_VIEW_TYPES, Modifier.PRIVATE, Modifier.FINAL)
+      .addField(FieldSpec.builder(functionType, FIELD_FROM, Modifier.PRIVATE, Modifier.FINAL).build())
+      .addMethod(MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PRIVATE)
+        .addParameter(entityClassType, FIELD_ENTITY_TYPE)
+        .addParameter(dtoClassType, FIELD_DTO_TYPE)
+        .addParameter(viewTypesType, FIELD_VIEW_TYPES)
+        .addParameter(functionType, FIELD_FROM)
+        .addStatement("this.$N = $N", FIELD_ENTITY_TYPE, FIELD_ENTITY_TYPE)
+        .addStatement("this.$N = $N", FIELD_DTO_TYPE, FIELD_DTO_TYPE)
+        .addStatement("this.$N = $N", FIELD_VIEW_TYPES, FIELD_VIEW_TYPES)
+        .addStatement("this.$N = $N", FIELD_FROM, FIELD_FROM)
+        .build()
+      )
+      .addMethod(getter(METHOD_GET_ENTITY_TYPE, entityClassType, FIELD_ENTITY_TYPE))
+      .addMethod(getter(METHOD_GET_DTO_TYPE, dtoClassType, FIELD_DTO_TYPE))
+      .addMethod(getter(METHOD_GET_VIEW_TYPES, viewTypesType, FIELD_VIEW_TYPES))
+      .addMethod(MethodSpec.methodBuilder(METHOD_FROM)
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(E, FIELD_ENTITY)
+        .returns(D)
+        .addStatement("return $N.apply($N)", FIELD_FROM, FIELD_ENTITY)
+        .build()
+      )
+      .addMethod(MethodSpec.methodBuilder(METHOD_FROM_ALL)
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(entitiesType, FIELD_ENTITIES)
+        .returns(dtosType)
+        .addStatement("$T $N = new $T<>($N.size())", dtosType, FIELD_DTOS, ArrayList.class, FIELD_ENTITIES)
+        .beginControlFlow("for ($T $N : $N)", E, FIELD_ENTITY, FIELD_ENTITIES)
+        .addStatement("$N.add($N.apply($N))", FIELD_DTOS, FIELD_FROM, FIELD_ENTITY)
+        .endControlFlow()
+        .addStatement("return $N", FIELD_DTOS)
+        .build()
+      )
+      .build();
+  }
+
+  private MethodSpec getter(String name, TypeName type, String field) {
+    return MethodSpec.methodBuilder(name)
+      .addModifiers(Modifier.PUBLIC)
+      .returns(type)
+      .addStatement("return $N", field)
+      .build();
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Rendered resource, which is written to the class output, e.g. an OpenAPI schema of a dto.
+ */
+class ResourceFile implements GeneratedFile {
+
+  private final String path;
+  private final Element[] originatingElements;
+  private final String content;
+
+  ResourceFile(String path, String content, Element... originatingElements) {
+    this.path = path;
+    this.originatingElements = originatingElements;
+    this.content = content;
+  }
+
+  @Override
+  public String getName() {
+    return path;
+  }
+
+  @Override
+  public void write(Filer filer) throws IOException {
+    FileObject resource = filer.createResource(StandardLocation.CLASS_OUTPUT, "", path, originatingElements);
+    try (Writer writer = resource.openWriter()) {
+      writer.write(content);
+    }
+  }
+}
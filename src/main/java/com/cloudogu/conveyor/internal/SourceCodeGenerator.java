@@ -24,31 +24,37 @@
 
 package com.cloudogu.conveyor.internal;
 
-import com.cloudogu.conveyor.View;
-import com.cloudogu.conveyor.Include;
-import com.google.auto.common.MoreElements;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
 import de.otto.edison.hal.Embedded;
 import de.otto.edison.hal.HalRepresentation;
 import de.otto.edison.hal.Links;
 
 import javax.annotation.Nullable;
-import javax.annotation.processing.Filer;
-import javax.lang.model.element.AnnotationMirror;
-import javax.lang.model.element.Element;
 import javax.lang.model.element.Modifier;
-import javax.lang.model.element.TypeElement;
-import javax.tools.JavaFileObject;
-import java.io.IOException;
-import java.io.Writer;
-import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 class SourceCodeGenerator {
 
@@ -56,86 +62,235 @@ class SourceCodeGenerator {
   private static final String FIELD_EMBEDDED = "embedded";
 
   private static final String FIELD_ENTITY = "entity";
+  private static final String FIELD_ENTITIES = "entities";
   private static final String FIELD_DTO = "dto";
+  private static final String FIELD_DTOS = "dtos";
+  private static final String FIELD_CONTEXT = "context";
+  private static final String FIELD_MAPPED = "mapped";
+
+  private static final String FIELD_LINKS_SUPPLIER = "linksSupplier";
+  private static final String FIELD_EMBEDDED_SUPPLIER = "embeddedSupplier";
+  private static final String FIELD_CURRENT_LINKS = "currentLinks";
+  private static final String FIELD_CURRENT_EMBEDDED = "currentEmbedded";
+  private static final String FIELD_CHANGED_FIELDS = "changedFields";
+  private static final String FIELD_SELECTED_FIELDS = "selectedFields";
+  private static final String FIELD_FIELD_SET = "fieldSet";
 
   private static final String METHOD_FROM = "from";
+  private static final String METHOD_FROM_ALL = "fromAll";
+  private static final String METHOD_FROM_FIELDS = "fromFields";
+  private static final String METHOD_FROM_ALL_FIELDS = "fromAllFields";
+  private static final String METHOD_FROM_STREAM = "fromStream";
+  private static final String METHOD_FROM_LAZY = "fromLazy";
+  private static final String METHOD_MAP = "map";
+  private static final String METHOD_FILL_FROM = "fillFrom";
+  private static final String METHOD_FROM_INTO = "fromInto";
+  private static final String METHOD_GET_LINKS = "getLinks";
+  private static final String METHOD_GET_EMBEDDED = "getEmbedded";
   private static final String METHOD_UPDATE = "update";
   private static final String METHOD_TO_ENTITY = "toEntity";
+  private static final String METHOD_CHANGED_FIELDS = "changedFields";
+  private static final String METHOD_SELECTED_FIELDS = "selectedFields";
+  private static final String METHOD_GET_MASK = "getMask";
+
+  private static final String PREFIX_MAP = "map";
+  private static final String PREFIX_WITH = "with";
+
+  private static final String PROPERTY_LINKS = "_links";
+  private static final String PROPERTY_EMBEDDED = "_embedded";
 
   private static final String NULL = "null";
 
-  private final Filer filer;
+  private final BinaryCodecGenerator binaryCodecGenerator = new BinaryCodecGenerator();
+  private final FieldSetGenerator fieldSetGenerator = new FieldSetGenerator();
+  private final ValidationGenerator validationGenerator = new ValidationGenerator();
+  private final CollectionCopyGenerator collectionCopyGenerator = new CollectionCopyGenerator();
+  private final ContentHashGenerator contentHashGenerator = new ContentHashGenerator();
+  private final DiffGenerator diffGenerator = new DiffGenerator();
+  private final ValueMethodsGenerator valueMethodsGenerator = new ValueMethodsGenerator();
 
-  public SourceCodeGenerator(Filer filer) {
-    this.filer = filer;
-  }
+  List<JavaFile> generate(Model model) {
+    List<JavaFile> files = new ArrayList<>();
+    Target target = Target.dto(model);
 
-  void generate(Model model) throws IOException {
-    TypeSpec.Builder builder = TypeSpec.classBuilder(model.getSimpleClassName())
-      .superclass(HalRepresentation.class)
-      .addModifiers(Modifier.PUBLIC)
-      .addMethod(MethodSpec.constructorBuilder()
-        .addModifiers(Modifier.PRIVATE)
-        .addParameter(ParameterSpec.builder(Links.class, FIELD_LINKS)
-          .addAnnotation(Nullable.class)
-          .build()
-        )
-        .addParameter(ParameterSpec.builder(Embedded.class, FIELD_EMBEDDED)
-          .addAnnotation(Nullable.class)
-          .build()
-        )
-        .addStatement("super($N, $N)", FIELD_LINKS, FIELD_EMBEDDED)
-        .build()
-      )
-      .addMethod(MethodSpec.constructorBuilder()
-        .build()
-      );
+    TypeSpec.Builder builder = classBuilder(model, target);
+
+    appendConstructors(builder, target);
 
     for (ViewModel view : model.getViews()) {
-      createInterface(model, view);
+      files.add(createInterface(model, view));
       builder.addSuperinterface(ClassName.get(model.getPackageName(), view.getSimpleClassName()));
+      if (model.isViewClasses()) {
+        files.add(createViewClass(model, view));
+      }
+    }
+
+    if (model.isTrackChanges() || model.isFieldSets() || model.isDiff()) {
+      appendFieldConstants(model, builder);
+    }
+    if (model.isTrackChanges()) {
+      appendChangeTracking(builder);
+    }
+    if (model.isFieldSets()) {
+      appendFieldSelection(model, builder);
     }
 
     for (DtoField exportedField : model.getExportedFields()) {
-      appendField(builder, exportedField);
+      appendField(builder, target, exportedField);
     }
+    collectionCopyGenerator.append(builder, target.fields);
 
-    appendFrom(model, builder);
-    appendUpdate(model, builder);
+    appendFrom(builder, target);
+    appendFromAll(builder, target);
+    appendFromStream(builder, target);
+    appendMap(builder, target);
+    if (model.isFieldSets()) {
+      appendFromFieldSet(builder, target);
+    }
+    if (model.isLazyLinks()) {
+      appendLazyLinks(model, builder);
+    }
+    if (model.isHal() && (model.isLazyLinks() || model.isReusable())) {
+      appendLinkOverrides(model, builder);
+    }
+    if (model.isReusable()) {
+      appendFillFrom(model, builder, target);
+    }
+    appendUpdate(builder, target);
     appendToEntity(model, builder);
+    if (model.isBinary()) {
+      binaryCodecGenerator.append(builder, target.dtoType, target.fields, target.immutable, target.hal);
+    }
+    if (model.isValidation()) {
+      validationGenerator.append(builder, target.dtoType, target.fields);
+    }
+    if (model.isContentHash()) {
+      contentHashGenerator.append(builder, target.fields, model.getViews());
+    }
+    if (model.isDiff()) {
+      diffGenerator.append(builder, target.entityType, target.fields, model.getDtoType(), updateMask(target));
+    }
+    if (model.isValueMethods()) {
+      valueMethodsGenerator.append(builder, target.dtoType, target.fields, target.immutable);
+    }
 
-    write(model, builder.build());
+    files.add(0, JavaFile.builder(model.getPackageName(), builder.build()).build());
+    return files;
   }
 
-  private void createInterface(Model model, ViewModel view) throws IOException {
+  private JavaFile createInterface(Model model, ViewModel view) {
     TypeSpec.Builder builder = TypeSpec.interfaceBuilder(view.getSimpleClassName())
+      .addOriginatingElement(model.getOriginatingElement())
       .addModifiers(Modifier.PUBLIC);
 
     for (DtoField field : view.getFields()) {
       builder.addMethod(
-        MethodSpec.methodBuilder(field.getGetter().getSimpleName().toString())
+        MethodSpec.methodBuilder(field.getGetter())
           .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
-          .returns(TypeName.get(field.getType()))
+          .returns(field.getType())
           .build()
       );
     }
 
-    write(model, builder.build());
+    return JavaFile.builder(model.getPackageName(), builder.build()).build();
+  }
+
+  private JavaFile createViewClass(Model model, ViewModel view) {
+    Target target = Target.view(model, view);
+
+    TypeSpec.Builder builder = classBuilder(model, target)
+      .addSuperinterface(ClassName.get(model.getPackageName(), view.getSimpleClassName()));
+
+    appendConstructors(builder, target);
+
+    for (DtoField field : view.getFields()) {
+      appendField(builder, target, field);
+    }
+    collectionCopyGenerator.append(builder, target.fields);
+
+    appendFrom(builder, target);
+    appendFromAll(builder, target);
+    appendUpdate(builder, target);
+    if (model.isBinary()) {
+      binaryCodecGenerator.append(builder, target.dtoType, target.fields, target.immutable, target.hal);
+    }
+    if (model.isContentHash()) {
+      contentHashGenerator.append(builder, target.fields, Collections.emptyList());
+    }
+    if (model.isDiff()) {
+      diffGenerator.append(builder, target.entityType, target.fields, model.getDtoType(), updateMask(target));
+    }
+    if (model.isValueMethods()) {
+      valueMethodsGenerator.append(builder, target.dtoType, target.fields, target.immutable);
+    }
+
+    return JavaFile.builder(model.getPackageName(), builder.build()).build();
   }
 
-  private void write(Model model, TypeSpec typeSpec) throws IOException {
-    JavaFile javaFile = JavaFile.builder(model.getPackageName(), typeSpec).build();
+  private TypeSpec.Builder classBuilder(Model model, Target target) {
+    TypeSpec.Builder builder = TypeSpec.classBuilder(target.dtoType)
+      .addOriginatingElement(model.getOriginatingElement())
+      .addModifiers(Modifier.PUBLIC);
+    if (target.hal) {
+      builder.superclass(HalRepresentation.class);
+    }
+    return builder;
+  }
 
-    String className = model.getPackageName() + "." + typeSpec.name;
+  private void appendConstructors(TypeSpec.Builder builder, Target target) {
+    MethodSpec.Builder constructor = MethodSpec.constructorBuilder()
+      .addModifiers(Modifier.PRIVATE);
 
-    JavaFileObject jfo = filer.createSourceFile(className, model.getClassElement());
-    try (Writer writer = jfo.openWriter()) {
-      javaFile.writeTo(writer);
+    if (target.hal) {
+      constructor.addParameter(halParameter(Links.class, FIELD_LINKS, PROPERTY_LINKS, target.immutable))
+        .addParameter(halParameter(Embedded.class, FIELD_EMBEDDED, PROPERTY_EMBEDDED, target.immutable))
+        .addStatement("super($N, $N)", FIELD_LINKS, FIELD_EMBEDDED);
+    }
+
+    if (target.immutable) {
+      // immutable dtos are created only by the all-args constructor, which publishes the final fields safely,
+      // jackson uses it as creator, because there are no setters
+      constructor.addAnnotation(JsonCreator.class);
+      for (DtoField field : target.fields) {
+        constructor.addParameter(ParameterSpec.builder(field.getType(), field.getName())
+            .addAnnotation(jsonProperty(field.getName()))
+            .build()
+          )
+          .addStatement("this.$N = $N", field.getName(), field.getName());
+      }
+      builder.addMethod(constructor.build());
+      return;
     }
+
+    if (target.hal) {
+      builder.addMethod(constructor.build());
+    }
+
+    // reusable dtos are created by the caller, before they are filled
+    MethodSpec.Builder defaultConstructor = MethodSpec.constructorBuilder();
+    if (target.reusable) {
+      defaultConstructor.addModifiers(Modifier.PUBLIC);
+    }
+    builder.addMethod(defaultConstructor.build());
+  }
+
+  private ParameterSpec halParameter(Class<?> type, String name, String property, boolean creator) {
+    ParameterSpec.Builder parameter = ParameterSpec.builder(type, name)
+      .addAnnotation(Nullable.class);
+    if (creator) {
+      parameter.addAnnotation(jsonProperty(property));
+    }
+    return parameter.build();
+  }
+
+  private AnnotationSpec jsonProperty(String name) {
+    return AnnotationSpec.builder(JsonProperty.class)
+      .addMember("value", "$S", name)
+      .build();
   }
 
   private void appendToEntity(Model model, TypeSpec.Builder builder) {
-    TypeName entityType = TypeName.get(model.getClassElement().asType());
+    TypeName entityType = model.getEntityType();
 
     MethodSpec.Builder method = MethodSpec.methodBuilder(METHOD_TO_ENTITY)
       .addModifiers(Modifier.PUBLIC)
@@ -151,115 +306,773 @@ class SourceCodeGenerator {
     builder.addMethod(method.build());
   }
 
-  private void appendUpdate(Model model, TypeSpec.Builder builder) {
-    TypeName entityType = TypeName.get(model.getClassElement().asType());
-
+  private void appendUpdate(TypeSpec.Builder builder, Target target) {
     MethodSpec.Builder updateMethod = MethodSpec.methodBuilder(METHOD_UPDATE)
       .addModifiers(Modifier.PUBLIC)
-      .addParameter(entityType, FIELD_ENTITY);
+      .addParameter(target.entityType, FIELD_ENTITY);
 
-    for (DtoField field : model.getExportedFields()) {
-      field.getSetter().ifPresent(element -> updateMethod.addStatement(
-        "$N.$N(this.$N)",
-        FIELD_ENTITY, element.getSimpleName(), field.getName()
-      ));
+    String mask = updateMask(target);
+
+    // nested dtos can not be converted back to entities, so they are not updated
+    for (DtoField field : target.fields) {
+      if (!field.isUpdatable()) {
+        continue;
+      }
+      if (mask != null) {
+        updateMethod.beginControlFlow("if (($N & $N) != 0)", mask, field.getConstantName());
+      }
+      updateMethod.addStatement(
+        "$N.$N($L)", FIELD_ENTITY, field.getSetter().get(), collectionCopyGenerator.entityValue(field, "this." + field.getName())
+      );
+      if (mask != null) {
+        updateMethod.endControlFlow();
+      }
     }
 
     builder.addMethod(updateMethod.build());
   }
 
-  private void appendFrom(Model model, TypeSpec.Builder builder) {
-    TypeName entityType = TypeName.get(model.getClassElement().asType());
-    ClassName dtoType = ClassName.bestGuess(model.getSimpleClassName());
+  /**
+   * Returns the field with the mask of the fields, which are written by {@code update},
+   * or {@code null} if all fields are written.
+   */
+  @Nullable
+  private String updateMask(Target target) {
+    // setters select their field as well, so changed fields are always selected
+    if (target.trackChanges) {
+      return FIELD_CHANGED_FIELDS;
+    } else if (target.fieldSets) {
+      return FIELD_SELECTED_FIELDS;
+    }
+    return null;
+  }
+
+  private void appendFrom(TypeSpec.Builder builder, Target target) {
+    TypeName entityType = target.entityType;
+    ClassName dtoType = target.dtoType;
+
+    if (target.hal) {
+      builder.addMethod(MethodSpec.methodBuilder(METHOD_FROM)
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addParameter(entityType, FIELD_ENTITY)
+        .returns(dtoType)
+        .addStatement("return from($N, $N, $N)", FIELD_ENTITY, NULL, NULL)
+        .build()
+      );
+
+      builder.addMethod(MethodSpec.methodBuilder(METHOD_FROM)
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addParameter(entityType, FIELD_ENTITY)
+        .addParameter(ParameterSpec.builder(Links.class, FIELD_LINKS)
+          .addAnnotation(Nullable.class)
+          .build()
+        )
+        .returns(dtoType)
+        .addStatement("return from($N, $N, $N)", FIELD_ENTITY, FIELD_LINKS, NULL)
+        .build()
+      );
+    }
 
-    builder.addMethod(MethodSpec.methodBuilder(METHOD_FROM)
+    MethodSpec.Builder method = fromMethod(target)
+      .addModifiers(Modifier.PUBLIC);
+
+    if (target.hasNested()) {
+      method.addStatement(
+        "return $L", fromCall(target, FIELD_ENTITY, FIELD_LINKS, FIELD_EMBEDDED, CodeBlock.of("new $T<>()", IdentityHashMap.class))
+      );
+      builder.addMethod(method.build());
+      appendFromWithContext(builder, target);
+    } else if (target.immutable) {
+      method.addStatement("return $L", newDto(target, FIELD_LINKS, FIELD_EMBEDDED, fieldValues(target)));
+      builder.addMethod(method.build());
+    } else {
+      method.addStatement("$T $N = $L", dtoType, FIELD_DTO, newDto(target, FIELD_LINKS, FIELD_EMBEDDED, Collections.emptyList()));
+      for (DtoField field : target.fields) {
+        method.addStatement("$N.$N = $L", FIELD_DTO, field.getName(), fieldValue(field));
+      }
+      method.addStatement("return $N", FIELD_DTO);
+      builder.addMethod(method.build());
+    }
+  }
+
+  private MethodSpec.Builder fromMethod(Target target) {
+    return fromMethod(target, METHOD_FROM);
+  }
+
+  private MethodSpec.Builder fromMethod(Target target, String name) {
+    MethodSpec.Builder method = MethodSpec.methodBuilder(name)
+      .addModifiers(Modifier.STATIC)
+      .addParameter(target.entityType, FIELD_ENTITY)
+      .returns(target.dtoType);
+
+    if (target.hal) {
+      method.addParameter(ParameterSpec.builder(Links.class, FIELD_LINKS)
+          .addAnnotation(Nullable.class)
+          .build()
+        )
+        .addParameter(ParameterSpec.builder(Embedded.class, FIELD_EMBEDDED)
+          .addAnnotation(Nullable.class)
+          .build()
+        );
+    }
+    return method;
+  }
+
+  /**
+   * Creates the call of the {@code from} method with all arguments, the links and embedded arguments are omitted for
+   * plain dtos.
+   */
+  private CodeBlock fromCall(Target target, String entity, String links, String embedded, @Nullable CodeBlock context) {
+    List<CodeBlock> arguments = new ArrayList<>();
+    arguments.add(CodeBlock.of("$L", entity));
+    arguments.addAll(halArguments(target, links, embedded));
+    if (context != null) {
+      arguments.add(context);
+    }
+    return CodeBlock.of("$N($L)", METHOD_FROM, CodeBlock.join(arguments, ", "));
+  }
+
+  private CodeBlock newDto(Target target, String links, String embedded, List<CodeBlock> fieldArguments) {
+    List<CodeBlock> arguments = new ArrayList<>(halArguments(target, links, embedded));
+    arguments.addAll(fieldArguments);
+    return CodeBlock.of("new $T($L)", target.dtoType, CodeBlock.join(arguments, ", "));
+  }
+
+  private List<CodeBlock> halArguments(Target target, String links, String embedded) {
+    if (!target.hal) {
+      return Collections.emptyList();
+    }
+    return Arrays.asList(CodeBlock.of("$L", links), CodeBlock.of("$L", embedded));
+  }
+
+  private void appendFromWithContext(TypeSpec.Builder builder, Target target) {
+    ClassName dtoType = target.dtoType;
+
+    MethodSpec.Builder method = fromMethod(target)
+      .addModifiers(Modifier.PRIVATE)
+      .addParameter(contextType(), FIELD_CONTEXT);
+
+    // view classes are not registered, because the context must contain only full dtos
+    if (target.immutable) {
+      // the entity is marked as in progress, because an immutable dto can not be referenced before it is created
+      if (target.register) {
+        method.addStatement("$N.put($N, $N)", FIELD_CONTEXT, FIELD_ENTITY, NULL);
+      }
+      method.addStatement("$T $N = $L", dtoType, FIELD_DTO, newDto(target, FIELD_LINKS, FIELD_EMBEDDED, fieldValues(target)));
+      if (target.register) {
+        method.addStatement("$N.put($N, $N)", FIELD_CONTEXT, FIELD_ENTITY, FIELD_DTO);
+      }
+      method.addStatement("return $N", FIELD_DTO);
+    } else {
+      method.addStatement("$T $N = $L", dtoType, FIELD_DTO, newDto(target, FIELD_LINKS, FIELD_EMBEDDED, Collections.emptyList()));
+      // the dto is registered before the fields are mapped, so back references resolve to it
+      if (target.register) {
+        method.addStatement("$N.put($N, $N)", FIELD_CONTEXT, FIELD_ENTITY, FIELD_DTO);
+      }
+      for (DtoField field : target.fields) {
+        method.addStatement("$N.$N = $L", FIELD_DTO, field.getName(), fieldValue(field));
+      }
+      method.addStatement("return $N", FIELD_DTO);
+    }
+
+    builder.addMethod(method.build());
+
+    for (DtoField field : target.fields) {
+      field.getNested()
+        .filter(NestedDto::isCollection)
+        .ifPresent(nested -> appendMapCollection(builder, field, nested));
+    }
+  }
+
+  private List<CodeBlock> fieldValues(Target target) {
+    List<CodeBlock> values = new ArrayList<>(target.fields.size());
+    for (DtoField field : target.fields) {
+      values.add(fieldValue(field));
+    }
+    return values;
+  }
+
+  private CodeBlock fieldValue(DtoField field) {
+    Optional<NestedDto> nested = field.getNested();
+    if (!nested.isPresent()) {
+      return collectionCopyGenerator.value(field, CodeBlock.of("$N.$N()", FIELD_ENTITY, field.getGetter()));
+    } else if (!nested.get().isCollection()) {
+      return CodeBlock.of(
+        "$T.$N($N.$N(), $N)", nested.get().getDtoType(), METHOD_MAP, FIELD_ENTITY, field.getGetter(), FIELD_CONTEXT
+      );
+    }
+    return CodeBlock.of("$N($N.$N(), $N)", mapCollectionMethod(field), FIELD_ENTITY, field.getGetter(), FIELD_CONTEXT);
+  }
+
+  private void appendMapCollection(TypeSpec.Builder builder, DtoField field, NestedDto nested) {
+    TypeName entitiesType = ParameterizedTypeName.get(
+      ClassName.get(Collection.class), WildcardTypeName.subtypeOf(nested.getEntityType())
+    );
+
+    builder.addMethod(MethodSpec.methodBuilder(mapCollectionMethod(field))
+      .addAnnotation(Nullable.class)
+      .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+      .addParameter(ParameterSpec.builder(entitiesType, FIELD_ENTITIES)
+        .addAnnotation(Nullable.class)
+        .build()
+      )
+      .addParameter(contextType(), FIELD_CONTEXT)
+      .returns(field.getType())
+      .beginControlFlow("if ($N == null)", FIELD_ENTITIES)
+      .addStatement("return $N", NULL)
+      .endControlFlow()
+      .addStatement(
+        "$T $N = new $T<>($N.size())", field.getType(), FIELD_DTOS, nested.getCollectionImplementation(), FIELD_ENTITIES
+      )
+      .beginControlFlow("for ($T $N : $N)", nested.getEntityType(), FIELD_ENTITY, FIELD_ENTITIES)
+      .addStatement("$N.add($T.$N($N, $N))", FIELD_DTOS, nested.getDtoType(), METHOD_MAP, FIELD_ENTITY, FIELD_CONTEXT)
+      .endControlFlow()
+      .addStatement("return $N", FIELD_DTOS)
+      .build()
+    );
+  }
+
+  private String mapCollectionMethod(DtoField field) {
+    return PREFIX_MAP + capitalize(field.getName());
+  }
+
+  private void appendMap(TypeSpec.Builder builder, Target target) {
+    ClassName dtoType = target.dtoType;
+
+    MethodSpec.Builder method = MethodSpec.methodBuilder(METHOD_MAP)
+      .addJavadoc("Maps the entity as nested dto of another dto.\n")
+      .addJavadoc("Each entity instance of the context is mapped only once, so shared and cyclic references resolve to the same dto.\n")
+      .addAnnotation(Nullable.class)
       .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-      .addParameter(entityType, FIELD_ENTITY)
+      .addParameter(ParameterSpec.builder(target.entityType, FIELD_ENTITY)
+        .addAnnotation(Nullable.class)
+        .build()
+      )
+      .addParameter(contextType(), FIELD_CONTEXT)
       .returns(dtoType)
-      .addStatement("return from($N, $N, $N)", FIELD_ENTITY, NULL, NULL)
+      .beginControlFlow("if ($N == null)", FIELD_ENTITY)
+      .addStatement("return $N", NULL)
+      .endControlFlow()
+      .addStatement("$T $N = $N.get($N)", Object.class, FIELD_MAPPED, FIELD_CONTEXT, FIELD_ENTITY)
+      .beginControlFlow("if ($N != null)", FIELD_MAPPED)
+      .addStatement("return ($T) $N", dtoType, FIELD_MAPPED)
+      .endControlFlow();
+
+    if (target.immutable && target.hasNested()) {
+      method.beginControlFlow("if ($N.containsKey($N))", FIELD_CONTEXT, FIELD_ENTITY)
+        .addStatement(
+          "throw new $T($S)", IllegalStateException.class,
+          "cyclic references can not be mapped to the immutable dto " + dtoType.simpleName()
+        )
+        .endControlFlow();
+    }
+
+    if (target.hasNested()) {
+      method.addStatement("return $L", fromCall(target, FIELD_ENTITY, NULL, NULL, CodeBlock.of("$N", FIELD_CONTEXT)));
+    } else {
+      method.addStatement("$T $N = $L", dtoType, FIELD_DTO, fromCall(target, FIELD_ENTITY, NULL, NULL, null))
+        .addStatement("$N.put($N, $N)", FIELD_CONTEXT, FIELD_ENTITY, FIELD_DTO)
+        .addStatement("return $N", FIELD_DTO);
+    }
+
+    builder.addMethod(method.build());
+  }
+
+  private TypeName contextType() {
+    return ParameterizedTypeName.get(IdentityHashMap.class, Object.class, Object.class);
+  }
+
+  private void appendFromAll(TypeSpec.Builder builder, Target target) {
+    TypeName entityType = target.entityType;
+    TypeName entitiesType = ParameterizedTypeName.get(ClassName.get(Collection.class), WildcardTypeName.subtypeOf(entityType));
+    TypeName dtosType = ParameterizedTypeName.get(ClassName.get(List.class), target.dtoType);
+    boolean nested = target.hasNested();
+
+    // dtos with nested dtos share one context, so entities referenced by multiple elements are mapped once
+    CodeBlock context = nested ? CodeBlock.of("$N", FIELD_CONTEXT) : null;
+
+    MethodSpec.Builder method = MethodSpec.methodBuilder(METHOD_FROM_ALL)
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+      .addParameter(entitiesType, FIELD_ENTITIES)
+      .returns(dtosType)
+      .addStatement("$T $N = new $T<>($N.size())", dtosType, FIELD_DTOS, ArrayList.class, FIELD_ENTITIES);
+    if (nested) {
+      method.addStatement("$T $N = new $T<>()", contextType(), FIELD_CONTEXT, IdentityHashMap.class);
+    }
+    builder.addMethod(method
+      .beginControlFlow("for ($T $N : $N)", entityType, FIELD_ENTITY, FIELD_ENTITIES)
+      .addStatement("$N.add($L)", FIELD_DTOS, fromCall(target, FIELD_ENTITY, NULL, NULL, context))
+      .endControlFlow()
+      .addStatement("return $N", FIELD_DTOS)
       .build()
     );
 
-    builder.addMethod(MethodSpec.methodBuilder(METHOD_FROM)
+    if (!target.hal) {
+      return;
+    }
+
+    method = MethodSpec.methodBuilder(METHOD_FROM_ALL)
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+      .addParameter(entitiesType, FIELD_ENTITIES)
+      .addParameter(linksFunctionType(entityType), FIELD_LINKS)
+      .returns(dtosType)
+      .addStatement("$T $N = new $T<>($N.size())", dtosType, FIELD_DTOS, ArrayList.class, FIELD_ENTITIES);
+    if (nested) {
+      method.addStatement("$T $N = new $T<>()", contextType(), FIELD_CONTEXT, IdentityHashMap.class);
+    }
+    builder.addMethod(method
+      .beginControlFlow("for ($T $N : $N)", entityType, FIELD_ENTITY, FIELD_ENTITIES)
+      .addStatement("$N.add($L)", FIELD_DTOS, fromCall(target, FIELD_ENTITY, FIELD_LINKS + ".apply(" + FIELD_ENTITY + ")", NULL, context))
+      .endControlFlow()
+      .addStatement("return $N", FIELD_DTOS)
+      .build()
+    );
+  }
+
+  private void appendFromStream(TypeSpec.Builder builder, Target target) {
+    TypeName entityType = target.entityType;
+    TypeName entitiesType = ParameterizedTypeName.get(ClassName.get(Stream.class), WildcardTypeName.subtypeOf(entityType));
+    TypeName dtosType = ParameterizedTypeName.get(ClassName.get(Stream.class), target.dtoType);
+
+    builder.addMethod(MethodSpec.methodBuilder(METHOD_FROM_STREAM)
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+      .addParameter(entitiesType, FIELD_ENTITIES)
+      .returns(dtosType)
+      .addStatement("return $N.map($N -> $L)", FIELD_ENTITIES, FIELD_ENTITY, fromCall(target, FIELD_ENTITY, NULL, NULL, null))
+      .build()
+    );
+
+    if (!target.hal) {
+      return;
+    }
+
+    builder.addMethod(MethodSpec.methodBuilder(METHOD_FROM_STREAM)
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+      .addParameter(entitiesType, FIELD_ENTITIES)
+      .addParameter(linksFunctionType(entityType), FIELD_LINKS)
+      .returns(dtosType)
+      .addStatement(
+        "return $N.map($N -> $N($N, $N.apply($N), $N))",
+        FIELD_ENTITIES, FIELD_ENTITY, METHOD_FROM, FIELD_ENTITY, FIELD_LINKS, FIELD_ENTITY, NULL
+      )
+      .build()
+    );
+  }
+
+  private void appendLazyLinks(Model model, TypeSpec.Builder builder) {
+    TypeName entityType = model.getEntityType();
+    ClassName dtoType = model.getDtoType();
+    TypeName linksSupplierType = supplierType(Links.class);
+    TypeName embeddedSupplierType = supplierType(Embedded.class);
+
+    builder.addField(linksSupplierType, FIELD_LINKS_SUPPLIER, Modifier.PRIVATE)
+      .addField(embeddedSupplierType, FIELD_EMBEDDED_SUPPLIER, Modifier.PRIVATE);
+
+    builder.addMethod(MethodSpec.methodBuilder(METHOD_FROM_LAZY)
       .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
       .addParameter(entityType, FIELD_ENTITY)
-      .addParameter(ParameterSpec.builder(Links.class, FIELD_LINKS)
+      .addParameter(ParameterSpec.builder(linksSupplierType, FIELD_LINKS)
         .addAnnotation(Nullable.class)
         .build()
       )
       .returns(dtoType)
-      .addStatement("return from($N, $N, $N)", FIELD_ENTITY, FIELD_LINKS, NULL)
+      .addStatement("return $N($N, $N, $N)", METHOD_FROM_LAZY, FIELD_ENTITY, FIELD_LINKS, NULL)
       .build()
     );
 
-    MethodSpec.Builder method = MethodSpec.methodBuilder(METHOD_FROM)
+    builder.addMethod(MethodSpec.methodBuilder(METHOD_FROM_LAZY)
       .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
       .addParameter(entityType, FIELD_ENTITY)
-      .addParameter(ParameterSpec.builder(Links.class, FIELD_LINKS)
+      .addParameter(ParameterSpec.builder(linksSupplierType, FIELD_LINKS)
         .addAnnotation(Nullable.class)
         .build()
       )
-      .addParameter(ParameterSpec.builder(Embedded.class, FIELD_EMBEDDED)
+      .addParameter(ParameterSpec.builder(embeddedSupplierType, FIELD_EMBEDDED)
         .addAnnotation(Nullable.class)
         .build()
       )
       .returns(dtoType)
-      .addStatement("$T $N = new $T($N, $N)", dtoType, FIELD_DTO, dtoType, FIELD_LINKS, FIELD_EMBEDDED);
+      .addStatement("$T $N = $N($N, $N, $N)", dtoType, FIELD_DTO, METHOD_FROM, FIELD_ENTITY, NULL, NULL)
+      .addStatement("$N.$N = $N", FIELD_DTO, FIELD_LINKS_SUPPLIER, FIELD_LINKS)
+      .addStatement("$N.$N = $N", FIELD_DTO, FIELD_EMBEDDED_SUPPLIER, FIELD_EMBEDDED)
+      .addStatement("return $N", FIELD_DTO)
+      .build()
+    );
+  }
+
+  private void appendLinkOverrides(Model model, TypeSpec.Builder builder) {
+    builder.addField(Links.class, FIELD_CURRENT_LINKS, Modifier.PRIVATE)
+      .addField(Embedded.class, FIELD_CURRENT_EMBEDDED, Modifier.PRIVATE);
+
+    String linksSupplier = model.isLazyLinks() ? FIELD_LINKS_SUPPLIER : null;
+    String embeddedSupplier = model.isLazyLinks() ? FIELD_EMBEDDED_SUPPLIER : null;
+
+    builder.addMethod(overridingGetter(Links.class, METHOD_GET_LINKS, PROPERTY_LINKS, linksSupplier, FIELD_CURRENT_LINKS));
+    builder.addMethod(overridingGetter(Embedded.class, METHOD_GET_EMBEDDED, PROPERTY_EMBEDDED, embeddedSupplier, FIELD_CURRENT_EMBEDDED));
+  }
+
+  private MethodSpec overridingGetter(Class<?> type, String name, String property, @Nullable String supplier, String value) {
+    // the getter replaces the field of the HalRepresentation during serialization,
+    // so lazy and replaced links are used by jackson as well
+    MethodSpec.Builder method = MethodSpec.methodBuilder(name)
+      .addAnnotation(Override.class)
+      .addAnnotation(AnnotationSpec.builder(JsonIgnore.class)
+        .addMember("value", "false")
+        .build()
+      )
+      .addAnnotation(AnnotationSpec.builder(JsonProperty.class)
+        .addMember("value", "$S", property)
+        .build()
+      )
+      .addAnnotation(AnnotationSpec.builder(JsonInclude.class)
+        .addMember("value", "$T.NON_EMPTY", JsonInclude.Include.class)
+        .build()
+      )
+      .addModifiers(Modifier.PUBLIC)
+      .returns(type);
+
+    if (supplier != null) {
+      method.beginControlFlow("if ($N != null)", supplier)
+        .addStatement("$N = $N.get()", value, supplier)
+        .addStatement("$N = $N", supplier, NULL)
+        .endControlFlow();
+    }
+
+    return method.beginControlFlow("if ($N != null)", value)
+      .addStatement("return $N", value)
+      .endControlFlow()
+      .addStatement("return super.$N()", name)
+      .build();
+  }
+
+  private void appendFillFrom(Model model, TypeSpec.Builder builder, Target target) {
+    TypeName entityType = model.getEntityType();
+    ClassName dtoType = model.getDtoType();
+
+    if (model.isHal()) {
+      builder.addMethod(MethodSpec.methodBuilder(METHOD_FILL_FROM)
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(entityType, FIELD_ENTITY)
+        .returns(dtoType)
+        .addStatement("return $N($N, $N, $N)", METHOD_FILL_FROM, FIELD_ENTITY, NULL, NULL)
+        .build()
+      );
+
+      builder.addMethod(MethodSpec.methodBuilder(METHOD_FILL_FROM)
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(entityType, FIELD_ENTITY)
+        .addParameter(ParameterSpec.builder(Links.class, FIELD_LINKS)
+          .addAnnotation(Nullable.class)
+          .build()
+        )
+        .returns(dtoType)
+        .addStatement("return $N($N, $N, $N)", METHOD_FILL_FROM, FIELD_ENTITY, FIELD_LINKS, NULL)
+        .build()
+      );
+    }
+
+    MethodSpec.Builder method = MethodSpec.methodBuilder(METHOD_FILL_FROM)
+      .addJavadoc("Overwrites all fields of this dto with the values of the entity, so that the dto can be reused.\n")
+      .addModifiers(Modifier.PUBLIC)
+      .addParameter(entityType, FIELD_ENTITY)
+      .returns(dtoType);
+
+    if (model.isHal()) {
+      // empty links and embedded replace the values of the constructor, which can not be modified
+      method.addJavadoc("Links and embedded resources are replaced, {@code null} removes them.\n")
+        .addParameter(ParameterSpec.builder(Links.class, FIELD_LINKS)
+          .addAnnotation(Nullable.class)
+          .build()
+        )
+        .addParameter(ParameterSpec.builder(Embedded.class, FIELD_EMBEDDED)
+          .addAnnotation(Nullable.class)
+          .build()
+        )
+        .addStatement("this.$N = $N != null ? $N : $T.emptyLinks()", FIELD_CURRENT_LINKS, FIELD_LINKS, FIELD_LINKS, Links.class)
+        .addStatement(
+          "this.$N = $N != null ? $N : $T.emptyEmbedded()", FIELD_CURRENT_EMBEDDED, FIELD_EMBEDDED, FIELD_EMBEDDED, Embedded.class
+        );
+    }
+    if (model.isLazyLinks()) {
+      method.addStatement("this.$N = $N", FIELD_LINKS_SUPPLIER, NULL)
+        .addStatement("this.$N = $N", FIELD_EMBEDDED_SUPPLIER, NULL);
+    }
+    if (target.hasNested()) {
+      method.addStatement("$T $N = new $T<>()", contextType(), FIELD_CONTEXT, IdentityHashMap.class)
+        .addStatement("$N.put($N, this)", FIELD_CONTEXT, FIELD_ENTITY);
+    }
+    for (DtoField field : target.fields) {
+      method.addStatement("this.$N = $L", field.getName(), fieldValue(field));
+    }
+    if (model.isTrackChanges()) {
+      method.addStatement("this.$N = 0L", FIELD_CHANGED_FIELDS);
+    }
+    if (model.isFieldSets()) {
+      method.addStatement("this.$N = $N", FIELD_SELECTED_FIELDS, FieldSetGenerator.CONSTANT_ALL_FIELDS);
+    }
+    builder.addMethod(method.addStatement("return this").build());
+
+    builder.addMethod(MethodSpec.methodBuilder(METHOD_FROM_INTO)
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+      .addParameter(entityType, FIELD_ENTITY)
+      .addParameter(dtoType, FIELD_DTO)
+      .returns(dtoType)
+      .addStatement("return $N.$N($N)", FIELD_DTO, METHOD_FILL_FROM, FIELD_ENTITY)
+      .build()
+    );
+
+    if (model.isHal()) {
+      builder.addMethod(MethodSpec.methodBuilder(METHOD_FROM_INTO)
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addParameter(entityType, FIELD_ENTITY)
+        .addParameter(ParameterSpec.builder(Links.class, FIELD_LINKS)
+          .addAnnotation(Nullable.class)
+          .build()
+        )
+        .addParameter(dtoType, FIELD_DTO)
+        .returns(dtoType)
+        .addStatement("return $N.$N($N, $N, $N)", FIELD_DTO, METHOD_FILL_FROM, FIELD_ENTITY, FIELD_LINKS, NULL)
+        .build()
+      );
+    }
+  }
 
+  private TypeName supplierType(Class<?> type) {
+    return ParameterizedTypeName.get(ClassName.get(Supplier.class), WildcardTypeName.subtypeOf(type));
+  }
+
+  private TypeName linksFunctionType(TypeName entityType) {
+    return ParameterizedTypeName.get(
+      ClassName.get(Function.class), WildcardTypeName.supertypeOf(entityType), WildcardTypeName.subtypeOf(Links.class)
+    );
+  }
+
+  private void appendChangeTracking(TypeSpec.Builder builder) {
+    builder.addField(long.class, FIELD_CHANGED_FIELDS, Modifier.PRIVATE);
+
+    builder.addMethod(MethodSpec.methodBuilder(METHOD_CHANGED_FIELDS)
+      .addJavadoc("Returns the fields which were modified by setters as bit mask of the {@code FIELD_} constants.\n")
+      .addModifiers(Modifier.PUBLIC)
+      .returns(long.class)
+      .addStatement("return $N", FIELD_CHANGED_FIELDS)
+      .build()
+    );
+  }
+
+  private void appendFieldConstants(Model model, TypeSpec.Builder builder) {
     for (DtoField field : model.getExportedFields()) {
-      method.addStatement("$N.$N = $N.$N()", FIELD_DTO, field.getName(), FIELD_ENTITY, field.getGetter().getSimpleName());
+      builder.addField(FieldSpec.builder(long.class, field.getConstantName())
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+        .initializer("1L << $L", field.getIndex())
+        .build()
+      );
     }
+  }
 
-    method.addStatement("return $N", FIELD_DTO);
+  private void appendFieldSelection(Model model, TypeSpec.Builder builder) {
+    fieldSetGenerator.append(builder, model.getDtoType(), model.getExportedFields());
 
-    builder.addMethod(method.build());
+    builder.addField(FieldSpec.builder(long.class, FIELD_SELECTED_FIELDS, Modifier.PRIVATE)
+      .initializer("$N", FieldSetGenerator.CONSTANT_ALL_FIELDS)
+      .build()
+    );
+
+    builder.addMethod(MethodSpec.methodBuilder(METHOD_SELECTED_FIELDS)
+      .addJavadoc("Returns the fields which are serialized and updated as bit mask of the {@code FIELD_} constants.\n")
+      .addJavadoc("Setters add their field to the selection.\n")
+      .addModifiers(Modifier.PUBLIC)
+      .returns(long.class)
+      .addStatement("return $N", FIELD_SELECTED_FIELDS)
+      .build()
+    );
   }
 
-  private void appendField(TypeSpec.Builder builder, DtoField field) {
-    TypeName typeName = TypeName.get(field.getType());
+  /**
+   * Appends {@code fromFields} and {@code fromAllFields}, which have their own names,
+   * because overloads of {@code from} would be ambiguous for {@code null} arguments, e.g. {@code from(entity, null)}.
+   */
+  private void appendFromFieldSet(TypeSpec.Builder builder, Target target) {
+    TypeName entityType = target.entityType;
+    ClassName dtoType = target.dtoType;
+    ClassName fieldSetType = FieldSetGenerator.fieldSetType(dtoType);
+    boolean nested = target.hasNested();
+
+    if (target.hal) {
+      builder.addMethod(MethodSpec.methodBuilder(METHOD_FROM_FIELDS)
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addParameter(entityType, FIELD_ENTITY)
+        .addParameter(fieldSetType, FIELD_FIELD_SET)
+        .returns(dtoType)
+        .addStatement("return $L", fromFieldSetCall(target, FIELD_ENTITY, NULL, NULL, false))
+        .build()
+      );
+    }
+
+    MethodSpec.Builder method = fromMethod(target, METHOD_FROM_FIELDS)
+      .addJavadoc("Creates a dto, which contains only the fields of the field set.\n")
+      .addJavadoc("The getters of the entity are not called for the other fields.\n")
+      .addModifiers(Modifier.PUBLIC)
+      .addParameter(fieldSetType, FIELD_FIELD_SET);
+
+    if (nested) {
+      method.addStatement(
+        "$T $N = new $T<>()", contextType(), FIELD_CONTEXT, IdentityHashMap.class
+      ).addStatement(
+        "return $L", fromFieldSetCall(target, FIELD_ENTITY, FIELD_LINKS, FIELD_EMBEDDED, true)
+      );
+      builder.addMethod(method.build());
 
-    FieldSpec.Builder fieldSpec = FieldSpec.builder(typeName, field.getName(), Modifier.PRIVATE);
+      method = fromMethod(target, METHOD_FROM_FIELDS)
+        .addModifiers(Modifier.PRIVATE)
+        .addParameter(fieldSetType, FIELD_FIELD_SET)
+        .addParameter(contextType(), FIELD_CONTEXT);
+    }
 
-    for (AnnotationMirror mirror : field.getField().getAnnotationMirrors()) {
-      if (!isTypeOf(mirror, Include.class) && !isTypeOf(mirror, View.class)) {
-        fieldSpec.addAnnotation(AnnotationSpec.get(mirror));
-      }
+    // dtos with a field set are not registered in the context, because other dtos must reference full dtos
+    method.addStatement("$T $N = $L", dtoType, FIELD_DTO, newDto(target, FIELD_LINKS, FIELD_EMBEDDED, Collections.emptyList()))
+      .addStatement("$N.$N = $N.$N()", FIELD_DTO, FIELD_SELECTED_FIELDS, FIELD_FIELD_SET, METHOD_GET_MASK);
+    for (DtoField field : target.fields) {
+      method.beginControlFlow("if (($N.$N & $N) != 0)", FIELD_DTO, FIELD_SELECTED_FIELDS, field.getConstantName())
+        .addStatement("$N.$N = $L", FIELD_DTO, field.getName(), fieldValue(field))
+        .endControlFlow();
+    }
+    builder.addMethod(method.addStatement("return $N", FIELD_DTO).build());
+
+    TypeName entitiesType = ParameterizedTypeName.get(ClassName.get(Collection.class), WildcardTypeName.subtypeOf(entityType));
+    TypeName dtosType = ParameterizedTypeName.get(ClassName.get(List.class), dtoType);
+
+    MethodSpec.Builder fromAll = MethodSpec.methodBuilder(METHOD_FROM_ALL_FIELDS)
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+      .addParameter(entitiesType, FIELD_ENTITIES)
+      .addParameter(fieldSetType, FIELD_FIELD_SET)
+      .returns(dtosType)
+      .addStatement("$T $N = new $T<>($N.size())", dtosType, FIELD_DTOS, ArrayList.class, FIELD_ENTITIES);
+    if (nested) {
+      fromAll.addStatement("$T $N = new $T<>()", contextType(), FIELD_CONTEXT, IdentityHashMap.class);
+    }
+    builder.addMethod(fromAll
+      .beginControlFlow("for ($T $N : $N)", entityType, FIELD_ENTITY, FIELD_ENTITIES)
+      .addStatement("$N.add($L)", FIELD_DTOS, fromFieldSetCall(target, FIELD_ENTITY, NULL, NULL, nested))
+      .endControlFlow()
+      .addStatement("return $N", FIELD_DTOS)
+      .build()
+    );
+  }
+
+  private CodeBlock fromFieldSetCall(Target target, String entity, String links, String embedded, boolean context) {
+    List<CodeBlock> arguments = new ArrayList<>();
+    arguments.add(CodeBlock.of("$L", entity));
+    arguments.addAll(halArguments(target, links, embedded));
+    arguments.add(CodeBlock.of("$N", FIELD_FIELD_SET));
+    if (context) {
+      arguments.add(CodeBlock.of("$N", FIELD_CONTEXT));
+    }
+    return CodeBlock.of("$N($L)", METHOD_FROM_FIELDS, CodeBlock.join(arguments, ", "));
+  }
+
+  private void appendField(TypeSpec.Builder builder, Target target, DtoField field) {
+    TypeName typeName = field.getType();
+
+    FieldSpec.Builder fieldSpec = FieldSpec.builder(typeName, field.getName(), Modifier.PRIVATE)
+      .addAnnotations(field.getAnnotations());
+    if (target.immutable) {
+      fieldSpec.addModifiers(Modifier.FINAL);
     }
 
     builder.addField(fieldSpec.build());
 
     appendGetter(builder, field, typeName);
-    field.getSetter().ifPresent(element -> appendSetter(builder, field, element));
+    if (target.immutable) {
+      appendWither(builder, target, field);
+    } else {
+      field.getSetter().ifPresent(setter -> appendSetter(builder, target, field, setter));
+    }
   }
 
-  private boolean isTypeOf(AnnotationMirror annotationMirror, Class<? extends Annotation> annotation) {
-    return isTypeOf(annotationMirror.getAnnotationType().asElement(), annotation);
+  private void appendWither(TypeSpec.Builder builder, Target target, DtoField field) {
+    // the parameter shadows the changed field, all other arguments refer to the fields of this dto
+    List<CodeBlock> arguments = new ArrayList<>(target.fields.size());
+    for (DtoField other : target.fields) {
+      arguments.add(CodeBlock.of("$N", other.getName()));
+    }
+
+    builder.addMethod(MethodSpec.methodBuilder(PREFIX_WITH + capitalize(field.getName()))
+      .addModifiers(Modifier.PUBLIC)
+      .addParameter(field.getType(), field.getName())
+      .returns(target.dtoType)
+      .addStatement("return $L", newDto(target, METHOD_GET_LINKS + "()", METHOD_GET_EMBEDDED + "()", arguments))
+      .build()
+    );
   }
 
-  @SuppressWarnings("UnstableApiUsage")
-  private boolean isTypeOf(Element element, Class<?> type) {
-    TypeElement typeElement = MoreElements.asType(element);
-    return typeElement.getQualifiedName().contentEquals(type.getName());
+  private void appendSetter(TypeSpec.Builder builder, Target target, DtoField field, String setter) {
+    MethodSpec.Builder method = MethodSpec.methodBuilder(setter)
+      .addModifiers(Modifier.PUBLIC)
+      .addParameter(field.getType(), field.getName())
+      .addStatement("this.$N = $N", field.getName(), field.getName());
+
+    if (target.trackChanges) {
+      method.addStatement("this.$N |= $N", FIELD_CHANGED_FIELDS, field.getConstantName());
+    }
+    if (target.fieldSets) {
+      method.addStatement("this.$N |= $N", FIELD_SELECTED_FIELDS, field.getConstantName());
+    }
+
+    builder.addMethod(method.build());
   }
 
-  private void appendSetter(TypeSpec.Builder builder, DtoField field, Element setter) {
-    builder.addMethod(
-      MethodSpec.methodBuilder(setter.getSimpleName().toString())
-        .addModifiers(Modifier.PUBLIC)
-        .addParameter(TypeName.get(field.getType()), field.getName())
-        .addStatement("this.$N = $N", field.getName(), field.getName())
-        .build()
-    );
+  private String capitalize(String name) {
+    return name.substring(0, 1).toUpperCase() + name.substring(1);
   }
 
   private void appendGetter(TypeSpec.Builder builder, DtoField field, TypeName typeName) {
-    String getterName = field.getGetter().getSimpleName().toString();
     builder.addMethod(
-      MethodSpec.methodBuilder(getterName)
+      MethodSpec.methodBuilder(field.getGetter())
         .addModifiers(Modifier.PUBLIC)
         .addStatement("return $N", field.getName())
         .returns(typeName)
         .build()
     );
   }
+
+  /**
+   * Class which is generated for a model, either the dto itself or a view class.
+   */
+  private static final class Target {
+
+    private final ClassName dtoType;
+    private final TypeName entityType;
+    private final List<DtoField> fields;
+    private final boolean trackChanges;
+    private final boolean immutable;
+    private final boolean hal;
+    private final boolean register;
+    private final boolean reusable;
+    private final boolean fieldSets;
+
+    private Target(ClassName dtoType, Model model, List<DtoField> fields, boolean trackChanges, boolean register) {
+      this.dtoType = dtoType;
+      this.entityType = model.getEntityType();
+      this.fields = fields;
+      this.trackChanges = trackChanges;
+      this.immutable = model.isImmutable();
+      this.hal = model.isHal();
+      this.register = register;
+      this.reusable = register && model.isReusable();
+      this.fieldSets = register && model.isFieldSets();
+    }
+
+    static Target dto(Model model) {
+      return new Target(model.getDtoType(), model, model.getExportedFields(), model.isTrackChanges(), true);
+    }
+
+    static Target view(Model model, ViewModel view) {
+      ClassName viewType = ClassName.get(model.getPackageName(), view.getSimpleImplementationClassName());
+      return new Target(viewType, model, view.getFields(), false, false);
+    }
+
+    boolean hasNested() {
+      return fields.stream().anyMatch(field -> field.getNested().isPresent());
+    }
+  }
 }
@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.squareup.javapoet.JavaFile;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Rendered source of a generated class.
+ */
+class SourceFile implements GeneratedFile {
+
+  private final String qualifiedClassName;
+  private final Element[] originatingElements;
+  private final String content;
+
+  private SourceFile(String qualifiedClassName, Element[] originatingElements, String content) {
+    this.qualifiedClassName = qualifiedClassName;
+    this.originatingElements = originatingElements;
+    this.content = content;
+  }
+
+  static SourceFile render(JavaFile javaFile) {
+    String className = javaFile.typeSpec.name;
+    if (!javaFile.packageName.isEmpty()) {
+      className = javaFile.packageName + "." + className;
+    }
+    Element[] originatingElements = javaFile.typeSpec.originatingElements.toArray(new Element[0]);
+    return new SourceFile(className, originatingElements, javaFile.toString());
+  }
+
+  @Override
+  public String getName() {
+    return qualifiedClassName;
+  }
+
+  @Override
+  public void write(Filer filer) throws IOException {
+    JavaFileObject jfo = filer.createSourceFile(qualifiedClassName, originatingElements);
+    try (Writer writer = jfo.openWriter()) {
+      writer.write(content);
+    }
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Collects timings and counts of the processor per round and per generated dto.
+ */
+class Statistics {
+
+  static final String RESOURCE = "META-INF/conveyor/statistics.json";
+
+  private static final int SLOWEST_TYPES = 5;
+
+  private final List<Round> rounds = new ArrayList<>();
+  private final Map<Model, Type> types = new IdentityHashMap<>();
+
+  private Round currentRound;
+
+  void startRound() {
+    currentRound = new Round(rounds.size() + 1);
+    rounds.add(currentRound);
+  }
+
+  void endRound() {
+    currentRound.end();
+  }
+
+  Type type(Element element) {
+    return new Type(element.toString(), currentRound);
+  }
+
+  void register(Model model, Type type) {
+    type.dtoClassName = model.getDtoType().toString();
+    type.fields = model.getExportedFields().size();
+    type.views = model.getViews().size();
+    types.put(model, type);
+  }
+
+  Type get(Model model) {
+    return types.get(model);
+  }
+
+  boolean isEmpty() {
+    return types.isEmpty();
+  }
+
+  String summary() {
+    StringBuilder summary = new StringBuilder("conveyor processed ")
+      .append(types.size()).append(" dtos in ")
+      .append(rounds.size()).append(" rounds: ")
+      .append("collect ").append(millis(sum(t -> t.collect))).append(" ms, ")
+      .append("create ").append(millis(sum(t -> t.create))).append(" ms, ")
+      .append("generate ").append(millis(sum(t -> t.generate))).append(" ms, ")
+      .append("write ").append(millis(sum(t -> t.write))).append(" ms");
+
+    List<Type> slowest = types.values().stream()
+      .sorted(Comparator.comparingLong(Type::total).reversed())
+      .limit(SLOWEST_TYPES)
+      .collect(Collectors.toList());
+
+    summary.append("\nslowest dtos:");
+    for (Type type : slowest) {
+      summary.append("\n  ").append(type.dtoClassName).append(": ").append(millis(type.total())).append(" ms");
+    }
+    return summary.toString();
+  }
+
+  void write(Filer filer) throws IOException {
+    Element[] originatingElements = types.keySet()
+      .stream()
+      .map(Model::getOriginatingElement)
+      .toArray(Element[]::new);
+
+    FileObject resource = filer.createResource(StandardLocation.CLASS_OUTPUT, "", RESOURCE, originatingElements);
+    try (Writer writer = resource.openWriter(); JsonGenerator generator = new JsonFactory().createGenerator(writer)) {
+      generator.useDefaultPrettyPrinter();
+      generator.writeStartObject();
+
+      generator.writeArrayFieldStart("rounds");
+      for (Round round : rounds) {
+        generator.writeStartObject();
+        generator.writeNumberField("round", round.number);
+        generator.writeNumberField("types", round.types);
+        generator.writeNumberField("durationMs", millis(round.duration));
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+
+      generator.writeArrayFieldStart("types");
+      for (Type type : types.values()) {
+        generator.writeStartObject();
+        generator.writeStringField("entity", type.entityClassName);
+        generator.writeStringField("dto", type.dtoClassName);
+        generator.writeNumberField("round", type.round);
+        generator.writeNumberField("fields", type.fields);
+        generator.writeNumberField("views", type.views);
+        generator.writeNumberField("superClassLevels", type.superClassLevels);
+        generator.writeNumberField("collectMs", millis(type.collect));
+        generator.writeNumberField("createMs", millis(type.create));
+        generator.writeNumberField("generateMs", millis(type.generate));
+        generator.writeNumberField("writeMs", millis(type.write));
+        generator.writeNumberField("totalMs", millis(type.total()));
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+
+      generator.writeEndObject();
+    }
+  }
+
+  private long sum(ToLongFunction<Type> function) {
+    return types.values().stream().mapToLong(function).sum();
+  }
+
+  private static double millis(long nanos) {
+    return Math.round(nanos / (double) TimeUnit.MILLISECONDS.toNanos(1) * 1000) / 1000d;
+  }
+
+  private static class Round {
+
+    private final int number;
+    private final long start = System.nanoTime();
+    private long duration;
+    private int types;
+
+    private Round(int number) {
+      this.number = number;
+    }
+
+    private void end() {
+      duration = System.nanoTime() - start;
+    }
+  }
+
+  /**
+   * Statistics of a single dto. The generate timing is recorded by the rendering thread,
+   * the results are published to the processor thread by the future of the rendering.
+   */
+  static class Type {
+
+    private final String entityClassName;
+    private final int round;
+
+    private String dtoClassName;
+    private int fields;
+    private int views;
+    private int superClassLevels;
+
+    private long collect;
+    private long create;
+    private long generate;
+    private long write;
+
+    private Type(String entityClassName, Round round) {
+      this.entityClassName = entityClassName;
+      this.round = round.number;
+      round.types++;
+    }
+
+    void collected(long nanos, int superClassLevels) {
+      this.collect = nanos;
+      this.superClassLevels = superClassLevels;
+    }
+
+    void created(long nanos) {
+      this.create = nanos;
+    }
+
+    void generated(long nanos) {
+      this.generate = nanos;
+    }
+
+    void written(long nanos) {
+      this.write = nanos;
+    }
+
+    private long total() {
+      return collect + create + generate + write;
+    }
+  }
+}
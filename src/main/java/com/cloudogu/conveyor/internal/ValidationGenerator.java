@@ -0,0 +1,389 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.google.common.base.CaseFormat;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.annotation.Nullable;
+import javax.lang.model.element.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Generates a {@code validate} method, which checks the common bean validation constraints of the dto inline,
+ * without reflection and without the metadata of a validation provider. Fields with other constraints are
+ * validated by the provider, which is passed to {@code validate(Validator)}.
+ */
+class ValidationGenerator {
+
+  private static final String CLASS_VIOLATION = "Violation";
+
+  private static final String FIELD_VIOLATIONS = "violations";
+  private static final String FIELD_VIOLATION = "violation";
+  private static final String FIELD_LIST = "list";
+  private static final String FIELD_VALIDATOR = "validator";
+  private static final String FIELD_FIELD = "field";
+  private static final String FIELD_CONSTRAINT = "constraint";
+  private static final String FIELD_MESSAGE = "message";
+
+  private static final String METHOD_VALIDATE = "validate";
+  private static final String METHOD_ADD_VIOLATION = "addViolation";
+
+  private static final String PREFIX_PATTERN = "PATTERN_";
+
+  private static final String[] MESSAGE_ATTRIBUTES = {"min", "max", "value", "regexp"};
+
+  private static final String NOT_NULL = "NotNull";
+  private static final String SIZE = "Size";
+  private static final String MIN = "Min";
+  private static final String MAX = "Max";
+  private static final String PATTERN = "Pattern";
+
+  /**
+   * English messages of the reference implementation for the constraints, which are checked inline.
+   */
+  private static final Map<String, String> DEFAULT_MESSAGES = ImmutableMap.of(
+    NOT_NULL, "must not be null",
+    SIZE, "size must be between {min} and {max}",
+    MIN, "must be greater than or equal to {value}",
+    MAX, "must be less than or equal to {value}",
+    PATTERN, "must match \"{regexp}\""
+  );
+
+  private static final Set<TypeName> INTEGRAL_TYPES = ImmutableSet.of(
+    TypeName.BYTE, TypeName.SHORT, TypeName.INT, TypeName.LONG
+  );
+
+  private static final Set<ClassName> CHAR_SEQUENCES = ImmutableSet.of(
+    ClassName.get(String.class), ClassName.get(CharSequence.class)
+  );
+
+  private static final Set<ClassName> COLLECTIONS = ImmutableSet.of(
+    ClassName.get(Collection.class), ClassName.get(List.class), ClassName.get(Set.class), ClassName.get(SortedSet.class),
+    ClassName.get(ArrayList.class), ClassName.get(LinkedList.class), ClassName.get(ArrayDeque.class),
+    ClassName.get(HashSet.class), ClassName.get(LinkedHashSet.class), ClassName.get(TreeSet.class),
+    ClassName.get(Map.class), ClassName.get(SortedMap.class),
+    ClassName.get(HashMap.class), ClassName.get(LinkedHashMap.class), ClassName.get(TreeMap.class)
+  );
+
+  void append(TypeSpec.Builder builder, ClassName dtoType, List<DtoField> fields) {
+    ClassName violationType = dtoType.nestedClass(CLASS_VIOLATION);
+    TypeName violationsType = ParameterizedTypeName.get(ClassName.get(List.class), violationType);
+
+    MethodSpec.Builder validate = MethodSpec.methodBuilder(METHOD_VALIDATE)
+      .addJavadoc("Checks the constraints of the fields and returns the violations or an empty list, if the dto is valid.\n")
+      .addModifiers(Modifier.PUBLIC)
+      .returns(violationsType)
+      // the list is created with the first violation, so valid dtos are checked without allocations
+      .addStatement("$T $N = $T.emptyList()", violationsType, FIELD_VIOLATIONS, Collections.class);
+
+    List<DtoField> delegated = new ArrayList<>();
+    for (DtoField field : fields) {
+      if (field.getConstraints().isEmpty()) {
+        continue;
+      }
+      if (!isInline(field)) {
+        delegated.add(field);
+        continue;
+      }
+      for (Constraint constraint : field.getConstraints()) {
+        appendCheck(builder, validate, field, constraint);
+      }
+    }
+
+    if (!delegated.isEmpty()) {
+      validate.addJavadoc("Fields with constraints, which can not be checked inline, are only validated by {@code validate(Validator)}.\n");
+    }
+    builder.addMethod(validate.addStatement("return $N", FIELD_VIOLATIONS).build());
+
+    if (!delegated.isEmpty()) {
+      builder.addMethod(validateWithProvider(dtoType, violationsType, delegated));
+    }
+
+    builder.addMethod(MethodSpec.methodBuilder(METHOD_ADD_VIOLATION)
+      .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+      .addParameter(violationsType, FIELD_VIOLATIONS)
+      .addParameter(String.class, FIELD_FIELD)
+      .addParameter(String.class, FIELD_CONSTRAINT)
+      .addParameter(String.class, FIELD_MESSAGE)
+      .returns(violationsType)
+      .addStatement(
+        "$T $N = $N.isEmpty() ? new $T<>() : $N",
+        violationsType, FIELD_LIST, FIELD_VIOLATIONS, ArrayList.class, FIELD_VIOLATIONS
+      )
+      .addStatement(
+        "$N.add(new $T($N, $N, $N))", FIELD_LIST, violationType, FIELD_FIELD, FIELD_CONSTRAINT, FIELD_MESSAGE
+      )
+      .addStatement("return $N", FIELD_LIST)
+      .build()
+    );
+
+    builder.addType(createViolation(violationType));
+  }
+
+  /**
+   * Returns {@code true} if all constraints of the field can be checked inline.
+   * Otherwise the provider validates the field, so that no constraint is checked twice.
+   */
+  private boolean isInline(DtoField field) {
+    for (Constraint constraint : field.getConstraints()) {
+      if (!constraint.isSimple() || !message(constraint).isPresent() || !isSupported(field.getType(), constraint)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isSupported(TypeName type, Constraint constraint) {
+    switch (constraint.getName()) {
+      case NOT_NULL:
+        return true;
+      case SIZE:
+        return isCharSequence(type) || isCollection(type) || type instanceof ArrayTypeName;
+      case MIN:
+      case MAX:
+        return INTEGRAL_TYPES.contains(type.isBoxedPrimitive() ? type.unbox() : type);
+      case PATTERN:
+        return isCharSequence(type);
+      default:
+        return false;
+    }
+  }
+
+  private boolean isCharSequence(TypeName type) {
+    return CHAR_SEQUENCES.contains(type);
+  }
+
+  private boolean isCollection(TypeName type) {
+    if (type instanceof ParameterizedTypeName) {
+      return COLLECTIONS.contains(((ParameterizedTypeName) type).rawType);
+    }
+    return COLLECTIONS.contains(type);
+  }
+
+  /**
+   * Returns the interpolated message, or an empty optional if the message requires the interpolation of the provider,
+   * e.g. for a custom message key.
+   */
+  private Optional<String> message(Constraint constraint) {
+    String message = constraint.get("message").map(Object::toString).orElse("");
+    String defaultTemplate = "{" + constraint.getType().canonicalName() + ".message}";
+    if (message.equals(defaultTemplate) && DEFAULT_MESSAGES.containsKey(constraint.getName())) {
+      message = DEFAULT_MESSAGES.get(constraint.getName());
+    }
+
+    // the attributes may contain braces as well, e.g. the quantifiers of a regexp
+    String unresolved = message;
+    for (String attribute : MESSAGE_ATTRIBUTES) {
+      unresolved = unresolved.replace("{" + attribute + "}", "");
+    }
+    if (unresolved.contains("{") || unresolved.contains("$")) {
+      return Optional.empty();
+    }
+
+    for (String attribute : MESSAGE_ATTRIBUTES) {
+      Optional<Object> value = constraint.get(attribute);
+      if (value.isPresent()) {
+        message = message.replace("{" + attribute + "}", value.get().toString());
+      }
+    }
+    return Optional.of(message);
+  }
+
+  private void appendCheck(TypeSpec.Builder builder, MethodSpec.Builder method, DtoField field, Constraint constraint) {
+    String name = field.getName();
+    TypeName type = field.getType();
+
+    CodeBlock condition;
+    switch (constraint.getName()) {
+      case NOT_NULL:
+        if (type.isPrimitive()) {
+          return;
+        }
+        condition = CodeBlock.of("this.$N == null", name);
+        break;
+      case SIZE:
+        condition = sizeCondition(field, constraint);
+        break;
+      case MIN:
+        condition = rangeCondition(field, "<", constraint);
+        break;
+      case MAX:
+        condition = rangeCondition(field, ">", constraint);
+        break;
+      case PATTERN:
+        String constant = PREFIX_PATTERN + CaseFormat.LOWER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, name);
+        builder.addField(FieldSpec.builder(Pattern.class, constant, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+          .initializer("$T.compile($S)", Pattern.class, constraint.get("regexp").orElse(""))
+          .build()
+        );
+        condition = CodeBlock.of("this.$N != null && !$N.matcher(this.$N).matches()", name, constant, name);
+        break;
+      default:
+        throw new IllegalStateException("unsupported constraint " + constraint.getName());
+    }
+
+    if (condition == null) {
+      return;
+    }
+
+    method.beginControlFlow("if ($L)", condition)
+      .addStatement(
+        "$N = $N($N, $S, $S, $S)",
+        FIELD_VIOLATIONS, METHOD_ADD_VIOLATION, FIELD_VIOLATIONS, name, constraint.getName(), message(constraint).get()
+      )
+      .endControlFlow();
+  }
+
+  @Nullable
+  private CodeBlock sizeCondition(DtoField field, Constraint constraint) {
+    String name = field.getName();
+    int min = constraint.get("min").map(value -> ((Number) value).intValue()).orElse(0);
+    int max = constraint.get("max").map(value -> ((Number) value).intValue()).orElse(Integer.MAX_VALUE);
+
+    String size;
+    if (isCharSequence(field.getType())) {
+      size = "length()";
+    } else if (field.getType() instanceof ArrayTypeName) {
+      size = "length";
+    } else {
+      size = "size()";
+    }
+
+    List<CodeBlock> bounds = new ArrayList<>(2);
+    if (min > 0) {
+      bounds.add(CodeBlock.of("this.$N.$L < $L", name, size, min));
+    }
+    if (max < Integer.MAX_VALUE) {
+      bounds.add(CodeBlock.of("this.$N.$L > $L", name, size, max));
+    }
+    if (bounds.isEmpty()) {
+      return null;
+    }
+    // null values are valid, they are rejected by @NotNull
+    return CodeBlock.of("this.$N != null && ($L)", name, CodeBlock.join(bounds, " || "));
+  }
+
+  private CodeBlock rangeCondition(DtoField field, String operator, Constraint constraint) {
+    String name = field.getName();
+    long value = constraint.get("value").map(bound -> ((Number) bound).longValue()).orElse(0L);
+    if (field.getType().isPrimitive()) {
+      return CodeBlock.of("this.$N $L $LL", name, operator, value);
+    }
+    return CodeBlock.of("this.$N != null && this.$N $L $LL", name, name, operator, value);
+  }
+
+  private MethodSpec validateWithProvider(ClassName dtoType, TypeName violationsType, List<DtoField> delegated) {
+    // the provider belongs to the package of the constraints, e.g. jakarta.validation or javax.validation
+    ClassName constraintType = delegated.get(0).getConstraints().get(0).getType();
+    String validationPackage = constraintType.packageName().substring(0, constraintType.packageName().lastIndexOf('.'));
+    ClassName validatorType = ClassName.get(validationPackage, "Validator");
+    TypeName constraintViolationType = ParameterizedTypeName.get(ClassName.get(validationPackage, "ConstraintViolation"), dtoType);
+
+    MethodSpec.Builder method = MethodSpec.methodBuilder(METHOD_VALIDATE)
+      .addJavadoc("Checks the constraints of the fields and validates the fields with other constraints by the provider.\n")
+      .addModifiers(Modifier.PUBLIC)
+      .addParameter(validatorType, FIELD_VALIDATOR)
+      .returns(violationsType)
+      .addStatement("$T $N = $N()", violationsType, FIELD_VIOLATIONS, METHOD_VALIDATE);
+
+    for (DtoField field : delegated) {
+      method.beginControlFlow(
+          "for ($T $N : $N.validateProperty(this, $S))", constraintViolationType, FIELD_VIOLATION, FIELD_VALIDATOR, field.getName()
+        )
+        .addStatement(
+          "$N = $N($N, $S, $N.getConstraintDescriptor().getAnnotation().annotationType().getSimpleName(), $N.getMessage())",
+          FIELD_VIOLATIONS, METHOD_ADD_VIOLATION, FIELD_VIOLATIONS, field.getName(), FIELD_VIOLATION, FIELD_VIOLATION
+        )
+        .endControlFlow();
+    }
+
+    return method.addStatement("return $N", FIELD_VIOLATIONS).build();
+  }
+
+  private TypeSpec createViolation(ClassName violationType) {
+    return TypeSpec.classBuilder(violationType)
+      .addJavadoc("Violated constraint of a field.\n")
+      .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+      .addField(String.class, FIELD_FIELD, Modifier.PRIVATE, Modifier.FINAL)
+      .addField(String.class, FIELD_CONSTRAINT, Modifier.PRIVATE, Modifier.FINAL)
+      .addField(String.class, FIELD_MESSAGE, Modifier.PRIVATE, Modifier.FINAL)
+      .addMethod(MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PRIVATE)
+        .addParameter(String.class, FIELD_FIELD)
+        .addParameter(String.class, FIELD_CONSTRAINT)
+        .addParameter(String.class, FIELD_MESSAGE)
+        .addStatement("this.$N = $N", FIELD_FIELD, FIELD_FIELD)
+        .addStatement("this.$N = $N", FIELD_CONSTRAINT, FIELD_CONSTRAINT)
+        .addStatement("this.$N = $N", FIELD_MESSAGE, FIELD_MESSAGE)
+        .build()
+      )
+      .addMethod(getter("getField", FIELD_FIELD))
+      .addMethod(getter("getConstraint", FIELD_CONSTRAINT))
+      .addMethod(getter("getMessage", FIELD_MESSAGE))
+      .addMethod(MethodSpec.methodBuilder("toString")
+        .addAnnotation(Override.class)
+        .addModifiers(Modifier.PUBLIC)
+        .returns(String.class)
+        .addStatement("return $N + $S + $N", FIELD_FIELD, ": ", FIELD_MESSAGE)
+        .build()
+      )
+      .build();
+  }
+
+  private MethodSpec getter(String name, String field) {
+    return MethodSpec.methodBuilder(name)
+      .addModifiers(Modifier.PUBLIC)
+      .returns(String.class)
+      .addStatement("return $N", field)
+      .build();
+  }
+}
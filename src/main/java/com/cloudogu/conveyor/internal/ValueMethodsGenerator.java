@@ -0,0 +1,427 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor.internal;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.lang.model.element.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
+/**
+ * Generates {@code equals}, {@code hashCode} and {@code toString} from the exported fields without reflection.
+ * Links and embedded resources are not part of the value. Immutable dtos compute their hash code once
+ * and compare the cached hash codes before the fields.
+ * Mutable nested dtos with value methods can form cycles with the identity context, so they are compared
+ * and printed with the dtos on the path from the outer dto, which are collected by identity. A pair of dtos,
+ * which is compared on the path already, is assumed to be equal, and a dto, which is printed on the path already,
+ * is abbreviated. They are not part of the hash code, which stays consistent with equals for cyclic dtos.
+ */
+class ValueMethodsGenerator {
+
+  private static final String METHOD_EQUALS = "equals";
+  private static final String METHOD_HASH_CODE = "hashCode";
+  private static final String METHOD_COMPUTE_HASH_CODE = "computeHashCode";
+  private static final String METHOD_TO_STRING = "toString";
+
+  private static final String FIELD_OBJECT = "object";
+  private static final String FIELD_OTHER = "other";
+  private static final String FIELD_RESULT = "result";
+  private static final String FIELD_CACHED_HASH_CODE = "cachedHashCode";
+  private static final String FIELD_VISITING = "visiting";
+  private static final String FIELD_PREVIOUS = "previous";
+  private static final String FIELD_VALUE = "value";
+  private static final String FIELD_OTHER_VALUE = "otherValue";
+  private static final String FIELD_ELEMENT = "element";
+  private static final String FIELD_OTHER_ELEMENT = "otherElement";
+  private static final String FIELD_ITERATOR = "iterator";
+  private static final String FIELD_FOUND = "found";
+  private static final String FIELD_JOINER = "joiner";
+
+  private static final int HASH_MULTIPLIER = 31;
+
+  void append(TypeSpec.Builder builder, ClassName dtoType, List<DtoField> fields, boolean immutable) {
+    // immutable dtos can not be part of a cycle, they start a new comparison for their nested dtos
+    List<DtoField> cyclicFields = immutable ? Collections.emptyList() : cyclicFields(fields);
+    List<DtoField> hashedFields = fields.stream()
+      .filter(field -> !cyclicFields.contains(field))
+      .collect(Collectors.toList());
+
+    if (immutable) {
+      builder.addMethod(equals(dtoType, fields, cyclicFields, true)
+        .addAnnotation(Override.class)
+        .build()
+      );
+      // like String, a hash code of zero is not cached and computed again
+      builder.addField(int.class, FIELD_CACHED_HASH_CODE, Modifier.PRIVATE);
+      builder.addMethod(MethodSpec.methodBuilder(METHOD_HASH_CODE)
+        .addAnnotation(Override.class)
+        .addModifiers(Modifier.PUBLIC)
+        .returns(int.class)
+        .addStatement("int $N = $N", FIELD_RESULT, FIELD_CACHED_HASH_CODE)
+        .beginControlFlow("if ($N == 0)", FIELD_RESULT)
+        .addStatement("$N = $N()", FIELD_RESULT, METHOD_COMPUTE_HASH_CODE)
+        .addStatement("$N = $N", FIELD_CACHED_HASH_CODE, FIELD_RESULT)
+        .endControlFlow()
+        .addStatement("return $N", FIELD_RESULT)
+        .build()
+      );
+      builder.addMethod(hashCode(METHOD_COMPUTE_HASH_CODE, hashedFields)
+        .addModifiers(Modifier.PRIVATE)
+        .build()
+      );
+      builder.addMethod(toString(dtoType, fields, cyclicFields)
+        .addAnnotation(Override.class)
+        .build()
+      );
+      return;
+    }
+
+    builder.addMethod(hashCode(METHOD_HASH_CODE, hashedFields)
+      .addAnnotation(Override.class)
+      .addModifiers(Modifier.PUBLIC)
+      .build()
+    );
+    if (cyclicFields.isEmpty()) {
+      builder.addMethod(equals(dtoType, fields, cyclicFields, false)
+        .addAnnotation(Override.class)
+        .build()
+      );
+      builder.addMethod(toString(dtoType, fields, cyclicFields)
+        .addAnnotation(Override.class)
+        .build()
+      );
+      // dtos without cyclic fields can not be part of a cycle, so the overloads for outer dtos delegate
+      builder.addMethod(MethodSpec.methodBuilder(METHOD_EQUALS)
+        .addJavadoc("Compares the dto as nested dto of another dto.\n")
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(Object.class, FIELD_OBJECT)
+        .addParameter(comparingType(), FIELD_VISITING)
+        .returns(boolean.class)
+        .addStatement("return $N($N)", METHOD_EQUALS, FIELD_OBJECT)
+        .build()
+      );
+      builder.addMethod(MethodSpec.methodBuilder(METHOD_TO_STRING)
+        .addJavadoc("Returns the string representation as nested dto of another dto.\n")
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(printingType(), FIELD_VISITING)
+        .returns(String.class)
+        .addStatement("return $N()", METHOD_TO_STRING)
+        .build()
+      );
+    } else {
+      builder.addMethod(MethodSpec.methodBuilder(METHOD_EQUALS)
+        .addAnnotation(Override.class)
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(Object.class, FIELD_OBJECT)
+        .returns(boolean.class)
+        .addStatement("return $N($N, new $T<>())", METHOD_EQUALS, FIELD_OBJECT, IdentityHashMap.class)
+        .build()
+      );
+      builder.addMethod(equals(dtoType, fields, cyclicFields, false)
+        .addJavadoc("Compares the dto as nested dto of another dto.\n")
+        .addJavadoc("The pairs of dtos, which are compared on the path from the outer dto, are collected by identity ")
+        .addJavadoc("and assumed to be equal to terminate cycles.\n")
+        .build()
+      );
+      builder.addMethod(MethodSpec.methodBuilder(METHOD_TO_STRING)
+        .addAnnotation(Override.class)
+        .addModifiers(Modifier.PUBLIC)
+        .returns(String.class)
+        .addStatement(
+          "return $N($T.newSetFromMap(new $T<>()))", METHOD_TO_STRING, Collections.class, IdentityHashMap.class
+        )
+        .build()
+      );
+      builder.addMethod(toString(dtoType, fields, cyclicFields)
+        .addJavadoc("Returns the string representation as nested dto of another dto.\n")
+        .addJavadoc("The dtos, which are printed on the path from the outer dto, are collected by identity ")
+        .addJavadoc("and abbreviated to terminate cycles.\n")
+        .build()
+      );
+      for (DtoField field : cyclicFields) {
+        NestedDto nested = field.getNested().orElseThrow(IllegalStateException::new);
+        if (nested.isCollection()) {
+          builder.addMethod(equalsCollection(field, nested));
+          builder.addMethod(toStringCollection(field, nested));
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the mutable nested dtos with value methods, which are the only ones that can reference the dto again.
+   */
+  private static List<DtoField> cyclicFields(List<DtoField> fields) {
+    return fields.stream()
+      .filter(field -> field.getNested().map(nested -> !nested.isImmutable() && nested.isValueMethods()).orElse(false))
+      .collect(Collectors.toList());
+  }
+
+  private static TypeName comparingType() {
+    return ParameterizedTypeName.get(Map.class, Object.class, Object.class);
+  }
+
+  private static TypeName printingType() {
+    return ParameterizedTypeName.get(Set.class, Object.class);
+  }
+
+  private MethodSpec.Builder equals(ClassName dtoType, List<DtoField> fields, List<DtoField> cyclicFields, boolean immutable) {
+    MethodSpec.Builder method = MethodSpec.methodBuilder(METHOD_EQUALS)
+      .addModifiers(Modifier.PUBLIC)
+      .addParameter(Object.class, FIELD_OBJECT)
+      .returns(boolean.class);
+    if (!cyclicFields.isEmpty()) {
+      method.addParameter(comparingType(), FIELD_VISITING);
+    }
+    method.beginControlFlow("if (this == $N)", FIELD_OBJECT)
+      .addStatement("return true")
+      .endControlFlow()
+      .beginControlFlow("if ($N == null || getClass() != $N.getClass())", FIELD_OBJECT, FIELD_OBJECT)
+      .addStatement("return false")
+      .endControlFlow()
+      .addStatement("$T $N = ($T) $N", dtoType, FIELD_OTHER, dtoType, FIELD_OBJECT);
+
+    if (immutable) {
+      method.beginControlFlow(
+        "if ($N != 0 && $N.$N != 0 && $N != $N.$N)",
+        FIELD_CACHED_HASH_CODE, FIELD_OTHER, FIELD_CACHED_HASH_CODE, FIELD_CACHED_HASH_CODE, FIELD_OTHER, FIELD_CACHED_HASH_CODE
+      )
+        .addStatement("return false")
+        .endControlFlow();
+    }
+
+    if (fields.isEmpty()) {
+      return method.addStatement("return true");
+    }
+
+    // primitives are compared first, because they are cheaper than equals of the references,
+    // and cyclic nested dtos last, because they compare the whole graph
+    List<CodeBlock> comparisons = new ArrayList<>(fields.size());
+    for (DtoField field : fields) {
+      if (field.getType().isPrimitive()) {
+        comparisons.add(equal(field));
+      }
+    }
+    for (DtoField field : fields) {
+      if (!field.getType().isPrimitive() && !cyclicFields.contains(field)) {
+        comparisons.add(equal(field));
+      }
+    }
+    if (cyclicFields.isEmpty()) {
+      return method.addStatement("return $L", CodeBlock.join(comparisons, "$W&& "));
+    }
+
+    for (DtoField field : cyclicFields) {
+      comparisons.add(equalCyclic(field));
+    }
+    return method.beginControlFlow("if ($N.get(this) == $N)", FIELD_VISITING, FIELD_OTHER)
+      .addStatement("return true")
+      .endControlFlow()
+      .addStatement("$T $N = $N.put(this, $N)", Object.class, FIELD_PREVIOUS, FIELD_VISITING, FIELD_OTHER)
+      .addStatement("boolean $N = $L", FIELD_RESULT, CodeBlock.join(comparisons, "$W&& "))
+      .beginControlFlow("if ($N == null)", FIELD_PREVIOUS)
+      .addStatement("$N.remove(this)", FIELD_VISITING)
+      .nextControlFlow("else")
+      .addStatement("$N.put(this, $N)", FIELD_VISITING, FIELD_PREVIOUS)
+      .endControlFlow()
+      .addStatement("return $N", FIELD_RESULT);
+  }
+
+  private CodeBlock equalCyclic(DtoField field) {
+    String name = field.getName();
+    NestedDto nested = field.getNested().orElseThrow(IllegalStateException::new);
+    if (nested.isCollection()) {
+      return CodeBlock.of("$N(this.$N, $N.$N, $N)", collectionMethod(METHOD_EQUALS, field), name, FIELD_OTHER, name, FIELD_VISITING);
+    }
+    return CodeBlock.of(
+      "(this.$N == null ? $N.$N == null : this.$N.$N($N.$N, $N))",
+      name, FIELD_OTHER, name, name, METHOD_EQUALS, FIELD_OTHER, name, FIELD_VISITING
+    );
+  }
+
+  private static String collectionMethod(String prefix, DtoField field) {
+    return prefix + field.getName().substring(0, 1).toUpperCase() + field.getName().substring(1);
+  }
+
+  private MethodSpec equalsCollection(DtoField field, NestedDto nested) {
+    ClassName elementType = nested.getDtoType();
+    CodeBlock differs = CodeBlock.of(
+      "$N == null ? $N != null : !$N.$N($N, $N)",
+      FIELD_ELEMENT, FIELD_OTHER_ELEMENT, FIELD_ELEMENT, METHOD_EQUALS, FIELD_OTHER_ELEMENT, FIELD_VISITING
+    );
+    MethodSpec.Builder method = MethodSpec.methodBuilder(collectionMethod(METHOD_EQUALS, field))
+      .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+      .addParameter(nested.getFieldType(), FIELD_VALUE)
+      .addParameter(nested.getFieldType(), FIELD_OTHER_VALUE)
+      .addParameter(comparingType(), FIELD_VISITING)
+      .returns(boolean.class)
+      .beginControlFlow(
+        "if ($N == null || $N == null || $N.size() != $N.size())", FIELD_VALUE, FIELD_OTHER_VALUE, FIELD_VALUE, FIELD_OTHER_VALUE
+      )
+      // equal only if both are null
+      .addStatement("return $N == $N", FIELD_VALUE, FIELD_OTHER_VALUE)
+      .endControlFlow();
+
+    if (nested.isSet()) {
+      // the elements have no defined order, so each element is searched in the other set
+      method.beginControlFlow("for ($T $N : $N)", elementType, FIELD_ELEMENT, FIELD_VALUE)
+        .addStatement("boolean $N = false", FIELD_FOUND)
+        .beginControlFlow("for ($T $N : $N)", elementType, FIELD_OTHER_ELEMENT, FIELD_OTHER_VALUE)
+        .beginControlFlow("if (!($L))", differs)
+        .addStatement("$N = true", FIELD_FOUND)
+        .addStatement("break")
+        .endControlFlow()
+        .endControlFlow()
+        .beginControlFlow("if (!$N)", FIELD_FOUND)
+        .addStatement("return false")
+        .endControlFlow()
+        .endControlFlow();
+    } else {
+      method.addStatement(
+        "$T $N = $N.iterator()", ParameterizedTypeName.get(ClassName.get(Iterator.class), elementType), FIELD_ITERATOR, FIELD_OTHER_VALUE
+      )
+        .beginControlFlow("for ($T $N : $N)", elementType, FIELD_ELEMENT, FIELD_VALUE)
+        .addStatement("$T $N = $N.next()", elementType, FIELD_OTHER_ELEMENT, FIELD_ITERATOR)
+        .beginControlFlow("if ($L)", differs)
+        .addStatement("return false")
+        .endControlFlow()
+        .endControlFlow();
+    }
+    return method.addStatement("return true").build();
+  }
+
+  private CodeBlock equal(DtoField field) {
+    CodeBlock value = CodeBlock.of("this.$N", field.getName());
+    CodeBlock otherValue = CodeBlock.of("$N.$N", FIELD_OTHER, field.getName());
+    TypeName type = field.getType();
+    if (type.equals(TypeName.FLOAT)) {
+      return CodeBlock.of("$T.compare($L, $L) == 0", Float.class, value, otherValue);
+    } else if (type.equals(TypeName.DOUBLE)) {
+      return CodeBlock.of("$T.compare($L, $L) == 0", Double.class, value, otherValue);
+    } else if (type.isPrimitive()) {
+      return CodeBlock.of("$L == $L", value, otherValue);
+    } else if (type instanceof ArrayTypeName) {
+      return CodeBlock.of("$T.equals($L, $L)", Arrays.class, value, otherValue);
+    }
+    return CodeBlock.of("$T.equals($L, $L)", Objects.class, value, otherValue);
+  }
+
+  private MethodSpec.Builder hashCode(String name, List<DtoField> fields) {
+    MethodSpec.Builder method = MethodSpec.methodBuilder(name)
+      .returns(int.class)
+      .addStatement("int $N = 1", FIELD_RESULT);
+    for (DtoField field : fields) {
+      method.addStatement("$N = $L * $N + $L", FIELD_RESULT, HASH_MULTIPLIER, FIELD_RESULT, hash(field));
+    }
+    return method.addStatement("return $N", FIELD_RESULT);
+  }
+
+  private CodeBlock hash(DtoField field) {
+    CodeBlock value = CodeBlock.of("this.$N", field.getName());
+    TypeName type = field.getType();
+    if (type.isPrimitive()) {
+      return CodeBlock.of("$T.hashCode($L)", type.box(), value);
+    } else if (type instanceof ArrayTypeName) {
+      return CodeBlock.of("$T.hashCode($L)", Arrays.class, value);
+    }
+    return CodeBlock.of("$T.hashCode($L)", Objects.class, value);
+  }
+
+  private MethodSpec.Builder toString(ClassName dtoType, List<DtoField> fields, List<DtoField> cyclicFields) {
+    List<CodeBlock> parts = new ArrayList<>(fields.size() + 2);
+    String separator = "{";
+    for (DtoField field : fields) {
+      parts.add(CodeBlock.of("$S", separator + field.getName() + "="));
+      if (field.getType() instanceof ArrayTypeName) {
+        parts.add(CodeBlock.of("$T.toString(this.$N)", Arrays.class, field.getName()));
+      } else if (cyclicFields.contains(field)) {
+        parts.add(toStringCyclic(field));
+      } else {
+        parts.add(CodeBlock.of("this.$N", field.getName()));
+      }
+      separator = ", ";
+    }
+    parts.add(CodeBlock.of("$S", fields.isEmpty() ? "{}" : "}"));
+
+    MethodSpec.Builder method = MethodSpec.methodBuilder(METHOD_TO_STRING)
+      .addModifiers(Modifier.PUBLIC)
+      .returns(String.class);
+    if (cyclicFields.isEmpty()) {
+      return method.addStatement("return $S + $L", dtoType.simpleName(), CodeBlock.join(parts, " + "));
+    }
+    return method.addParameter(printingType(), FIELD_VISITING)
+      .beginControlFlow("if (!$N.add(this))", FIELD_VISITING)
+      .addStatement("return $S", dtoType.simpleName() + "{...}")
+      .endControlFlow()
+      .addStatement("$T $N = $S + $L", String.class, FIELD_RESULT, dtoType.simpleName(), CodeBlock.join(parts, " + "))
+      .addStatement("$N.remove(this)", FIELD_VISITING)
+      .addStatement("return $N", FIELD_RESULT);
+  }
+
+  private CodeBlock toStringCyclic(DtoField field) {
+    String name = field.getName();
+    NestedDto nested = field.getNested().orElseThrow(IllegalStateException::new);
+    if (nested.isCollection()) {
+      return CodeBlock.of("$N(this.$N, $N)", collectionMethod(METHOD_TO_STRING, field), name, FIELD_VISITING);
+    }
+    return CodeBlock.of("(this.$N == null ? $S : this.$N.$N($N))", name, "null", name, METHOD_TO_STRING, FIELD_VISITING);
+  }
+
+  private MethodSpec toStringCollection(DtoField field, NestedDto nested) {
+    return MethodSpec.methodBuilder(collectionMethod(METHOD_TO_STRING, field))
+      .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+      .addParameter(nested.getFieldType(), FIELD_VALUE)
+      .addParameter(printingType(), FIELD_VISITING)
+      .returns(String.class)
+      .beginControlFlow("if ($N == null)", FIELD_VALUE)
+      .addStatement("return $S", "null")
+      .endControlFlow()
+      .addStatement("$T $N = new $T($S, $S, $S)", StringJoiner.class, FIELD_JOINER, StringJoiner.class, ", ", "[", "]")
+      .beginControlFlow("for ($T $N : $N)", nested.getDtoType(), FIELD_ELEMENT, FIELD_VALUE)
+      .addStatement(
+        "$N.add($N == null ? $S : $N.$N($N))",
+        FIELD_JOINER, FIELD_ELEMENT, "null", FIELD_ELEMENT, METHOD_TO_STRING, FIELD_VISITING
+      )
+      .endControlFlow()
+      .addStatement("return $N.toString()", FIELD_JOINER)
+      .build();
+  }
+}
@@ -30,17 +30,32 @@ import java.util.List;
 
 public class ViewModel {
 
+  private static final String SUFFIX_IMPLEMENTATION = "Impl";
+
+  private final String name;
   private final String simpleClassName;
   private final List<DtoField> fields = new ArrayList<>();
 
-  public ViewModel(String simpleClassName) {
+  public ViewModel(String name, String simpleClassName) {
+    this.name = name;
     this.simpleClassName = simpleClassName;
   }
 
+  public String getName() {
+    return name;
+  }
+
   public String getSimpleClassName() {
     return simpleClassName;
   }
 
+  /**
+   * Returns the name of the concrete view class, which contains only the fields of the view.
+   */
+  public String getSimpleImplementationClassName() {
+    return simpleClassName + SUFFIX_IMPLEMENTATION;
+  }
+
   void addField(DtoField field) {
     this.fields.add(field);
   }
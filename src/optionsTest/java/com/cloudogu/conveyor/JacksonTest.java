@@ -0,0 +1,200 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.otto.edison.hal.Links;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JacksonTest {
+
+  private final ObjectMapper mapper = new ObjectMapper().registerModule(new ConveyorModule());
+
+  @Test
+  void shouldSerializeWithGeneratedSerializer() throws JsonProcessingException {
+    Links links = Links.linkingTo()
+      .self("/people/trillian")
+      .build();
+
+    PersonDto dto = PersonDto.from(createTrillian(), links);
+
+    ObjectMapper reflective = new ObjectMapper();
+
+    JsonNode node = mapper.readTree(mapper.writeValueAsString(dto));
+    assertThat(node).isEqualTo(reflective.readTree(reflective.writeValueAsString(dto)));
+    assertThat(node.get("_links").get("self").get("href").asText()).isEqualTo("/people/trillian");
+    assertThat(node.get("age").asInt()).isEqualTo(26);
+  }
+
+  @Test
+  void shouldSkipNullValuesInGeneratedSerializer() throws JsonProcessingException {
+    Person person = createTrillian();
+    person.setLastName(null);
+
+    JsonNode node = mapper.readTree(mapper.writeValueAsString(PersonDto.from(person)));
+
+    assertThat(node.has("lastName")).isFalse();
+    assertThat(node.has("_links")).isFalse();
+  }
+
+  @Test
+  void shouldUpdateEntityFromJson() throws IOException {
+    Person person = createTrillian();
+
+    String json = "{\"lastName\":\"Astra\",\"age\":99,\"human\":false,"
+      + "\"_links\":{\"self\":{\"href\":\"/people/trillian\"}},\"unknown\":[1,2]}";
+
+    try (JsonParser parser = new ObjectMapper().getFactory().createParser(json)) {
+      PersonDtoJsonUpdater.updateFromJson(parser, person);
+    }
+
+    assertThat(person.getFirstName()).isEqualTo("Trillian");
+    assertThat(person.getLastName()).isEqualTo("Astra");
+    assertThat(person.isHuman()).isFalse();
+    // age is read only
+    assertThat(person.getAge()).isEqualTo(26);
+  }
+
+  @Test
+  void shouldUpdateCollectionsWithCodecOfParser() throws IOException {
+    Asteroid asteroid = new Asteroid();
+
+    try (JsonParser parser = mapper.getFactory().createParser("{\"tags\":[\"main-belt\"],\"orbit\":[2.77]}")) {
+      AsteroidDtoJsonUpdater.updateFromJson(parser, asteroid);
+    }
+
+    assertThat(asteroid.getTags()).containsExactly("main-belt");
+    assertThat(asteroid.getOrbit()).containsExactly(2.77);
+  }
+
+  @Test
+  void shouldUpdateCollectionsWithGivenCodec() throws IOException {
+    Asteroid asteroid = new Asteroid();
+
+    try (JsonParser parser = new JsonFactory().createParser("{\"name\":\"Ceres\",\"tags\":[\"dwarf planet\"]}")) {
+      AsteroidDtoJsonUpdater.updateFromJson(parser, mapper, asteroid);
+    }
+
+    assertThat(asteroid.getName()).isEqualTo("Ceres");
+    assertThat(asteroid.getTags()).containsExactly("dwarf planet");
+  }
+
+  @Test
+  void shouldRequireCodecForCollections() throws IOException {
+    Asteroid asteroid = new Asteroid();
+
+    try (JsonParser parser = new JsonFactory().createParser("{\"name\":\"Ceres\",\"tags\":[\"dwarf planet\"]}")) {
+      assertThatThrownBy(() -> AsteroidDtoJsonUpdater.updateFromJson(parser, asteroid))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("tags");
+    }
+  }
+
+  @Test
+  void shouldUpdateScalarsWithoutCodec() throws IOException {
+    Person person = createTrillian();
+
+    try (JsonParser parser = new JsonFactory().createParser("{\"lastName\":\"Astra\"}")) {
+      PersonDtoJsonUpdater.updateFromJson(parser, person);
+    }
+
+    assertThat(person.getLastName()).isEqualTo("Astra");
+  }
+
+  @Test
+  void shouldSerializeOnlySelectedFields() {
+    Astronaut astronaut = new Astronaut();
+    astronaut.setName("Arthur Dent");
+    astronaut.setRank("Sandwich Maker");
+    astronaut.setMissions(1);
+
+    JsonNode node = mapper.valueToTree(AstronautDto.fromFields(astronaut, AstronautDto.FieldSet.parse("name,missions")));
+
+    assertThat(node.get("name").asText()).isEqualTo("Arthur Dent");
+    assertThat(node.get("missions").asInt()).isEqualTo(1);
+    assertThat(node.has("rank")).isFalse();
+  }
+
+  @Test
+  void shouldSerializeLazyLinksWithGeneratedSerializer() throws JsonProcessingException {
+    AtomicInteger calls = new AtomicInteger();
+    SpaceshipDto dto = SpaceshipDto.fromLazy(new Spaceship("Heart of Gold", 2), () -> {
+      calls.incrementAndGet();
+      return Links.linkingTo().self("/ships/heart-of-gold").build();
+    });
+
+    JsonNode node = mapper.readTree(mapper.writeValueAsString(dto));
+
+    assertThat(node.get("_links").get("self").get("href").asText()).isEqualTo("/ships/heart-of-gold");
+    assertThat(calls).hasValue(1);
+  }
+
+  @Test
+  void shouldSerializeReusedDto() throws JsonProcessingException {
+    SpaceshipDto dto = SpaceshipDto.from(
+      new Spaceship("Heart of Gold", 2), Links.linkingTo().self("/ships/heart-of-gold").build()
+    );
+    dto.fillFrom(new Spaceship("Bistromath", 3));
+
+    JsonNode node = mapper.readTree(mapper.writeValueAsString(dto));
+
+    assertThat(node.has("_links")).isFalse();
+    assertThat(node.get("name").asText()).isEqualTo("Bistromath");
+  }
+
+  @Test
+  void shouldSerializeWithoutHalProperties() {
+    Transmission transmission = new Transmission();
+    transmission.setSender("Heart of Gold");
+    transmission.setContent("Don't panic");
+    transmission.setTimestamp(42L);
+
+    JsonNode node = mapper.valueToTree(TransmissionDto.from(transmission));
+
+    assertThat(node.has("_links")).isFalse();
+    assertThat(node.has("_embedded")).isFalse();
+    assertThat(node.get("sender").asText()).isEqualTo("Heart of Gold");
+  }
+
+  private Person createTrillian() {
+    Person person = new Person();
+    person.setFirstName("Trillian");
+    person.setLastName("McMillan");
+    person.setAge(26);
+    person.setHuman(true);
+    person.setNotes("This should not be in the dto");
+    return person;
+  }
+}
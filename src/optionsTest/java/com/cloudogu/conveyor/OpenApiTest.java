@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpenApiTest {
+
+  private JsonNode readSchemas(Class<?> dtoType) throws IOException {
+    String resource = "META-INF/conveyor/openapi/" + dtoType.getName() + ".json";
+    try (InputStream input = getClass().getClassLoader().getResourceAsStream(resource)) {
+      assertThat(input).isNotNull();
+      return new ObjectMapper().readTree(input);
+    }
+  }
+
+  @Test
+  void shouldDescribeFieldTypes() throws IOException {
+    JsonNode properties = readSchemas(PersonDto.class).get(PersonDto.class.getName()).get("properties");
+
+    assertThat(properties.get("firstName").get("type").asText()).isEqualTo("string");
+    assertThat(properties.get("age").get("type").asText()).isEqualTo("integer");
+    assertThat(properties.get("age").get("format").asText()).isEqualTo("int32");
+    assertThat(properties.get("human").get("type").asText()).isEqualTo("boolean");
+    assertThat(properties.has("notes")).isFalse();
+  }
+
+  @Test
+  void shouldDescribeHalProperties() throws IOException {
+    JsonNode properties = readSchemas(PersonDto.class).get(PersonDto.class.getName()).get("properties");
+
+    assertThat(properties.get("_links").get("type").asText()).isEqualTo("object");
+    assertThat(properties.get("_embedded").get("type").asText()).isEqualTo("object");
+  }
+
+  @Test
+  void shouldDescribeValidationConstraints() throws IOException {
+    JsonNode schema = readSchemas(PersonDto.class).get(PersonDto.class.getName());
+
+    assertThat(schema.get("required")).extracting(JsonNode::asText).containsExactly("firstName", "lastName");
+    JsonNode lastName = schema.get("properties").get("lastName");
+    assertThat(lastName.get("minLength").asInt()).isEqualTo(1);
+    assertThat(lastName.get("maxLength").asInt()).isEqualTo(42);
+  }
+
+  @Test
+  void shouldDescribeViews() throws IOException {
+    JsonNode schemas = readSchemas(AccDto.class);
+
+    assertThat(schemas.get(AccDto.class.getName()).get("properties").get("lastLogin").get("format").asText())
+      .isEqualTo("date-time");
+    assertThat(schemas.get(CreateAccDto.class.getName()).get("properties").fieldNames())
+      .toIterable()
+      .containsExactly("username", "mail");
+    assertThat(schemas.get(UpdateAccDto.class.getName()).get("properties").fieldNames())
+      .toIterable()
+      .containsExactly("mail");
+  }
+
+  @Test
+  void shouldReferenceNestedDtos() throws IOException {
+    JsonNode author = readSchemas(AuthorDto.class).get(AuthorDto.class.getName()).get("properties");
+    JsonNode book = readSchemas(BookDto.class).get(BookDto.class.getName()).get("properties");
+
+    assertThat(author.get("books").get("type").asText()).isEqualTo("array");
+    assertThat(author.get("books").get("items").get("$ref").asText())
+      .isEqualTo("#/components/schemas/" + BookDto.class.getName());
+    assertThat(book.get("author").get("$ref").asText()).isEqualTo("#/components/schemas/" + AuthorDto.class.getName());
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RegistryTest {
+
+  @Test
+  void shouldFindMapperForEntity() {
+    Optional<ConveyorRegistry.Mapper<Person, ?>> mapper = ConveyorRegistry.forEntity(Person.class);
+
+    assertThat(mapper).isPresent();
+    assertThat(mapper.get().getDtoType()).isEqualTo(PersonDto.class);
+  }
+
+  @Test
+  void shouldFindMapperForCustomClassName() {
+    Optional<ConveyorRegistry.Mapper<?, AccDto>> mapper = ConveyorRegistry.forDto(AccDto.class);
+
+    assertThat(mapper).isPresent();
+    assertThat(mapper.get().getEntityType()).isEqualTo(Account.class);
+    assertThat(mapper.get().getViewTypes()).containsExactly(CreateAccDto.class, UpdateAccDto.class);
+  }
+
+  @Test
+  void shouldMapEntities() {
+    Person person = new Person();
+    person.setFirstName("Tricia");
+
+    ConveyorRegistry.Mapper<Person, ?> mapper = ConveyorRegistry.forEntity(Person.class).get();
+    Object dto = mapper.from(person);
+    List<?> dtos = mapper.fromAll(Collections.singletonList(person));
+
+    assertThat(dto).isInstanceOf(PersonDto.class);
+    assertThat(((PersonDto) dto).getFirstName()).isEqualTo("Tricia");
+    assertThat(dtos).hasSize(1);
+  }
+
+  @Test
+  void shouldReturnEmptyForUnknownClass() {
+    assertThat(ConveyorRegistry.forEntity(String.class)).isEmpty();
+    assertThat(ConveyorRegistry.forDto(String.class)).isEmpty();
+  }
+
+  @Test
+  void shouldContainAllDtos() {
+    assertThat(ConveyorRegistry.getMappers())
+      .extracting(ConveyorRegistry.Mapper::getDtoType)
+      .contains(PersonDto.class, AccDto.class, BookDto.class, AuthorDto.class);
+  }
+
+  @Test
+  void shouldListRegistryInResource() throws IOException {
+    try (InputStream input = getClass().getClassLoader().getResourceAsStream("META-INF/conveyor/registries")) {
+      assertThat(input).isNotNull();
+      BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+      assertThat(reader.readLine()).isEqualTo("com.cloudogu.conveyor.ConveyorRegistry");
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SignalTest {
+
+  private Signal signal;
+
+  @BeforeEach
+  void setUpSignal() {
+    signal = new Signal();
+    signal.setName("Wow!");
+    signal.setBand('L');
+    signal.setFrequency(1420);
+  }
+
+  private void update(String json) throws IOException {
+    try (JsonParser parser = new ObjectMapper().getFactory().createParser(json)) {
+      SignalDtoJsonUpdater.updateFromJson(parser, signal);
+    }
+  }
+
+  @Test
+  void shouldUpdateEntityFromJson() throws IOException {
+    update("{\"name\":\"Arecibo\",\"band\":\"S\",\"frequency\":null}");
+
+    assertThat(signal.getName()).isEqualTo("Arecibo");
+    assertThat(signal.getBand()).isEqualTo('S');
+    assertThat(signal.getFrequency()).isNull();
+  }
+
+  @Test
+  void shouldRejectObjectForString() {
+    assertThatThrownBy(() -> update("{\"name\":{\"frequency\":1},\"band\":\"S\"}"))
+      .isInstanceOf(JsonParseException.class);
+
+    assertThat(signal.getFrequency()).isEqualTo(1420);
+  }
+
+  @Test
+  void shouldRejectNumberForString() {
+    assertThatThrownBy(() -> update("{\"name\":42}")).isInstanceOf(JsonParseException.class);
+  }
+
+  @Test
+  void shouldRejectArrayForBoxedPrimitive() {
+    assertThatThrownBy(() -> update("{\"frequency\":[1,2]}")).isInstanceOf(JsonParseException.class);
+  }
+
+  @Test
+  void shouldRejectObjectForPrimitive() {
+    assertThatThrownBy(() -> update("{\"band\":{\"name\":\"x\"}}")).isInstanceOf(JsonParseException.class);
+
+    assertThat(signal.getName()).isEqualTo("Wow!");
+  }
+
+  @Test
+  void shouldRejectEmptyCharacter() {
+    assertThatThrownBy(() -> update("{\"band\":\"\"}")).isInstanceOf(JsonParseException.class);
+  }
+
+  @Test
+  void shouldRejectMultipleCharacters() {
+    assertThatThrownBy(() -> update("{\"band\":\"SL\"}")).isInstanceOf(JsonParseException.class);
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatisticsTest {
+
+  @Test
+  void shouldWriteStatistics() throws IOException {
+    JsonNode statistics;
+    try (InputStream input = getClass().getClassLoader().getResourceAsStream("META-INF/conveyor/statistics.json")) {
+      assertThat(input).isNotNull();
+      statistics = new ObjectMapper().readTree(input);
+    }
+
+    assertThat(statistics.get("rounds").size()).isPositive();
+    assertThat(statistics.get("types").findValuesAsText("dto"))
+      .contains("com.cloudogu.conveyor.PersonDto", "com.cloudogu.conveyor.AccDto");
+  }
+
+  @Test
+  void shouldCountFields() throws IOException {
+    JsonNode statistics;
+    try (InputStream input = getClass().getClassLoader().getResourceAsStream("META-INF/conveyor/statistics.json")) {
+      statistics = new ObjectMapper().readTree(input);
+    }
+
+    for (JsonNode type : statistics.get("types")) {
+      if ("com.cloudogu.conveyor.AccDto".equals(type.get("dto").asText())) {
+        assertThat(type.get("fields").asInt()).isEqualTo(3);
+        assertThat(type.get("views").asInt()).isEqualTo(2);
+        // java.lang.Object is walked as well
+        assertThat(type.get("superClassLevels").asInt()).isEqualTo(1);
+      }
+    }
+  }
+}
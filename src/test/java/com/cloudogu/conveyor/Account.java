@@ -28,7 +28,8 @@ import java.time.Instant;
 
 @GenerateDto(
   className = "AccDto",
-  strategy = Strategy.EXCLUDE
+  strategy = Strategy.EXCLUDE,
+  viewClasses = true
 )
 public class Account {
 
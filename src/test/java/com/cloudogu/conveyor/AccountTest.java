@@ -24,8 +24,12 @@
 
 package com.cloudogu.conveyor;
 
+import de.otto.edison.hal.Links;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 class AccountTest {
@@ -58,4 +62,40 @@ class AccountTest {
     assertThat(updateDto.getMail()).isEqualTo("arthur.dent@hitchhiker.com");
   }
 
+  @Test
+  void shouldCreateViewClassWithViewFieldsOnly() {
+    CreateAccDtoImpl createDto = CreateAccDtoImpl.from(account);
+
+    assertThat(createDto).hasOnlyFields("username", "mail");
+    assertThat(createDto.getUsername()).isEqualTo("dent");
+    assertThat(createDto.getMail()).isEqualTo("arthur.dent@hitchhiker.com");
+  }
+
+  @Test
+  void shouldCreateViewClassWithLinks() {
+    UpdateAccDtoImpl updateDto = UpdateAccDtoImpl.from(account, Links.linkingTo().self("/accounts/dent").build());
+
+    assertThat(updateDto).isInstanceOf(UpdateAccDto.class);
+    assertThat(updateDto).hasOnlyFields("mail");
+    assertThat(updateDto.getLinks().getLinkBy("self")).isPresent();
+  }
+
+  @Test
+  void shouldCreateViewClassesForAllEntities() {
+    List<UpdateAccDtoImpl> dtos = UpdateAccDtoImpl.fromAll(Collections.singletonList(account));
+
+    assertThat(dtos).extracting(UpdateAccDtoImpl::getMail).containsExactly("arthur.dent@hitchhiker.com");
+  }
+
+  @Test
+  void shouldUpdateEntityFromViewClass() {
+    UpdateAccDtoImpl updateDto = UpdateAccDtoImpl.from(account);
+    updateDto.setMail("arthur@heart-of-gold.com");
+
+    updateDto.update(account);
+
+    assertThat(account.getMail()).isEqualTo("arthur@heart-of-gold.com");
+    assertThat(account.getUsername()).isEqualTo("dent");
+  }
+
 }
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.Set;
+
+@GenerateDto(contentHash = true, viewClasses = true)
+public class Asteroid {
+
+  @Include
+  @View("summary")
+  private String name;
+  @Include
+  @View("summary")
+  private double diameter;
+  @Include
+  private Integer moons;
+  @Include
+  private boolean hazardous;
+  @Include
+  private DayOfWeek discoveredOn;
+  @Include
+  private Set<String> tags;
+  @Include
+  private double[] orbit;
+  @Include
+  private List<Asteroid> fragments;
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public double getDiameter() {
+    return diameter;
+  }
+
+  public void setDiameter(double diameter) {
+    this.diameter = diameter;
+  }
+
+  public Integer getMoons() {
+    return moons;
+  }
+
+  public void setMoons(Integer moons) {
+    this.moons = moons;
+  }
+
+  public boolean isHazardous() {
+    return hazardous;
+  }
+
+  public void setHazardous(boolean hazardous) {
+    this.hazardous = hazardous;
+  }
+
+  public DayOfWeek getDiscoveredOn() {
+    return discoveredOn;
+  }
+
+  public void setDiscoveredOn(DayOfWeek discoveredOn) {
+    this.discoveredOn = discoveredOn;
+  }
+
+  public Set<String> getTags() {
+    return tags;
+  }
+
+  public void setTags(Set<String> tags) {
+    this.tags = tags;
+  }
+
+  public double[] getOrbit() {
+    return orbit;
+  }
+
+  public void setOrbit(double[] orbit) {
+    this.orbit = orbit;
+  }
+
+  public List<Asteroid> getFragments() {
+    return fragments;
+  }
+
+  public void setFragments(List<Asteroid> fragments) {
+    this.fragments = fragments;
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsteroidTest {
+
+  private Asteroid asteroid(String name) {
+    Asteroid asteroid = new Asteroid();
+    asteroid.setName(name);
+    asteroid.setDiameter(525.4);
+    asteroid.setMoons(0);
+    asteroid.setHazardous(false);
+    asteroid.setDiscoveredOn(DayOfWeek.THURSDAY);
+    asteroid.setTags(new HashSet<>(Arrays.asList("main-belt", "protoplanet")));
+    asteroid.setOrbit(new double[]{2.36, 0.09});
+    return asteroid;
+  }
+
+  @Test
+  void shouldReturnEqualHashForEqualContent() {
+    AsteroidDto vesta = AsteroidDto.from(asteroid("Vesta"));
+    AsteroidDto copy = AsteroidDto.from(asteroid("Vesta"));
+
+    assertThat(vesta.contentHash()).isEqualTo(copy.contentHash());
+  }
+
+  @Test
+  void shouldChangeHashWithContent() {
+    long hash = AsteroidDto.from(asteroid("Vesta")).contentHash();
+
+    Asteroid hazardous = asteroid("Vesta");
+    hazardous.setHazardous(true);
+    Asteroid withoutMoons = asteroid("Vesta");
+    withoutMoons.setMoons(null);
+    Asteroid discovered = asteroid("Vesta");
+    discovered.setDiscoveredOn(DayOfWeek.FRIDAY);
+
+    assertThat(AsteroidDto.from(asteroid("Pallas")).contentHash()).isNotEqualTo(hash);
+    assertThat(AsteroidDto.from(hazardous).contentHash()).isNotEqualTo(hash);
+    assertThat(AsteroidDto.from(withoutMoons).contentHash()).isNotEqualTo(hash);
+    assertThat(AsteroidDto.from(discovered).contentHash()).isNotEqualTo(hash);
+  }
+
+  @Test
+  void shouldIgnoreOrderOfSets() {
+    Asteroid vesta = asteroid("Vesta");
+    Asteroid reordered = asteroid("Vesta");
+    reordered.setTags(new LinkedHashSet<>(Arrays.asList("protoplanet", "main-belt")));
+
+    assertThat(AsteroidDto.from(reordered).contentHash()).isEqualTo(AsteroidDto.from(vesta).contentHash());
+  }
+
+  @Test
+  void shouldHashContentOfArrays() {
+    long hash = AsteroidDto.from(asteroid("Vesta")).contentHash();
+
+    Asteroid changed = asteroid("Vesta");
+    changed.setOrbit(new double[]{2.36, 0.1});
+
+    assertThat(AsteroidDto.from(asteroid("Vesta")).contentHash()).isEqualTo(hash);
+    assertThat(AsteroidDto.from(changed).contentHash()).isNotEqualTo(hash);
+  }
+
+  @Test
+  void shouldRejectTypesWithoutStableHash(@TempDir Path directory) {
+    Map<String, String> sources = Collections.singletonMap("sample.Meteor", String.join("\n",
+      "package sample;",
+      "",
+      "import com.cloudogu.conveyor.*;",
+      "import java.util.Date;",
+      "",
+      "@GenerateDto(contentHash = true)",
+      "public class Meteor {",
+      "  @Include private Date impact;",
+      "  public Date getImpact() { return impact; }",
+      "  public void setImpact(Date impact) { this.impact = impact; }",
+      "}"
+    ));
+
+    assertThatThrownBy(() -> TestCompiler.compile(directory, sources, Collections.emptyList()))
+      .hasStackTraceContaining("content hash");
+  }
+
+  @Test
+  void shouldHashNestedDtos() {
+    Asteroid vesta = asteroid("Vesta");
+    vesta.setFragments(Collections.singletonList(asteroid("Vesta-1")));
+    Asteroid changed = asteroid("Vesta");
+    changed.setFragments(Collections.singletonList(asteroid("Vesta-2")));
+
+    assertThat(AsteroidDto.from(vesta).contentHash())
+      .isNotEqualTo(AsteroidDto.from(changed).contentHash())
+      .isNotEqualTo(AsteroidDto.from(asteroid("Vesta")).contentHash());
+  }
+
+  @Test
+  void shouldHashFieldsOfView() {
+    Asteroid vesta = asteroid("Vesta");
+    Asteroid changed = asteroid("Vesta");
+    changed.setMoons(1);
+
+    AsteroidDto dto = AsteroidDto.from(vesta);
+
+    assertThat(dto.summaryContentHash())
+      .isEqualTo(AsteroidDto.from(changed).summaryContentHash())
+      .isEqualTo(SummaryAsteroidDtoImpl.from(vesta).contentHash())
+      .isNotEqualTo(dto.contentHash());
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AstronautTest {
+
+  private final Astronaut astronaut = createAstronaut();
+
+  private Astronaut createAstronaut() {
+    Astronaut astronaut = new Astronaut();
+    astronaut.setName("Arthur Dent");
+    astronaut.setRank("Sandwich Maker");
+    astronaut.setMissions(1);
+    return astronaut;
+  }
+
+  @Test
+  void shouldParseFieldSet() {
+    AstronautDto.FieldSet fieldSet = AstronautDto.FieldSet.parse(" name, missions ");
+
+    assertThat(fieldSet.getMask()).isEqualTo(AstronautDto.FIELD_NAME | AstronautDto.FIELD_MISSIONS);
+    assertThat(fieldSet.contains(AstronautDto.FIELD_RANK)).isFalse();
+    assertThat(fieldSet).isEqualTo(AstronautDto.FieldSet.of(AstronautDto.FIELD_NAME | AstronautDto.FIELD_MISSIONS));
+  }
+
+  @Test
+  void shouldSelectAllFieldsForEmptyList() {
+    assertThat(AstronautDto.FieldSet.parse(null)).isSameAs(AstronautDto.FieldSet.ALL);
+    assertThat(AstronautDto.FieldSet.parse("")).isSameAs(AstronautDto.FieldSet.ALL);
+    assertThat(AstronautDto.FieldSet.ALL.getMask()).isEqualTo(AstronautDto.ALL_FIELDS);
+  }
+
+  @Test
+  void shouldFailForUnknownField() {
+    assertThatThrownBy(() -> AstronautDto.FieldSet.parse("name,towel"))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessageContaining("towel");
+  }
+
+  @Test
+  void shouldCopyOnlySelectedFields() {
+    Astronaut entity = new Astronaut() {
+      @Override
+      public String getRank() {
+        throw new AssertionError("rank is not selected");
+      }
+    };
+    entity.setName("Ford Prefect");
+
+    AstronautDto dto = AstronautDto.fromFields(entity, AstronautDto.FieldSet.parse("name"));
+
+    assertThat(dto.getName()).isEqualTo("Ford Prefect");
+    assertThat(dto.getRank()).isNull();
+    assertThat(dto.selectedFields()).isEqualTo(AstronautDto.FIELD_NAME);
+  }
+
+  @Test
+  void shouldSelectAllFieldsByDefault() {
+    AstronautDto dto = AstronautDto.from(astronaut);
+
+    assertThat(dto.selectedFields()).isEqualTo(AstronautDto.ALL_FIELDS);
+  }
+
+  @Test
+  void shouldCreateDtosForAllEntities() {
+    List<AstronautDto> dtos = AstronautDto.fromAllFields(Collections.singletonList(astronaut), AstronautDto.FieldSet.parse("rank"));
+
+    assertThat(dtos).extracting(AstronautDto::getRank).containsExactly("Sandwich Maker");
+    assertThat(dtos).extracting(AstronautDto::getName).containsNull();
+  }
+
+  @Test
+  void shouldSelectFieldsModifiedBySetters() {
+    AstronautDto dto = AstronautDto.fromFields(astronaut, AstronautDto.FieldSet.parse("name"));
+    dto.setMissions(2);
+
+    assertThat(dto.selectedFields()).isEqualTo(AstronautDto.FIELD_NAME | AstronautDto.FIELD_MISSIONS);
+  }
+
+  @Test
+  void shouldUpdateOnlySelectedFields() {
+    AstronautDto dto = AstronautDto.fromFields(createAstronaut(), AstronautDto.FieldSet.parse("name"));
+    dto.setName("Zaphod Beeblebrox");
+
+    dto.update(astronaut);
+
+    assertThat(astronaut.getName()).isEqualTo("Zaphod Beeblebrox");
+    assertThat(astronaut.getRank()).isEqualTo("Sandwich Maker");
+    assertThat(astronaut.getMissions()).isEqualTo(1);
+  }
+}
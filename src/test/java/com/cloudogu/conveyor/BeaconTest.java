@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BeaconTest {
+
+  private Beacon createBeacon(String name, Integer channel, double frequency) {
+    Beacon beacon = new Beacon();
+    beacon.setName(name);
+    beacon.setChannel(channel);
+    beacon.setFrequency(frequency);
+    beacon.setPassphrase("secret");
+    return beacon;
+  }
+
+  @Test
+  void shouldWriteCsvHeader() throws IOException {
+    StringWriter out = new StringWriter();
+    try (BeaconDtoCsvWriter writer = new BeaconDtoCsvWriter(out)) {
+      writer.writeHeader();
+    }
+
+    assertThat(out).hasToString("name,channel,frequency\r\n");
+  }
+
+  @Test
+  void shouldWriteEntitiesAsCsv() throws IOException {
+    StringWriter out = new StringWriter();
+    try (BeaconDtoCsvWriter writer = new BeaconDtoCsvWriter(out)) {
+      writer.writeAll(Arrays.asList(
+        createBeacon("Vogon", 42, 1.5),
+        createBeacon("Heart of \"Gold\", Inc.", null, 2.0)
+      ));
+    }
+
+    assertThat(out).hasToString("Vogon,42,1.5\r\n\"Heart of \"\"Gold\"\", Inc.\",,2.0\r\n");
+  }
+
+  @Test
+  void shouldWriteDtoAsCsv() throws IOException {
+    StringWriter out = new StringWriter();
+    try (BeaconDtoCsvWriter writer = new BeaconDtoCsvWriter(out)) {
+      writer.write(BeaconDto.from(createBeacon("Vogon", 42, 1.5)));
+    }
+
+    assertThat(out).hasToString("Vogon,42,1.5\r\n");
+  }
+
+  @Test
+  void shouldWriteEntitiesAsNdjson() throws IOException {
+    StringWriter out = new StringWriter();
+    try (BeaconDtoNdjsonWriter writer = new BeaconDtoNdjsonWriter(out)) {
+      writer.writeAll(Arrays.asList(
+        createBeacon("Vogon", 42, 1.5),
+        createBeacon("Heart of \"Gold\"\n\\", null, 2.0)
+      ));
+    }
+
+    assertThat(out).hasToString(
+      "{\"name\":\"Vogon\",\"channel\":42,\"frequency\":1.5}\n"
+        + "{\"name\":\"Heart of \\\"Gold\\\"\\n\\\\\",\"channel\":null,\"frequency\":2.0}\n"
+    );
+  }
+
+  @Test
+  void shouldEscapeControlCharactersInNdjson() throws IOException {
+    StringWriter out = new StringWriter();
+    try (BeaconDtoNdjsonWriter writer = new BeaconDtoNdjsonWriter(out)) {
+      writer.write(createBeacon("a\tb\u0001", 1, 0.0));
+    }
+
+    assertThat(out).hasToString("{\"name\":\"a\\tb\\u0001\",\"channel\":1,\"frequency\":0.0}\n");
+  }
+
+  @Test
+  void shouldWriteNonFiniteNumbersAsNullInNdjson() throws IOException {
+    StringWriter out = new StringWriter();
+    try (BeaconDtoNdjsonWriter writer = new BeaconDtoNdjsonWriter(out)) {
+      writer.writeAll(Arrays.asList(
+        createBeacon("Vogon", 1, Double.NaN),
+        createBeacon("Vogon", 2, Double.POSITIVE_INFINITY),
+        createBeacon("Vogon", 3, Double.NEGATIVE_INFINITY)
+      ));
+    }
+
+    assertThat(out).hasToString(
+      "{\"name\":\"Vogon\",\"channel\":1,\"frequency\":null}\n"
+        + "{\"name\":\"Vogon\",\"channel\":2,\"frequency\":null}\n"
+        + "{\"name\":\"Vogon\",\"channel\":3,\"frequency\":null}\n"
+    );
+  }
+
+  @Test
+  void shouldWriteRowsLongerThanBuffer() throws IOException {
+    char[] name = new char[1000];
+    Arrays.fill(name, 'x');
+    StringWriter out = new StringWriter();
+    try (BeaconDtoCsvWriter writer = new BeaconDtoCsvWriter(out)) {
+      writer.write(createBeacon(new String(name), 1, 0.5));
+      writer.write(createBeacon("Vogon", 2, 1.5));
+    }
+
+    assertThat(out).hasToString(new String(name) + ",1,0.5\r\nVogon,2,1.5\r\n");
+  }
+
+  @Test
+  void shouldWriteUtf8ToOutputStream() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (BeaconDtoNdjsonWriter writer = new BeaconDtoNdjsonWriter(out)) {
+      writer.write(createBeacon("Zaphod \u00e4", 1, 0.0));
+    }
+
+    assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8))
+      .isEqualTo("{\"name\":\"Zaphod \u00e4\",\"channel\":1,\"frequency\":0.0}\n");
+  }
+}
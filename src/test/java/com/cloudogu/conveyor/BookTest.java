@@ -0,0 +1,182 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookTest {
+
+  private Author douglas;
+  private Book hitchhiker;
+  private Book restaurant;
+
+  @BeforeEach
+  void setUpBooks() {
+    douglas = new Author();
+    douglas.setName("Douglas Adams");
+
+    hitchhiker = book("The Hitchhiker's Guide to the Galaxy");
+    restaurant = book("The Restaurant at the End of the Universe");
+  }
+
+  private Book book(String title) {
+    Book book = new Book();
+    book.setTitle(title);
+    book.setAuthor(douglas);
+    douglas.getBooks().add(book);
+    return book;
+  }
+
+  @Test
+  void shouldMapNestedDto() {
+    BookDto dto = BookDto.from(hitchhiker);
+
+    assertThat(dto.getAuthor().getName()).isEqualTo("Douglas Adams");
+  }
+
+  @Test
+  void shouldMapNestedCollection() {
+    AuthorDto dto = AuthorDto.from(douglas);
+
+    assertThat(dto.getBooks()).extracting(BookDto::getTitle).containsExactly(
+      "The Hitchhiker's Guide to the Galaxy", "The Restaurant at the End of the Universe"
+    );
+  }
+
+  @Test
+  void shouldResolveCyclicReferences() {
+    BookDto dto = BookDto.from(hitchhiker);
+
+    assertThat(dto.getAuthor().getBooks().get(0)).isSameAs(dto);
+    assertThat(dto.getAuthor().getBooks().get(1).getAuthor()).isSameAs(dto.getAuthor());
+  }
+
+  @Test
+  void shouldMapSharedEntitiesOnce() {
+    List<BookDto> dtos = BookDto.fromAll(Arrays.asList(hitchhiker, restaurant));
+
+    assertThat(dtos.get(0).getAuthor()).isSameAs(dtos.get(1).getAuthor());
+    assertThat(dtos.get(0).getAuthor().getBooks()).containsExactly(dtos.get(0), dtos.get(1));
+  }
+
+  @Test
+  void shouldReadCyclicReferences() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BookDto.from(hitchhiker).writeTo(new DataOutputStream(bytes));
+
+    BookDto dto = BookDto.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    assertThat(dto.getAuthor().getName()).isEqualTo("Douglas Adams");
+    assertThat(dto.getAuthor().getBooks().get(0)).isSameAs(dto);
+    assertThat(dto.getAuthor().getBooks().get(1).getTitle()).isEqualTo("The Restaurant at the End of the Universe");
+    assertThat(dto.getAuthor().getBooks().get(1).getAuthor()).isSameAs(dto.getAuthor());
+  }
+
+  @Test
+  void shouldWriteSharedDtosOnce() throws IOException {
+    ByteArrayOutputStream single = new ByteArrayOutputStream();
+    BookDto.from(hitchhiker).writeTo(new DataOutputStream(single));
+    douglas.getBooks().add(hitchhiker);
+    ByteArrayOutputStream shared = new ByteArrayOutputStream();
+    BookDto.from(hitchhiker).writeTo(new DataOutputStream(shared));
+
+    AuthorDto dto = BookDto.readFrom(new DataInputStream(new ByteArrayInputStream(shared.toByteArray()))).getAuthor();
+
+    assertThat(shared.size()).isEqualTo(single.size() + 1);
+    assertThat(dto.getBooks().get(2)).isSameAs(dto.getBooks().get(0));
+  }
+
+  @Test
+  void shouldHashCyclicReferences() {
+    long hash = BookDto.from(hitchhiker).contentHash();
+
+    assertThat(BookDto.from(hitchhiker).contentHash()).isEqualTo(hash);
+
+    douglas.setName("Douglas Noel Adams");
+
+    assertThat(BookDto.from(hitchhiker).contentHash()).isNotEqualTo(hash);
+  }
+
+  @Test
+  void shouldCompareCyclicReferences() {
+    BookDto dto = BookDto.from(hitchhiker);
+    BookDto other = BookDto.from(hitchhiker);
+
+    assertThat(dto).isNotSameAs(other).isEqualTo(other).hasSameHashCodeAs(other);
+    assertThat(dto).isNotEqualTo(BookDto.from(restaurant));
+  }
+
+  @Test
+  void shouldCompareNestedDtos() {
+    BookDto dto = BookDto.from(hitchhiker);
+    BookDto other = BookDto.from(hitchhiker);
+    other.getAuthor().setName("Eoin Colfer");
+
+    assertThat(dto).isNotEqualTo(other);
+    assertThat(dto.getAuthor()).isNotEqualTo(other.getAuthor());
+  }
+
+  @Test
+  void shouldPrintCyclicReferences() {
+    BookDto dto = BookDto.from(hitchhiker);
+
+    assertThat(dto).hasToString(
+      "BookDto{title=The Hitchhiker's Guide to the Galaxy, author=AuthorDto{name=Douglas Adams, books=[BookDto{...}, "
+        + "BookDto{title=The Restaurant at the End of the Universe, author=AuthorDto{...}}]}}"
+    );
+  }
+
+  @Test
+  void shouldMapNullNestedEntity() {
+    hitchhiker.setAuthor(null);
+
+    BookDto dto = BookDto.from(hitchhiker);
+
+    assertThat(dto.getAuthor()).isNull();
+  }
+
+  @Test
+  void shouldNotUpdateNestedEntity() {
+    BookDto dto = BookDto.from(hitchhiker);
+    dto.setTitle("Life, the Universe and Everything");
+    dto.setAuthor(null);
+
+    dto.update(hitchhiker);
+
+    assertThat(hitchhiker.getTitle()).isEqualTo("Life, the Universe and Everything");
+    assertThat(hitchhiker.getAuthor()).isSameAs(douglas);
+  }
+}
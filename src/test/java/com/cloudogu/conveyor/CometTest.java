@@ -0,0 +1,205 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CometTest {
+
+  private final CometDtoCachingMapper mapper = new CometDtoCachingMapper();
+
+  private Comet comet(long id, Integer revision, String name) {
+    Comet comet = new Comet();
+    comet.setId(id);
+    comet.setRevision(revision);
+    comet.setName(name);
+    return comet;
+  }
+
+  @Test
+  void shouldReturnCachedDto() {
+    Comet halley = comet(1, 1, "Halley");
+
+    CometDto dto = mapper.from(halley);
+
+    assertThat(dto.getName()).isEqualTo("Halley");
+    assertThat(mapper.from(comet(1, 1, "Halley"))).isSameAs(dto);
+    assertThat(mapper.getHitCount()).isEqualTo(1);
+    assertThat(mapper.getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldReplaceDtoOfChangedVersion() {
+    CometDto dto = mapper.from(comet(1, 1, "Halley"));
+
+    CometDto changed = mapper.from(comet(1, 2, "1P/Halley"));
+
+    assertThat(changed).isNotSameAs(dto);
+    assertThat(changed.getName()).isEqualTo("1P/Halley");
+    assertThat(mapper.from(comet(1, 2, "1P/Halley"))).isSameAs(changed);
+    assertThat(mapper.size()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotCacheEntitiesWithoutVersion() {
+    Comet encke = comet(2, null, "Encke");
+
+    assertThat(mapper.from(encke)).isNotSameAs(mapper.from(encke));
+    assertThat(mapper.size()).isZero();
+    assertThat(mapper.getMissCount()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldEvictOldestEntries() {
+    CometDto halley = mapper.from(comet(1, 1, "Halley"));
+    mapper.from(comet(2, 1, "Encke"));
+    CometDto tempel = mapper.from(comet(3, 1, "Tempel"));
+
+    assertThat(mapper.getMaximumSize()).isEqualTo(CometDtoCachingMapper.DEFAULT_MAXIMUM_SIZE).isEqualTo(2);
+    assertThat(mapper.size()).isEqualTo(2);
+    assertThat(mapper.getEvictionCount()).isEqualTo(1);
+    assertThat(mapper.from(comet(3, 1, "Tempel"))).isSameAs(tempel);
+    assertThat(mapper.from(comet(1, 1, "Halley"))).isNotSameAs(halley);
+  }
+
+  @Test
+  void shouldInvalidate() {
+    CometDto dto = mapper.from(comet(1, 1, "Halley"));
+
+    mapper.invalidate(1L);
+
+    assertThat(mapper.from(comet(1, 1, "Halley"))).isNotSameAs(dto);
+
+    mapper.invalidateAll();
+
+    assertThat(mapper.size()).isZero();
+  }
+
+  @Test
+  void shouldNotCacheEntitiesWithoutId() {
+    Comet first = comet(0, 1, "Borisov");
+    Comet second = comet(0, 1, "Oumuamua");
+
+    assertThat(mapper.from(first).getName()).isEqualTo("Borisov");
+    assertThat(mapper.from(second).getName()).isEqualTo("Oumuamua");
+    assertThat(mapper.size()).isZero();
+  }
+
+  @Test
+  void shouldNotEvictReinsertedEntriesEarly() {
+    mapper.from(comet(1, 1, "Halley"));
+    mapper.invalidate(1L);
+    CometDto halley = mapper.from(comet(1, 1, "Halley"));
+    CometDto encke = mapper.from(comet(2, 1, "Encke"));
+
+    assertThat(mapper.getEvictionCount()).isZero();
+    assertThat(mapper.from(comet(1, 1, "Halley"))).isSameAs(halley);
+    assertThat(mapper.from(comet(2, 1, "Encke"))).isSameAs(encke);
+  }
+
+  @Test
+  void shouldResetInsertionOrderOnInvalidateAll() {
+    mapper.from(comet(1, 1, "Halley"));
+    mapper.from(comet(2, 1, "Encke"));
+    mapper.invalidateAll();
+    CometDto halley = mapper.from(comet(1, 1, "Halley"));
+    CometDto tempel = mapper.from(comet(3, 1, "Tempel"));
+
+    assertThat(mapper.getEvictionCount()).isZero();
+    assertThat(mapper.from(comet(3, 1, "Tempel"))).isSameAs(tempel);
+    assertThat(mapper.from(comet(1, 1, "Halley"))).isSameAs(halley);
+  }
+
+  @Test
+  void shouldCopyCollectionsOfCachedDtos() {
+    Comet halley = comet(1, 1, "Halley");
+    halley.getAliases().add("1P/Halley");
+
+    CometDto dto = mapper.from(halley);
+    halley.getAliases().add("Halley's Comet");
+
+    assertThat(dto.getAliases()).containsExactly("1P/Halley");
+    assertThatThrownBy(() -> dto.getAliases().add("Halley's Comet")).isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void shouldRejectMutableNestedDtos(@TempDir Path directory) {
+    Map<String, String> sources = new HashMap<>();
+    sources.put("sample.Orbit", String.join("\n",
+      "package sample;",
+      "",
+      "import com.cloudogu.conveyor.*;",
+      "",
+      "@GenerateDto(immutable = true, cacheSize = 10)",
+      "public class Orbit {",
+      "  @CacheId private Long id;",
+      "  @CacheVersion private Long version;",
+      "  @Include private Tail tail;",
+      "  public Long getId() { return id; }",
+      "  public Long getVersion() { return version; }",
+      "  public Tail getTail() { return tail; }",
+      "  public void setTail(Tail tail) { this.tail = tail; }",
+      "}"
+    ));
+    sources.put("sample.Tail", String.join("\n",
+      "package sample;",
+      "",
+      "import com.cloudogu.conveyor.*;",
+      "",
+      "@GenerateDto",
+      "public class Tail {",
+      "  @Include private String color;",
+      "  public String getColor() { return color; }",
+      "  public void setColor(String color) { this.color = color; }",
+      "}"
+    ));
+
+    assertThatThrownBy(() -> TestCompiler.compile(directory, sources, Collections.emptyList()))
+      .hasStackTraceContaining("caching mapper");
+  }
+
+  @Test
+  void shouldMapAll() {
+    List<CometDto> dtos = mapper.fromAll(Arrays.asList(comet(1, 1, "Halley"), comet(1, 1, "Halley")));
+
+    assertThat(dtos.get(1)).isSameAs(dtos.get(0));
+  }
+
+  @Test
+  void shouldRejectInvalidMaximumSize() {
+    assertThatThrownBy(() -> new CometDtoCachingMapper(0)).isInstanceOf(IllegalArgumentException.class);
+  }
+}
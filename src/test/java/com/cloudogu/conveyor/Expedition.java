@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+
+@GenerateDto(copyStrategy = CopyStrategy.PRESIZED_COPY)
+public class Expedition {
+
+  @Include
+  private String name;
+  @Include
+  private List<String> members;
+  @Include
+  private SortedSet<String> tags;
+  @Include
+  @Copy(CopyStrategy.IMMUTABLE_COPY)
+  private Set<String> ports;
+  @Include
+  @Copy(CopyStrategy.UNMODIFIABLE_VIEW)
+  private Map<String, Integer> supplies;
+  @Include
+  @Copy(CopyStrategy.SHARE)
+  private List<String> log;
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public List<String> getMembers() {
+    return members;
+  }
+
+  public void setMembers(List<String> members) {
+    this.members = members;
+  }
+
+  public SortedSet<String> getTags() {
+    return tags;
+  }
+
+  public void setTags(SortedSet<String> tags) {
+    this.tags = tags;
+  }
+
+  public Set<String> getPorts() {
+    return ports;
+  }
+
+  public void setPorts(Set<String> ports) {
+    this.ports = ports;
+  }
+
+  public Map<String, Integer> getSupplies() {
+    return supplies;
+  }
+
+  public void setSupplies(Map<String, Integer> supplies) {
+    this.supplies = supplies;
+  }
+
+  public List<String> getLog() {
+    return log;
+  }
+
+  public void setLog(List<String> log) {
+    this.log = log;
+  }
+}
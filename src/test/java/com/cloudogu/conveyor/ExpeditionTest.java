@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExpeditionTest {
+
+  private final Expedition expedition = createExpedition();
+
+  private Expedition createExpedition() {
+    Expedition expedition = new Expedition();
+    expedition.setName("Magrathea");
+    expedition.setMembers(new ArrayList<>(Arrays.asList("Arthur", "Ford")));
+    TreeSet<String> tags = new TreeSet<>(Collections.reverseOrder());
+    tags.addAll(Arrays.asList("a", "b", "c"));
+    expedition.setTags(tags);
+    expedition.setPorts(new LinkedHashSet<>(Arrays.asList("Betelgeuse", "Earth")));
+    Map<String, Integer> supplies = new HashMap<>();
+    supplies.put("towels", 2);
+    expedition.setSupplies(supplies);
+    expedition.setLog(new ArrayList<>(Collections.singletonList("departed")));
+    return expedition;
+  }
+
+  @Test
+  void shouldCopyCollections() {
+    ExpeditionDto dto = ExpeditionDto.from(expedition);
+    expedition.getMembers().add("Zaphod");
+
+    assertThat(dto.getMembers()).isNotSameAs(expedition.getMembers()).containsExactly("Arthur", "Ford");
+    dto.getMembers().add("Trillian");
+    assertThat(expedition.getMembers()).containsExactly("Arthur", "Ford", "Zaphod");
+  }
+
+  @Test
+  void shouldKeepComparatorOfSortedSet() {
+    ExpeditionDto dto = ExpeditionDto.from(expedition);
+
+    assertThat(dto.getTags()).isInstanceOf(TreeSet.class).containsExactly("c", "b", "a");
+  }
+
+  @Test
+  void shouldCreateImmutableCopy() {
+    ExpeditionDto dto = ExpeditionDto.from(expedition);
+    expedition.getPorts().add("Magrathea");
+
+    assertThat(dto.getPorts()).containsExactly("Betelgeuse", "Earth");
+    assertThatThrownBy(() -> dto.getPorts().add("Vogsphere")).isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void shouldCreateUnmodifiableView() {
+    ExpeditionDto dto = ExpeditionDto.from(expedition);
+    expedition.getSupplies().put("peanuts", 42);
+
+    assertThat(dto.getSupplies()).containsEntry("peanuts", 42);
+    assertThatThrownBy(() -> dto.getSupplies().clear()).isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void shouldShareCollection() {
+    ExpeditionDto dto = ExpeditionDto.from(expedition);
+
+    assertThat(dto.getLog()).isSameAs(expedition.getLog());
+  }
+
+  @Test
+  void shouldKeepNullCollections() {
+    ExpeditionDto dto = ExpeditionDto.from(new Expedition());
+
+    assertThat(dto.getMembers()).isNull();
+    assertThat(dto.getPorts()).isNull();
+    assertThat(dto.getSupplies()).isNull();
+  }
+
+  @Test
+  void shouldPassMutableCopiesToEntity() {
+    ExpeditionDto dto = ExpeditionDto.from(expedition);
+
+    Expedition entity = dto.toEntity();
+
+    assertThat(entity.getPorts()).isNotSameAs(dto.getPorts()).containsExactly("Betelgeuse", "Earth");
+    entity.getPorts().add("Vogsphere");
+    entity.getSupplies().put("peanuts", 42);
+    assertThat(dto.getPorts()).hasSize(2);
+  }
+}
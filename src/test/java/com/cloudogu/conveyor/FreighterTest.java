@@ -0,0 +1,190 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FreighterTest {
+
+  private final Freighter freighter = createFreighter();
+
+  private Freighter createFreighter() {
+    Freighter freighter = new Freighter();
+    freighter.setName("Vogon Freighter");
+    freighter.setCapacity(-42);
+    freighter.setMileage(Long.MAX_VALUE);
+    freighter.setSpeed(0.9);
+    freighter.setDocked(true);
+    freighter.getContainers().add(new Container("Poetry", 1200));
+    freighter.getContainers().add(new Container(null, null));
+    return freighter;
+  }
+
+  @Test
+  void shouldReadWrittenDto() throws IOException {
+    FreighterDto dto = FreighterDto.readFrom(input(write(FreighterDto.from(freighter))));
+
+    assertThat(dto.getName()).isEqualTo("Vogon Freighter");
+    assertThat(dto.getCapacity()).isEqualTo(-42);
+    assertThat(dto.getMileage()).isEqualTo(Long.MAX_VALUE);
+    assertThat(dto.getSpeed()).isEqualTo(0.9);
+    assertThat(dto.isDocked()).isTrue();
+    assertThat(dto.getContainers()).hasSize(2);
+    assertThat(dto.getContainers().get(0).getLabel()).isEqualTo("Poetry");
+    assertThat(dto.getContainers().get(0).getWeight()).isEqualTo(1200);
+  }
+
+  @Test
+  void shouldReadNullValues() throws IOException {
+    freighter.setName(null);
+    freighter.setSpeed(null);
+    freighter.setContainers(null);
+
+    FreighterDto dto = FreighterDto.readFrom(input(write(FreighterDto.from(freighter))));
+
+    assertThat(dto.getName()).isNull();
+    assertThat(dto.getSpeed()).isNull();
+    assertThat(dto.getContainers()).isNull();
+    assertThat(dto.getCapacity()).isEqualTo(-42);
+  }
+
+  @Test
+  void shouldReadNullValuesOfNestedDtos() throws IOException {
+    FreighterDto dto = FreighterDto.readFrom(input(write(FreighterDto.from(freighter))));
+
+    ContainerDto container = dto.getContainers().get(1);
+    assertThat(container.getLabel()).isNull();
+    assertThat(container.getWeight()).isNull();
+  }
+
+  @Test
+  void shouldReadWrittenViewClass() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    SummaryFreighterDtoImpl.from(freighter).writeTo(new DataOutputStream(bytes));
+
+    SummaryFreighterDtoImpl dto = SummaryFreighterDtoImpl.readFrom(input(bytes.toByteArray()));
+
+    assertThat(dto.getName()).isEqualTo("Vogon Freighter");
+    assertThat(dto.getMileage()).isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  void shouldFailOnIncompatibleSchema() {
+    byte[] bytes = write(FreighterDto.from(freighter));
+    bytes[0]++;
+
+    assertThatThrownBy(() -> FreighterDto.readFrom(input(bytes)))
+      .isInstanceOf(IOException.class)
+      .hasMessageContaining("FreighterDto");
+  }
+
+  @Test
+  void shouldFailOnTruncatedInput() {
+    byte[] bytes = write(FreighterDto.from(freighter));
+
+    assertThatThrownBy(() -> FreighterDto.readFrom(input(Arrays.copyOf(bytes, bytes.length - 3))))
+      .isInstanceOf(EOFException.class);
+  }
+
+  @Test
+  void shouldNotAllocateLengthOfMissingString() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    output.writeLong(SummaryFreighterDtoImpl.SCHEMA_HASH);
+    // no null fields and a name of 2 GB, which has a single byte
+    output.write(new byte[]{0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 'V'});
+
+    assertThatThrownBy(() -> SummaryFreighterDtoImpl.readFrom(input(bytes.toByteArray())))
+      .isInstanceOf(EOFException.class);
+  }
+
+  @Test
+  void shouldRejectInvalidLength() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    output.writeLong(SummaryFreighterDtoImpl.SCHEMA_HASH);
+    output.write(new byte[]{0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F});
+
+    assertThatThrownBy(() -> SummaryFreighterDtoImpl.readFrom(input(bytes.toByteArray())))
+      .isInstanceOf(IOException.class)
+      .hasMessageContaining("invalid length");
+  }
+
+  @Test
+  void shouldNotPresizeSizeOfMissingCollection() {
+    freighter.getContainers().clear();
+    byte[] bytes = write(FreighterDto.from(freighter));
+
+    // the empty collection is written as size and schema hash of the containers at the end
+    int size = bytes.length - Long.BYTES - 1;
+    ByteArrayOutputStream hostile = new ByteArrayOutputStream();
+    hostile.write(bytes, 0, size);
+    hostile.write(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}, 0, 5);
+    hostile.write(bytes, size + 1, Long.BYTES);
+
+    assertThatThrownBy(() -> FreighterDto.readFrom(input(hostile.toByteArray())))
+      .isInstanceOf(EOFException.class);
+  }
+
+  @Test
+  void shouldUseDifferentSchemaHashesForViews() {
+    assertThat(SummaryFreighterDtoImpl.SCHEMA_HASH).isNotEqualTo(FreighterDto.SCHEMA_HASH);
+  }
+
+  @Test
+  void shouldBeSmallerThanJson() throws IOException {
+    FreighterDto dto = FreighterDto.from(freighter);
+
+    byte[] json = new ObjectMapper().writeValueAsBytes(dto);
+
+    assertThat(write(dto).length).isLessThan(json.length / 2);
+  }
+
+  private byte[] write(FreighterDto dto) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      dto.writeTo(new DataOutputStream(bytes));
+    } catch (IOException ex) {
+      throw new IllegalStateException(ex);
+    }
+    return bytes.toByteArray();
+  }
+
+  private DataInputStream input(byte[] bytes) {
+    return new DataInputStream(new ByteArrayInputStream(bytes));
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import de.otto.edison.hal.Links;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GalaxyTest {
+
+  private Galaxy galaxy(String name, double mass, String... aliases) {
+    Galaxy galaxy = new Galaxy();
+    galaxy.setName(name);
+    galaxy.setMass(mass);
+    galaxy.setAliases(aliases);
+    return galaxy;
+  }
+
+  private Galaxy andromeda() {
+    Galaxy andromeda = galaxy("Andromeda", 1.5e12, "M31", "NGC 224");
+    andromeda.setSatellites(Collections.singletonList(galaxy("M32", 3.2e9)));
+    return andromeda;
+  }
+
+  @Test
+  void shouldBeEqualForEqualFields() {
+    GalaxyDto dto = GalaxyDto.from(andromeda());
+    GalaxyDto other = GalaxyDto.from(andromeda());
+
+    assertThat(dto).isEqualTo(other).isNotSameAs(other);
+    assertThat(dto.hashCode()).isEqualTo(other.hashCode());
+  }
+
+  @Test
+  void shouldNotBeEqualForDifferentFields() {
+    GalaxyDto dto = GalaxyDto.from(andromeda());
+
+    assertThat(dto)
+      .isNotEqualTo(GalaxyDto.from(galaxy("Andromeda", 1.5e12, "M31")))
+      .isNotEqualTo(GalaxyDto.from(galaxy("Andromeda", 1.5e12, "M31", "NGC 224")))
+      .isNotEqualTo(dto.withName("Triangulum"))
+      .isNotEqualTo(null);
+  }
+
+  @Test
+  void shouldWorkInHashSets() {
+    Set<GalaxyDto> galaxies = new HashSet<>(Arrays.asList(
+      GalaxyDto.from(andromeda()), GalaxyDto.from(andromeda()), GalaxyDto.from(galaxy("Milky Way", 1.15e12))
+    ));
+
+    assertThat(galaxies).hasSize(2).contains(GalaxyDto.from(andromeda()));
+  }
+
+  @Test
+  void shouldCacheHashCode() {
+    GalaxyDto dto = GalaxyDto.from(andromeda());
+
+    assertThat(dto.hashCode()).isEqualTo(dto.hashCode()).isEqualTo(GalaxyDto.from(andromeda()).hashCode());
+  }
+
+  @Test
+  void shouldIgnoreLinks() {
+    GalaxyDto dto = GalaxyDto.from(andromeda(), Links.linkingTo().self("/galaxies/andromeda").build());
+
+    assertThat(dto).isEqualTo(GalaxyDto.from(andromeda()));
+  }
+
+  @Test
+  void shouldCreateString() {
+    GalaxyDto dto = GalaxyDto.from(galaxy("Andromeda", 1.5e12, "M31"));
+
+    assertThat(dto).hasToString("GalaxyDto{name=Andromeda, mass=1.5E12, aliases=[M31], satellites=null}");
+  }
+}
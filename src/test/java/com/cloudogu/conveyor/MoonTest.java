@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.otto.edison.hal.Links;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoonTest {
+
+  private Moon phobos;
+  private Moon deimos;
+
+  @BeforeEach
+  void setUpMoons() {
+    phobos = moon("Phobos", 11.2);
+    deimos = moon("Deimos", 6.2);
+  }
+
+  private Moon moon(String name, double radius) {
+    Moon moon = new Moon();
+    moon.setName(name);
+    moon.setRadius(radius);
+    return moon;
+  }
+
+  @Test
+  void shouldHaveFinalFields() {
+    for (Field field : MoonDto.class.getDeclaredFields()) {
+      assertThat(Modifier.isFinal(field.getModifiers())).as(field.getName()).isTrue();
+    }
+  }
+
+  @Test
+  void shouldCreateDto() {
+    MoonDto dto = MoonDto.from(phobos, Links.linkingTo().self("/moons/phobos").build());
+
+    assertThat(dto.getName()).isEqualTo("Phobos");
+    assertThat(dto.getRadius()).isEqualTo(11.2);
+    assertThat(dto.getCompanion()).isNull();
+    assertThat(dto.getLinks().getLinkBy("self")).isPresent();
+  }
+
+  @Test
+  void shouldCopyWithModifiedField() {
+    MoonDto dto = MoonDto.from(phobos, Links.linkingTo().self("/moons/phobos").build());
+
+    MoonDto copy = dto.withRadius(11.3);
+
+    assertThat(copy).isNotSameAs(dto);
+    assertThat(copy.getName()).isEqualTo("Phobos");
+    assertThat(copy.getRadius()).isEqualTo(11.3);
+    assertThat(copy.getLinks().getLinkBy("self")).isPresent();
+    assertThat(dto.getRadius()).isEqualTo(11.2);
+  }
+
+  @Test
+  void shouldUpdateEntity() {
+    MoonDto dto = MoonDto.from(phobos).withName("Fobos");
+
+    dto.update(phobos);
+
+    assertThat(phobos.getName()).isEqualTo("Fobos");
+  }
+
+  @Test
+  void shouldCreateEntity() {
+    Moon moon = MoonDto.from(deimos).toEntity();
+
+    assertThat(moon.getName()).isEqualTo("Deimos");
+    assertThat(moon.getRadius()).isEqualTo(6.2);
+  }
+
+  @Test
+  void shouldReadJson() throws IOException {
+    phobos.setCompanion(deimos);
+    ObjectMapper mapper = new ObjectMapper();
+    String json = mapper.writeValueAsString(MoonDto.from(phobos, Links.linkingTo().self("/moons/phobos").build()));
+
+    MoonDto dto = mapper.readValue(json, MoonDto.class);
+
+    assertThat(dto.getName()).isEqualTo("Phobos");
+    assertThat(dto.getRadius()).isEqualTo(11.2);
+    assertThat(dto.getCompanion().getName()).isEqualTo("Deimos");
+    assertThat(dto.getLinks().getLinkBy("self")).isPresent();
+  }
+
+  @Test
+  void shouldUpdateEntityFromJson() throws IOException {
+    MoonDto dto = new ObjectMapper().readValue("{\"name\":\"Fobos\",\"radius\":11.3}", MoonDto.class);
+
+    dto.update(phobos);
+
+    assertThat(phobos.getName()).isEqualTo("Fobos");
+    assertThat(phobos.getRadius()).isEqualTo(11.3);
+  }
+
+  @Test
+  void shouldMapSharedEntitiesOnce() {
+    phobos.setCompanion(deimos);
+    Moon moon = moon("Moon", 1737.4);
+    moon.setCompanion(deimos);
+
+    List<MoonDto> dtos = MoonDto.fromAll(Arrays.asList(phobos, moon));
+
+    assertThat(dtos.get(0).getCompanion().getName()).isEqualTo("Deimos");
+    assertThat(dtos.get(0).getCompanion()).isSameAs(dtos.get(1).getCompanion());
+  }
+
+  @Test
+  void shouldFailOnCyclicReferences() {
+    phobos.setCompanion(deimos);
+    deimos.setCompanion(phobos);
+
+    assertThatThrownBy(() -> MoonDto.from(phobos))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessageContaining("MoonDto");
+  }
+}
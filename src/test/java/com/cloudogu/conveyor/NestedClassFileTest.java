@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NestedClassFileTest {
+
+  private static final String CHILD = String.join("\n",
+    "package sample;",
+    "",
+    "import com.cloudogu.conveyor.GenerateDto;",
+    "import com.cloudogu.conveyor.Include;",
+    "",
+    "@GenerateDto(binary = true)",
+    "public class Child {",
+    "  @Include",
+    "  private String name;",
+    "  public String getName() { return name; }",
+    "  public void setName(String name) { this.name = name; }",
+    "}"
+  );
+
+  private static final String PARENT = String.join("\n",
+    "package sample;",
+    "",
+    "import com.cloudogu.conveyor.GenerateDto;",
+    "import com.cloudogu.conveyor.Include;",
+    "",
+    "@GenerateDto(binary = true)",
+    "public class Parent {",
+    "  @Include",
+    "  private Child child;",
+    "  public Child getChild() { return child; }",
+    "  public void setChild(Child child) { this.child = child; }",
+    "}"
+  );
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void shouldMapNestedEntityFromClassFile() throws IOException {
+    Path child = directory.resolve("child");
+    List<Diagnostic<? extends JavaFileObject>> diagnostics = TestCompiler.compile(
+      child, Collections.singletonMap("sample.Child", CHILD), Collections.emptyList()
+    );
+    assertThat(TestCompiler.errors(diagnostics)).isEmpty();
+
+    // the parent is compiled without the source of the child, like in an incremental build
+    Path parent = directory.resolve("parent");
+    diagnostics = TestCompiler.compile(
+      parent, Collections.singletonMap("sample.Parent", PARENT), Collections.emptyList(), child.resolve("classes")
+    );
+
+    assertThat(TestCompiler.errors(diagnostics)).isEmpty();
+    assertThat(TestCompiler.generated(parent, "sample.ParentDto")).contains("ChildDto getChild()");
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.executable.ExecutableValidator;
+import jakarta.validation.metadata.BeanDescriptor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class PassengerTest {
+
+  private Passenger createPassenger() {
+    Passenger passenger = new Passenger();
+    passenger.setName("Arthur Dent");
+    passenger.setAge(42);
+    passenger.setSeat("B42");
+    return passenger;
+  }
+
+  @Test
+  void shouldReturnEmptyListForValidDto() {
+    assertThat(PassengerDto.from(createPassenger()).validate()).isEmpty();
+  }
+
+  @Test
+  void shouldCheckNotNull() {
+    Passenger passenger = createPassenger();
+    passenger.setName(null);
+
+    List<PassengerDto.Violation> violations = PassengerDto.from(passenger).validate();
+
+    assertThat(violations)
+      .extracting(PassengerDto.Violation::getField, PassengerDto.Violation::getConstraint, PassengerDto.Violation::getMessage)
+      .containsExactly(tuple("name", "NotNull", "must not be null"));
+  }
+
+  @Test
+  void shouldCheckSize() {
+    Passenger passenger = createPassenger();
+    passenger.setName("A");
+    passenger.setLuggage(Arrays.asList("towel", "guide", "peanuts"));
+
+    List<PassengerDto.Violation> violations = PassengerDto.from(passenger).validate();
+
+    assertThat(violations)
+      .extracting(PassengerDto.Violation::getField, PassengerDto.Violation::getMessage)
+      .containsExactly(
+        tuple("name", "size must be between 2 and 20"),
+        tuple("luggage", "size must be between 0 and 2")
+      );
+  }
+
+  @Test
+  void shouldCheckRangeWithCustomMessage() {
+    Passenger passenger = createPassenger();
+    passenger.setAge(200);
+
+    List<PassengerDto.Violation> violations = PassengerDto.from(passenger).validate();
+
+    assertThat(violations).extracting(PassengerDto.Violation::getMessage).containsExactly("must be at most 150 years");
+  }
+
+  @Test
+  void shouldCheckPattern() {
+    Passenger passenger = createPassenger();
+    passenger.setSeat("42B");
+
+    List<PassengerDto.Violation> violations = PassengerDto.from(passenger).validate();
+
+    assertThat(violations).extracting(PassengerDto.Violation::getMessage).containsExactly("must match \"[A-Z]\\d{2}\"");
+  }
+
+  @Test
+  void shouldValidateOtherConstraintsByProvider() {
+    RecordingValidator validator = new RecordingValidator();
+
+    List<PassengerDto.Violation> violations = PassengerDto.from(createPassenger()).validate(validator);
+
+    assertThat(violations).isEmpty();
+    assertThat(validator.properties).containsExactly("mail");
+  }
+
+  private static class RecordingValidator implements Validator {
+
+    private final List<String> properties = new ArrayList<>();
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validate(T object, Class<?>... groups) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validateProperty(T object, String propertyName, Class<?>... groups) {
+      properties.add(propertyName);
+      return Collections.emptySet();
+    }
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validateValue(Class<T> beanType, String propertyName, Object value, Class<?>... groups) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public BeanDescriptor getConstraintsForClass(Class<?> clazz) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ExecutableValidator forExecutables() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
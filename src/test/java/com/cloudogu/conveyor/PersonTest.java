@@ -30,6 +30,10 @@ import jakarta.validation.constraints.Size;
 import org.junit.jupiter.api.Test;
 
 import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -57,6 +61,38 @@ class PersonTest {
     assertThat(dto.getLinks()).isEqualTo(links);
   }
 
+  @Test
+  void shouldCreateDtosFromCollection() {
+    Person trillian = createTrillian();
+    Person arthur = createArthur();
+
+    List<PersonDto> dtos = PersonDto.fromAll(Arrays.asList(trillian, arthur));
+    assertThat(dtos).extracting("firstName").containsExactly("Trillian", "Arthur");
+  }
+
+  @Test
+  void shouldCreateDtosFromCollectionWithLinks() {
+    List<PersonDto> dtos = PersonDto.fromAll(
+      Arrays.asList(createTrillian(), createArthur()),
+      person -> Links.linkingTo().self("/people/" + person.getFirstName()).build()
+    );
+
+    assertThat(dtos.get(0).getLinks().getLinkBy("self")).hasValueSatisfying(
+      link -> assertThat(link.getHref()).isEqualTo("/people/Trillian")
+    );
+    assertThat(dtos.get(1).getLinks().getLinkBy("self")).hasValueSatisfying(
+      link -> assertThat(link.getHref()).isEqualTo("/people/Arthur")
+    );
+  }
+
+  @Test
+  void shouldCreateDtosFromStream() {
+    List<PersonDto> dtos = PersonDto.fromStream(Stream.of(createTrillian(), createArthur()))
+      .collect(Collectors.toList());
+
+    assertThat(dtos).extracting("lastName").containsExactly("McMillan", "Dent");
+  }
+
   @Test
   void shouldCopySimpleAnnotation() throws NoSuchFieldException {
     NotNull annotation = annotation("firstName", NotNull.class);
@@ -112,4 +148,13 @@ class PersonTest {
     return person;
   }
 
+  private Person createArthur() {
+    Person person = new Person();
+    person.setFirstName("Arthur");
+    person.setLastName("Dent");
+    person.setAge(42);
+    person.setHuman(true);
+    return person;
+  }
+
 }
@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlanetTest {
+
+  @Test
+  void shouldNotTrackChangesOfFrom() {
+    PlanetDto dto = PlanetDto.from(createEarth());
+
+    assertThat(dto.changedFields()).isZero();
+  }
+
+  @Test
+  void shouldTrackChangedFields() {
+    PlanetDto dto = PlanetDto.from(createEarth());
+    dto.setPopulation(0);
+
+    assertThat(dto.changedFields()).isEqualTo(PlanetDto.FIELD_POPULATION);
+  }
+
+  @Test
+  void shouldUpdateOnlyChangedFields() {
+    Planet earth = createEarth();
+    PlanetDto dto = PlanetDto.from(earth);
+    dto.setInhabited(false);
+
+    Planet other = new Planet();
+    other.setName("Magrathea");
+    other.setPopulation(42);
+    other.setInhabited(true);
+    dto.update(other);
+
+    assertThat(other.getName()).isEqualTo("Magrathea");
+    assertThat(other.getPopulation()).isEqualTo(42);
+    assertThat(other.isInhabited()).isFalse();
+  }
+
+  @Test
+  void shouldCreateEntityWithChangedFields() {
+    PlanetDto dto = new PlanetDto();
+    dto.setName("Magrathea");
+
+    Planet planet = dto.toEntity();
+    assertThat(planet.getName()).isEqualTo("Magrathea");
+    assertThat(planet.getPopulation()).isZero();
+  }
+
+  private Planet createEarth() {
+    Planet planet = new Planet();
+    planet.setName("Earth");
+    planet.setPopulation(7_000_000_000L);
+    planet.setInhabited(true);
+    planet.setGalaxy("Milky Way");
+    return planet;
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SatelliteTest {
+
+  private Satellite hubble;
+
+  @BeforeEach
+  void setUpSatellite() {
+    hubble = new Satellite();
+    hubble.setId(1990);
+    hubble.setName("Hubble");
+    hubble.setAltitude(540.0);
+    hubble.setInstruments(new ArrayList<>(Arrays.asList("WFC3", "COS")));
+  }
+
+  @Test
+  void shouldNotDifferFromEntity() {
+    SatelliteDto dto = SatelliteDto.from(hubble);
+
+    assertThat(dto.differsFrom(hubble)).isFalse();
+    assertThat(dto.diff(hubble)).isZero();
+  }
+
+  @Test
+  void shouldReturnChangedFields() {
+    SatelliteDto dto = SatelliteDto.from(hubble);
+    dto.setName("Hubble Space Telescope");
+    dto.setInstruments(Arrays.asList("WFC3", "COS", "STIS"));
+
+    assertThat(dto.differsFrom(hubble)).isTrue();
+    assertThat(dto.diff(hubble)).isEqualTo(SatelliteDto.FIELD_NAME | SatelliteDto.FIELD_INSTRUMENTS);
+  }
+
+  @Test
+  void shouldCompareCollectionsByContent() {
+    SatelliteDto dto = SatelliteDto.from(hubble);
+    dto.setInstruments(new ArrayList<>(hubble.getInstruments()));
+
+    assertThat(dto.differsFrom(hubble)).isFalse();
+  }
+
+  @Test
+  void shouldTreatNaNAsEqual() {
+    hubble.setAltitude(Double.NaN);
+    SatelliteDto dto = SatelliteDto.from(hubble);
+
+    assertThat(dto.differsFrom(hubble)).isFalse();
+  }
+
+  @Test
+  void shouldIgnoreReadOnlyFields() {
+    SatelliteDto dto = SatelliteDto.from(hubble);
+    hubble.setId(2021);
+
+    assertThat(dto.differsFrom(hubble)).isFalse();
+  }
+
+  @Test
+  void shouldReturnChangedFieldsOfView() {
+    OrbitSatelliteDtoImpl dto = OrbitSatelliteDtoImpl.from(hubble);
+    dto.setAltitude(535.0);
+    hubble.setInstruments(null);
+
+    assertThat(dto.diff(hubble)).isEqualTo(SatelliteDto.FIELD_ALTITUDE);
+  }
+}
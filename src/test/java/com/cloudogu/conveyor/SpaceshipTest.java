@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.otto.edison.hal.Links;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpaceshipTest {
+
+  private final AtomicInteger calls = new AtomicInteger();
+
+  private final Supplier<Links> links = () -> {
+    calls.incrementAndGet();
+    return Links.linkingTo().self("/ships/heart-of-gold").build();
+  };
+
+  @Test
+  void shouldNotResolveLinksBeforeTheyAreRequested() {
+    SpaceshipDto dto = SpaceshipDto.fromLazy(createHeartOfGold(), links);
+
+    assertThat(dto.getName()).isEqualTo("Heart of Gold");
+    assertThat(calls).hasValue(0);
+  }
+
+  @Test
+  void shouldResolveLinksOnlyOnce() {
+    SpaceshipDto dto = SpaceshipDto.fromLazy(createHeartOfGold(), links);
+
+    assertThat(dto.getLinks().getLinkBy("self")).isPresent();
+    assertThat(dto.getLinks().getLinkBy("self")).isPresent();
+    assertThat(calls).hasValue(1);
+  }
+
+  @Test
+  void shouldSerializeLazyLinks() throws JsonProcessingException {
+    ObjectMapper mapper = new ObjectMapper();
+    JsonNode node = mapper.readTree(mapper.writeValueAsString(SpaceshipDto.fromLazy(createHeartOfGold(), links)));
+
+    assertThat(node.get("_links").get("self").get("href").asText()).isEqualTo("/ships/heart-of-gold");
+    assertThat(node.get("crew").asInt()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldUseEagerLinks() {
+    Links eager = Links.linkingTo().self("/ships/eager").build();
+    SpaceshipDto dto = SpaceshipDto.from(createHeartOfGold(), eager);
+
+    assertThat(dto.getLinks()).isEqualTo(eager);
+  }
+
+  @Test
+  void shouldFillExistingDto() {
+    SpaceshipDto dto = SpaceshipDto.from(createHeartOfGold());
+
+    SpaceshipDto filled = dto.fillFrom(new Spaceship("Vogon Constructor Fleet", 42));
+
+    assertThat(filled).isSameAs(dto);
+    assertThat(dto.getName()).isEqualTo("Vogon Constructor Fleet");
+    assertThat(dto.getCrew()).isEqualTo(42);
+  }
+
+  @Test
+  void shouldFillNewDto() {
+    SpaceshipDto dto = SpaceshipDto.fromInto(createHeartOfGold(), new SpaceshipDto());
+
+    assertThat(dto.getName()).isEqualTo("Heart of Gold");
+    assertThat(dto.getLinks().isEmpty()).isTrue();
+  }
+
+  @Test
+  void shouldReplaceLinksOfExistingDto() {
+    SpaceshipDto dto = SpaceshipDto.from(createHeartOfGold(), Links.linkingTo().self("/ships/heart-of-gold").build());
+
+    SpaceshipDto.fromInto(new Spaceship("Bistromath", 3), Links.linkingTo().self("/ships/bistromath").build(), dto);
+
+    assertThat(dto.getName()).isEqualTo("Bistromath");
+    assertThat(dto.getLinks().getLinkBy("self")).hasValueSatisfying(
+      link -> assertThat(link.getHref()).isEqualTo("/ships/bistromath")
+    );
+  }
+
+  @Test
+  void shouldClearLinksOfExistingDto() {
+    SpaceshipDto dto = SpaceshipDto.fromLazy(createHeartOfGold(), links);
+
+    SpaceshipDto.fromInto(new Spaceship("Bistromath", 3), dto);
+
+    assertThat(dto.getLinks().isEmpty()).isTrue();
+    assertThat(calls).hasValue(0);
+  }
+
+  private Spaceship createHeartOfGold() {
+    return new Spaceship("Heart of Gold", 2);
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import com.cloudogu.conveyor.internal.ConveyorProcessor;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles sources with the processor in the test jvm, for cases which the compilation of the test sources can not cover,
+ * e.g. entities which are loaded from class files or processor options.
+ */
+final class TestCompiler {
+
+  private TestCompiler() {
+  }
+
+  /**
+   * Compiles the sources, which are mapped by their qualified class name, to the output directory.
+   * The generated sources are written to the {@code generated} directory next to the classes.
+   *
+   * @return the diagnostics of the compilation
+   */
+  static List<Diagnostic<? extends JavaFileObject>> compile(
+    Path output, Map<String, String> sources, List<String> options, Path... classpath
+  ) {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+      Path sourceDirectory = Files.createDirectories(output.resolve("sources"));
+      Path classes = Files.createDirectories(output.resolve("classes"));
+      Path generated = Files.createDirectories(output.resolve("generated"));
+
+      List<File> files = new ArrayList<>();
+      for (Map.Entry<String, String> source : sources.entrySet()) {
+        Path file = sourceDirectory.resolve(source.getKey().replace('.', File.separatorChar) + ".java");
+        Files.createDirectories(file.getParent());
+        Files.write(file, source.getValue().getBytes(StandardCharsets.UTF_8));
+        files.add(file.toFile());
+      }
+
+      List<String> arguments = new ArrayList<>(Arrays.asList(
+        "-processor", ConveyorProcessor.class.getName(),
+        "-d", classes.toString(),
+        "-s", generated.toString(),
+        "-classpath", classpath(classpath)
+      ));
+      arguments.addAll(options);
+
+      compiler.getTask(null, fileManager, diagnostics, arguments, null, fileManager.getJavaFileObjectsFromFiles(files)).call();
+      return diagnostics.getDiagnostics();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * Returns the errors of the diagnostics as text, which is empty for a successful compilation.
+   */
+  static String errors(List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+    return diagnostics.stream()
+      .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+      .map(diagnostic -> diagnostic.getMessage(null))
+      .collect(Collectors.joining("\n"));
+  }
+
+  /**
+   * Reads a generated source, e.g. {@code com.example.PersonDto}.
+   */
+  static String generated(Path output, String className) throws IOException {
+    Path file = output.resolve("generated").resolve(className.replace('.', File.separatorChar) + ".java");
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+  }
+
+  private static String classpath(Path... classpath) {
+    List<String> entries = new ArrayList<>();
+    entries.add(System.getProperty("java.class.path"));
+    for (Path entry : classpath) {
+      entries.add(entry.toString());
+    }
+    return String.join(File.pathSeparator, entries);
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021, Cloudogu GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cloudogu.conveyor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransmissionTest {
+
+  private final Transmission transmission = createTransmission();
+
+  private Transmission createTransmission() {
+    Transmission transmission = new Transmission();
+    transmission.setSender("Heart of Gold");
+    transmission.setContent("Don't panic");
+    transmission.setTimestamp(42L);
+    return transmission;
+  }
+
+  @Test
+  void shouldNotExtendHalRepresentation() {
+    assertThat(TransmissionDto.class.getSuperclass()).isEqualTo(Object.class);
+    assertThat(SummaryTransmissionDtoImpl.class.getSuperclass()).isEqualTo(Object.class);
+  }
+
+  @Test
+  void shouldCreateDto() {
+    TransmissionDto dto = TransmissionDto.from(transmission);
+
+    assertThat(dto).hasOnlyFields("sender", "content", "timestamp");
+    assertThat(dto.getSender()).isEqualTo("Heart of Gold");
+    assertThat(dto.getContent()).isEqualTo("Don't panic");
+    assertThat(dto.getTimestamp()).isEqualTo(42L);
+  }
+
+  @Test
+  void shouldCreateDtosForAllEntities() {
+    List<TransmissionDto> dtos = TransmissionDto.fromAll(Collections.singletonList(transmission));
+
+    assertThat(dtos).extracting(TransmissionDto::getContent).containsExactly("Don't panic");
+  }
+
+  @Test
+  void shouldCreateViewClass() {
+    SummaryTransmissionDtoImpl dto = SummaryTransmissionDtoImpl.from(transmission);
+
+    assertThat(dto).hasOnlyFields("sender", "timestamp");
+    assertThat(dto.getSender()).isEqualTo("Heart of Gold");
+  }
+
+  @Test
+  void shouldCreateEntity() {
+    TransmissionDto dto = TransmissionDto.from(transmission);
+    dto.setContent("Mostly harmless");
+
+    Transmission entity = dto.toEntity();
+
+    assertThat(entity.getSender()).isEqualTo("Heart of Gold");
+    assertThat(entity.getContent()).isEqualTo("Mostly harmless");
+  }
+}